@@ -0,0 +1,130 @@
+package com.aeon.acss.fdu.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * จำกัดจำนวนงานที่ถือ connection พร้อมกันไม่เกิน permits ด้วย semaphore แบบ fair
+ *
+ * <p>ได้ permit ตอน getConnection() คืนตอน close() — ถ้ารอเกิน acquireTimeout จะ throw
+ * {@link SQLTransientConnectionException} (Spring แปลงเป็น CannotGetJdbcConnectionException)
+ * เมื่อใช้ virtual thread ทำให้ request ที่เกินรอคิวที่นี่ (park ถูก ๆ) แทนที่จะไปแย่งกันใน pool/driver
+ *
+ * <p>permit นับต่อ thread (re-entrant): thread ที่ถือ connection อยู่แล้วขออีก (REQUIRES_NEW,
+ * TransactionTemplate ซ้อนใน transaction เดิม) ได้ทันทีโดยไม่ใช้ permit เพิ่ม ไม่งั้นถ้า permit หมด
+ * ทุก thread จะรอ permit ที่ตัวเองถืออยู่ — connection ซ้อนจึงต้องมีที่ว่างใน pool (permits น้อยกว่าขนาด pool)
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final LongAdder rejected = new LongAdder();
+    // จำนวน connection ที่ thread นี้เปิดค้างอยู่ (ผ่าน bulkhead นี้)
+    private final ThreadLocal<AtomicInteger> held = ThreadLocal.withInitial(AtomicInteger::new);
+
+    public BulkheadDataSource(DataSource target, int maxConcurrent, Duration acquireTimeout) {
+        super(target);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger mine = held.get();
+        boolean permit = acquire(mine);
+        try {
+            return guard(obtainTargetDataSource().getConnection(), mine, permit);
+        } catch (SQLException | RuntimeException e) {
+            release(mine, permit);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger mine = held.get();
+        boolean permit = acquire(mine);
+        try {
+            return guard(obtainTargetDataSource().getConnection(username, password), mine, permit);
+        } catch (SQLException | RuntimeException e) {
+            release(mine, permit);
+            throw e;
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /** @return true = ใช้ permit ใหม่ (false = thread นี้ถือ connection อยู่แล้ว) */
+    private boolean acquire(AtomicInteger mine) throws SQLException {
+        if (mine.getAndIncrement() > 0) return false;
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                mine.decrementAndGet();
+                rejected.increment();
+                throw new SQLTransientConnectionException("Database is busy: " + maxConcurrent
+                        + " connections in use, waited " + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            mine.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+        return true;
+    }
+
+    // นับที่ตัวนับของ thread ที่เปิด (close จาก thread อื่นได้)
+    private void release(AtomicInteger mine, boolean permit) {
+        mine.decrementAndGet();
+        if (permit) permits.release();
+    }
+
+    // คืน permit ครั้งเดียวตอน close (close ซ้ำได้ตาม JDBC spec)
+    private Connection guard(Connection target, AtomicInteger mine, boolean permit) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) release(mine, permit);
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,25 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.util.List;
+
+/** ผลของ POST /client/api/bulk (items เรียงตามลำดับที่ส่งมา) */
+public record ClientBulkResult(List<Item> items,
+                               int created,
+                               int updated,
+                               int deleted,
+                               int failed,
+                               int chunks,
+                               long elapsedMillis) {
+
+    public enum Status {
+        OK, INVALID, NOT_FOUND, CONFLICT, FAILED
+    }
+
+    public record Item(int index, ClientChange.Op op, Integer id, Status status, String message) {
+    }
+
+    public long itemsPerSecond() {
+        int done = created + updated + deleted;
+        return elapsedMillis == 0 ? done : done * 1000L / elapsedMillis;
+    }
+}
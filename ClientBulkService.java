@@ -0,0 +1,425 @@
+package com.aeon.acss.fdu.service;
+
+import java.nio.ByteBuffer;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult.Item;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult.Status;
+import com.aeon.acss.fdu.model.dto.ClientChange;
+import com.aeon.acss.fdu.model.dto.ClientDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * create/update/delete client ทีละหลายรายการ (POST /client/api/bulk)
+ *
+ * <p>ClientModel ใช้ IDENTITY ทำให้ Hibernate batch insert ไม่ได้ จึงเขียนผ่าน JDBC ตรง ๆ:
+ * 1 chunk = 1 transaction ผลต้องเหมือนทำทีละรายการตามลำดับที่ส่งมา — รายการที่ op เดียวกันติดกัน
+ * รวมเป็น 1 run (INSERT หลายแถวพร้อม OUTPUT INSERTED.id / UPDATE, DELETE เป็น JDBC batch) แล้วทำทีละ run ตามลำดับ
+ * chunk ที่ fail (error อะไรก็ตาม) จะ rollback เฉพาะ chunk นั้น รายการใน chunk เป็น FAILED แล้วทำ chunk ถัดไปต่อ
+ *
+ * <p>ตรวจ (code, service) ซ้ำผ่าน {@link ClientUniquenessService} ตามลำดับรายการ: key ที่รายการก่อนหน้าใน chunk
+ * ปล่อย (DELETE หรือ UPDATE เปลี่ยน service) ส่งต่อให้รายการหลังได้ทันที ({@link ClientUniquenessService#transfer})
+ *
+ * <p>UPDATE/DELETE ต้องส่ง version (rowversion) เหมือน endpoint ทีละรายการ; created_by/updated_by มาจากผู้ใช้ที่ login
+ */
+@Slf4j
+@Service
+public class ClientBulkService {
+
+    // SQL Server: parameter ไม่เกิน 2100 ต่อ statement, VALUES ไม่เกิน 1000 แถว
+    private static final int INSERT_PARAMS_PER_ROW = 4;
+    private static final int MAX_INSERT_ROWS = 2000 / INSERT_PARAMS_PER_ROW;
+
+    private static final String INSERT = "INSERT INTO dbo.employers"
+            + " (code, service, name_th, name_en, created_by, created_at, updated_by, updated_at)"
+            + " OUTPUT INSERTED.id, INSERTED.code, INSERTED.service VALUES ";
+
+    // code แก้ไม่ได้ (เหมือนหน้า Edit) field ที่ไม่ส่งมาคงค่าเดิม
+    private static final String UPDATE = "UPDATE dbo.employers SET"
+            + " service = COALESCE(:service, service),"
+            + " name_th = COALESCE(:nameTh, name_th),"
+            + " name_en = COALESCE(:nameEn, name_en),"
+            + " updated_by = :actor, updated_at = :now"
+            + " WHERE id = :id AND row_version = CAST(:version AS BINARY(8))";
+
+    private static final String DELETE = "DELETE FROM dbo.employers"
+            + " WHERE id = :id AND row_version = CAST(:version AS BINARY(8))";
+
+    // UPDLOCK: แถวที่จะแก้/ลบล็อกไว้จน commit -> version ที่อ่านได้คือ version ตอน UPDATE/DELETE จริง
+    private static final String CURRENT = "SELECT id, code, service, CAST(row_version AS BIGINT) AS version"
+            + " FROM dbo.employers WITH (UPDLOCK, ROWLOCK) WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ClientUniquenessService uniqueness;
+    private final ClientListCache cache;
+    private final int chunkSize;
+
+    public ClientBulkService(NamedParameterJdbcTemplate jdbc,
+                             PlatformTransactionManager txManager,
+                             ClientUniquenessService uniqueness,
+                             ClientListCache cache,
+                             @Value("${fdu.client.bulk.chunk-size:500}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.uniqueness = uniqueness;
+        this.cache = cache;
+        // IN (...) ของ SQL Server รับ parameter ได้ไม่เกิน 2100
+        this.chunkSize = Math.max(1, Math.min(chunkSize, 2000));
+    }
+
+    /**
+     * @param actor id ของผู้ใช้ที่ login (ลง created_by/updated_by)
+     */
+    public ClientBulkResult apply(List<ClientChange> changes, int actor) {
+        long started = System.nanoTime();
+        Item[] results = new Item[changes.size()];
+        int chunks = 0;
+
+        for (int from = 0; from < changes.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, changes.size());
+            int first = from;
+            Item[] chunk = new Item[to - from];
+            try {
+                tx.executeWithoutResult(status -> applyChunk(changes, first, chunk, actor));
+                cache.invalidate();
+            } catch (RuntimeException e) {
+                // ทั้ง chunk rollback: รายการที่ผ่านไปแล้วใน chunk นี้ก็ไม่ถูกบันทึก
+                String msg = message(e);
+                log.warn("Client bulk chunk {} (items {}-{}) failed: {}", chunks, from, to - 1, msg, e);
+                for (int i = 0; i < chunk.length; i++) {
+                    Item it = chunk[i];
+                    if (it == null || it.status() == Status.OK) {
+                        ClientChange change = changes.get(from + i);
+                        chunk[i] = new Item(from + i, op(change), id(change), Status.FAILED, msg);
+                    }
+                }
+            }
+            System.arraycopy(chunk, 0, results, from, chunk.length);
+            chunks++;
+        }
+
+        int created = 0, updated = 0, deleted = 0, failed = 0;
+        for (Item it : results) {
+            if (it.status() != Status.OK) failed++;
+            else if (it.op() == ClientChange.Op.CREATE) created++;
+            else if (it.op() == ClientChange.Op.UPDATE) updated++;
+            else deleted++;
+        }
+        ClientBulkResult result = new ClientBulkResult(List.of(results), created, updated, deleted, failed, chunks,
+                (System.nanoTime() - started) / 1_000_000);
+        log.info("Client bulk: {} created, {} updated, {} deleted, {} failed, {} chunks in {} ms ({} items/sec)",
+                created, updated, deleted, failed, chunks, result.elapsedMillis(), result.itemsPerSecond());
+        return result;
+    }
+
+    /** รายการที่ผ่านการตรวจแล้ว (รอเขียนลง DB) */
+    private record Pending(int i, ClientChange.Op op, ClientDto dto, ClientUniquenessService.Claim claim) {
+    }
+
+    private void applyChunk(List<ClientChange> changes, int offset, Item[] out, int actor) {
+        Timestamp now = Timestamp.valueOf(ClientService.now());
+
+        for (int i = 0; i < out.length; i++) {
+            String invalid = validate(changes.get(offset + i));
+            if (invalid != null) {
+                ClientChange change = changes.get(offset + i);
+                out[i] = new Item(offset + i, op(change), id(change), Status.INVALID, invalid);
+            }
+        }
+
+        // ===== ตรวจตามลำดับรายการ (เหมือนทำทีละรายการ) กับสถานะของ chunk ที่เปลี่ยนไปเรื่อย ๆ =====
+        Map<Integer, ClientModel> current = currentRows(changes, offset, out);
+        Map<Integer, Long> versions = new HashMap<>();
+        current.forEach((id, c) -> versions.put(id, ClientDto.version(c.getRowVersion())));
+        Set<String> freed = new HashSet<>(); // key ที่รายการก่อนหน้าใน chunk ปล่อยแล้ว
+        Set<String> taken = new HashSet<>(); // key ที่รายการก่อนหน้าใน chunk ได้ไป
+        List<Pending> pending = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < out.length; i++) {
+                if (out[i] != null) continue;
+                ClientChange change = changes.get(offset + i);
+                ClientDto dto = change.client();
+                switch (change.op()) {
+                    case CREATE -> {
+                        ClientModel c = new ClientModel();
+                        c.setCode(dto.getCode().trim());
+                        c.setService(dto.getService().trim());
+                        ClientUniquenessService.Claim claim = claim(c, freed, taken);
+                        if (claim == null) out[i] = conflict(offset + i, change, "Duplicate (code + service)");
+                        else pending.add(new Pending(i, change.op(), dto, claim));
+                    }
+                    case UPDATE -> {
+                        ClientModel existing = current.get(dto.getId());
+                        String stale = stale(existing, versions.get(dto.getId()), dto.getVersion());
+                        if (stale != null) {
+                            out[i] = rejected(offset + i, change, existing, stale);
+                            continue;
+                        }
+                        ClientUniquenessService.Claim claim = null;
+                        String service = trimToNull(dto.getService());
+                        String oldKey = ClientUniquenessService.key(existing.getCode(), existing.getService());
+                        if (service != null && !oldKey.equals(ClientUniquenessService.key(existing.getCode(), service))) {
+                            ClientModel next = new ClientModel();
+                            next.setId(existing.getId());
+                            next.setCode(existing.getCode());
+                            next.setService(service);
+                            claim = claim(next, freed, taken);
+                            if (claim == null) {
+                                out[i] = conflict(offset + i, change, "Duplicate (code + service)");
+                                continue;
+                            }
+                            taken.remove(oldKey);
+                            freed.add(oldKey);
+                            existing.setService(service);
+                        }
+                        // version ใหม่ยังไม่รู้จนกว่าจะ commit: แก้ id เดิมซ้ำใน chunk เดียวกัน = conflict
+                        versions.put(dto.getId(), null);
+                        pending.add(new Pending(i, change.op(), dto, claim));
+                    }
+                    case DELETE -> {
+                        ClientModel existing = current.get(dto.getId());
+                        String stale = stale(existing, versions.get(dto.getId()), dto.getVersion());
+                        if (stale != null) {
+                            out[i] = rejected(offset + i, change, existing, stale);
+                            continue;
+                        }
+                        String key = ClientUniquenessService.key(existing.getCode(), existing.getService());
+                        taken.remove(key);
+                        freed.add(key);
+                        current.remove(dto.getId());
+                        pending.add(new Pending(i, change.op(), dto, null));
+                    }
+                }
+            }
+
+            execute(pending, offset, out, now, actor);
+        } catch (RuntimeException e) {
+            // claim ที่ยังไม่ได้ bind ไม่มี afterCompletion มาคืนให้ -> คืนเอง (ที่ bind แล้วคืนตอน rollback)
+            for (Pending p : pending) {
+                if (p.claim() != null) p.claim().cancel();
+            }
+            throw e;
+        }
+    }
+
+    /** เขียนลง DB ทีละ run (รายการ op เดียวกันที่ติดกัน) ตามลำดับ แล้วยืนยัน key ตามลำดับรายการ */
+    private void execute(List<Pending> pending, int offset, Item[] out, Timestamp now, int actor) {
+        Map<Integer, Integer> createdIds = new HashMap<>();
+        int from = 0;
+        while (from < pending.size()) {
+            ClientChange.Op op = pending.get(from).op();
+            int to = from;
+            while (to < pending.size() && pending.get(to).op() == op) to++;
+            List<Pending> run = pending.subList(from, to);
+            switch (op) {
+                case CREATE -> insert(run, createdIds, now, actor);
+                case UPDATE -> writeRun(UPDATE, run, offset, out, p -> updateParams(p.dto(), now, actor));
+                case DELETE -> writeRun(DELETE, run, offset, out, p -> Map.of(
+                        "id", p.dto().getId(), "version", p.dto().getVersion()));
+            }
+            from = to;
+        }
+
+        // afterCommit ทำตามลำดับที่ลงทะเบียน: release/bind ของเจ้าของเดิมก่อน transfer ของรายการถัดไป
+        for (Pending p : pending) {
+            int i = p.i();
+            if (out[i] != null) continue;
+            Integer id = (p.op() == ClientChange.Op.CREATE) ? createdIds.get(i) : p.dto().getId();
+            if (p.op() == ClientChange.Op.DELETE) uniqueness.release(id);
+            else if (p.claim() != null) p.claim().bind(id);
+            out[i] = new Item(offset + i, p.op(), id, Status.OK, null);
+        }
+    }
+
+    // ===================== SQL =====================
+
+    /** INSERT หลายแถวต่อ statement: id จาก OUTPUT INSERTED จับคู่ด้วย (code, service) ที่ไม่ซ้ำกันใน run */
+    private void insert(List<Pending> run, Map<Integer, Integer> createdIds, Timestamp now, int actor) {
+        for (int from = 0; from < run.size(); from += MAX_INSERT_ROWS) {
+            List<Pending> rows = run.subList(from, Math.min(from + MAX_INSERT_ROWS, run.size()));
+            MapSqlParameterSource p = new MapSqlParameterSource().addValue("now", now).addValue("actor", actor);
+            StringBuilder sql = new StringBuilder(INSERT);
+            Map<String, Integer> byKey = new HashMap<>();
+            for (int n = 0; n < rows.size(); n++) {
+                ClientDto dto = rows.get(n).dto();
+                if (n > 0) sql.append(", ");
+                sql.append("(:code").append(n).append(", :service").append(n).append(", :nameTh").append(n)
+                        .append(", :nameEn").append(n).append(", :actor, :now, :actor, :now)");
+                p.addValue("code" + n, dto.getCode().trim());
+                p.addValue("service" + n, dto.getService().trim());
+                p.addValue("nameTh" + n, dto.getNameTh().trim());
+                p.addValue("nameEn" + n, dto.getNameEn().trim());
+                byKey.put(ClientUniquenessService.key(dto.getCode(), dto.getService()), rows.get(n).i());
+            }
+            jdbc.query(sql.toString(), p, rs -> {
+                Integer i = byKey.get(ClientUniquenessService.key(rs.getString("code"), rs.getString("service")));
+                if (i != null) createdIds.put(i, rs.getInt("id"));
+            });
+            for (Pending row : rows) {
+                if (!createdIds.containsKey(row.i())) {
+                    throw new IllegalStateException("No id returned for new client " + row.dto().getCode());
+                }
+            }
+        }
+    }
+
+    /** UPDATE/DELETE แบบ batch: ไม่มีแถวตรง id + version = conflict (แถวล็อกไว้แล้วจึงไม่ควรเกิด) */
+    private void writeRun(String sql, List<Pending> run, int offset, Item[] out,
+                          Function<Pending, Map<String, ?>> params) {
+        int[] counts = batch(sql, run.size(), n -> params.apply(run.get(n)));
+        for (int n = 0; n < counts.length; n++) {
+            if (counts[n] != 0) continue;
+            Pending p = run.get(n);
+            if (p.claim() != null) p.claim().cancel();
+            out[p.i()] = new Item(offset + p.i(), p.op(), p.dto().getId(), Status.CONFLICT,
+                    "Client was changed or deleted by someone else");
+        }
+    }
+
+    private int[] batch(String sql, int size, IntFunction<Map<String, ?>> params) {
+        if (size == 0) return new int[0];
+        @SuppressWarnings("unchecked")
+        Map<String, ?>[] batch = new Map[size];
+        for (int n = 0; n < size; n++) batch[n] = params.apply(n);
+        int[] counts = jdbc.batchUpdate(sql, batch);
+        // driver บางตัวคืน SUCCESS_NO_INFO (-2) แทนจำนวนแถว -> ถือว่าสำเร็จ 1 แถว
+        for (int n = 0; n < counts.length; n++) {
+            if (counts[n] == Statement.SUCCESS_NO_INFO) counts[n] = 1;
+        }
+        return counts;
+    }
+
+    /** code/service/version ปัจจุบันของทุก id ที่จะ UPDATE/DELETE ใน chunk (select ครั้งเดียว) */
+    private Map<Integer, ClientModel> currentRows(List<ClientChange> changes, int offset, Item[] out) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < out.length; i++) {
+            ClientChange change = changes.get(offset + i);
+            if (out[i] == null && change.op() != ClientChange.Op.CREATE) ids.add(change.client().getId());
+        }
+        Map<Integer, ClientModel> rows = new HashMap<>();
+        if (ids.isEmpty()) return rows;
+        jdbc.query(CURRENT, Map.of("ids", ids.stream().distinct().toList()), rs -> {
+            ClientModel c = new ClientModel();
+            c.setId(rs.getInt("id"));
+            c.setCode(rs.getString("code"));
+            c.setService(rs.getString("service"));
+            c.setRowVersion(ByteBuffer.allocate(8).putLong(rs.getLong("version")).array());
+            rows.put(c.getId(), c);
+        });
+        return rows;
+    }
+
+    private static Map<String, ?> updateParams(ClientDto dto, Timestamp now, int actor) {
+        Map<String, Object> p = new HashMap<>();
+        p.put("id", dto.getId());
+        p.put("version", dto.getVersion());
+        p.put("service", trimToNull(dto.getService()));
+        p.put("nameTh", trimToNull(dto.getNameTh()));
+        p.put("nameEn", trimToNull(dto.getNameEn()));
+        p.put("actor", actor);
+        p.put("now", now);
+        return p;
+    }
+
+    // ===================== uniqueness =====================
+
+    /**
+     * จอง key ตามลำดับรายการ: ถูกรายการก่อนหน้าใน chunk เอาไปแล้ว = ซ้ำ, รายการก่อนหน้าเพิ่งปล่อย = รับต่อ,
+     * ไม่งั้นจองจาก {@link ClientUniquenessService} ตามปกติ
+     *
+     * @return null ถ้าซ้ำ
+     */
+    private ClientUniquenessService.Claim claim(ClientModel c, Set<String> freed, Set<String> taken) {
+        String key = ClientUniquenessService.key(c.getCode(), c.getService());
+        if (taken.contains(key)) return null;
+        ClientUniquenessService.Claim claim;
+        if (freed.remove(key)) {
+            claim = uniqueness.transfer(c);
+        } else {
+            try {
+                claim = uniqueness.claim(c);
+            } catch (DuplicateKeyException e) {
+                return null;
+            }
+        }
+        taken.add(key);
+        return claim;
+    }
+
+    // ===================== helpers =====================
+
+    /** เหตุผลที่ UPDATE/DELETE ทำไม่ได้ หรือ null ถ้าทำได้ */
+    private static String stale(ClientModel existing, Long currentVersion, Long expectedVersion) {
+        if (existing == null) return "Client not found";
+        if (currentVersion == null || !currentVersion.equals(expectedVersion)) {
+            return "Client was changed or deleted by someone else";
+        }
+        return null;
+    }
+
+    private static Item rejected(int index, ClientChange change, ClientModel existing, String message) {
+        Status status = (existing == null) ? Status.NOT_FOUND : Status.CONFLICT;
+        return new Item(index, change.op(), change.client().getId(), status, message);
+    }
+
+    private static Item conflict(int index, ClientChange change, String message) {
+        return new Item(index, change.op(), change.client().getId(), Status.CONFLICT, message);
+    }
+
+    private static String validate(ClientChange change) {
+        if (change == null || change.op() == null) return "op is required";
+        ClientDto dto = change.client();
+        if (dto == null) return "client is required";
+        return switch (change.op()) {
+            case CREATE -> (isBlank(dto.getCode()) || isBlank(dto.getService()) || isBlank(dto.getNameTh())
+                    || isBlank(dto.getNameEn()))
+                    ? "code, service, nameTh, nameEn are required" : null;
+            case UPDATE, DELETE -> (dto.getId() == null || dto.getVersion() == null)
+                    ? "id and version are required" : null;
+        };
+    }
+
+    private static String message(RuntimeException e) {
+        Throwable cause = (e instanceof DataAccessException dae) ? dae.getMostSpecificCause() : e;
+        return (cause.getMessage() != null) ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static ClientChange.Op op(ClientChange change) {
+        return (change != null) ? change.op() : null;
+    }
+
+    private static Integer id(ClientChange change) {
+        return (change != null && change.client() != null) ? change.client().getId() : null;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private static String trimToNull(String s) {
+        return isBlank(s) ? null : s.trim();
+    }
+}
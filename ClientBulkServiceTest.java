@@ -0,0 +1,284 @@
+package com.aeon.acss.fdu.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult.Status;
+import com.aeon.acss.fdu.model.dto.ClientChange;
+import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.aeon.acss.fdu.repository.ClientRepository;
+
+/**
+ * bulk ต้องให้ผลเหมือนทำทีละรายการตามลำดับที่ส่งมา — SQL ของ ClientBulkService ใช้ OUTPUT INSERTED/rowversion
+ * ของ SQL Server จึงแทน NamedParameterJdbcTemplate ด้วยตาราง employers ใน memory ({@link Employers})
+ */
+class ClientBulkServiceTest {
+
+    private static final int ACTOR = 7;
+
+    private Employers db;
+    private ClientUniquenessService uniqueness;
+
+    @BeforeEach
+    void setUp() {
+        db = new Employers();
+        db.add(1, "A", "S1");
+        db.add(2, "B", "S1");
+    }
+
+    @Test
+    void runsOfTheSameOpAreWrittenInRequestOrder() {
+        ClientBulkResult result = service(500).apply(List.of(
+                create("X", "S1"),
+                create("Y", "S1"),
+                update(1, db.version(1), "S9"),
+                delete(2, db.version(2)),
+                create("Z", "S1")), ACTOR);
+
+        assertThat(statuses(result)).containsOnly(Status.OK);
+        assertThat(db.statements).containsExactly("INSERT x2", "UPDATE x1", "DELETE x1", "INSERT x1");
+        assertThat(result.items()).extracting(ClientBulkResult.Item::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(result.items().get(0).id()).isEqualTo(db.idOf("X", "S1"));
+        assertThat(result.items().get(4).id()).isEqualTo(db.idOf("Z", "S1"));
+        assertThat(result.created()).isEqualTo(3);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.deleted()).isEqualTo(1);
+        assertThat(db.rows.get(1).service).isEqualTo("S9");
+        assertThat(db.rows).doesNotContainKey(2);
+    }
+
+    @Test
+    void keyFreedEarlierInTheChunkCanBeTakenLater() {
+        ClientBulkResult result = service(500).apply(List.of(
+                delete(2, db.version(2)),
+                create("B", "S1"),
+                update(1, db.version(1), "S2"),
+                create("a", "s1")), ACTOR);
+
+        assertThat(statuses(result)).containsOnly(Status.OK);
+        assertThat(uniqueness.exists("B", "S1")).isTrue();
+        assertThat(uniqueness.exists("A", "S2")).isTrue();
+        assertThat(uniqueness.exists("A", "S1")).isTrue();
+        assertThat(result.items().get(3).id()).isEqualTo(db.idOf("a", "s1"));
+    }
+
+    @Test
+    void keyTakenBeforeItIsFreedIsADuplicate() {
+        ClientBulkResult result = service(500).apply(List.of(
+                create("B", "S1"),
+                delete(2, db.version(2))), ACTOR);
+
+        assertThat(statuses(result)).containsExactly(Status.CONFLICT, Status.OK);
+        assertThat(result.items().get(0).message()).contains("Duplicate");
+        assertThat(uniqueness.exists("B", "S1")).isFalse();
+    }
+
+    @Test
+    void duplicatesWithinTheRequestIgnoreCaseAndSpaces() {
+        ClientBulkResult result = service(500).apply(List.of(
+                create("N", "S1"),
+                create(" n ", "s1")), ACTOR);
+
+        assertThat(statuses(result)).containsExactly(Status.OK, Status.CONFLICT);
+        assertThat(db.statements).containsExactly("INSERT x1");
+    }
+
+    @Test
+    void staleMissingRepeatedAndInvalidItemsAreRejected() {
+        long v1 = db.version(1);
+        ClientBulkResult result = service(500).apply(List.of(
+                update(1, v1 + 100, "S5"),
+                update(99, 1L, "S5"),
+                update(2, db.version(2), "S6"),
+                delete(2, db.version(2)),
+                new ClientChange(ClientChange.Op.CREATE, ClientDto.builder().code("C").build())), ACTOR);
+
+        assertThat(statuses(result)).containsExactly(
+                Status.CONFLICT, Status.NOT_FOUND, Status.OK, Status.CONFLICT, Status.INVALID);
+        assertThat(db.version(1)).isEqualTo(v1);
+        assertThat(db.rows).containsKey(2);
+        assertThat(result.failed()).isEqualTo(4);
+    }
+
+    @Test
+    void failedChunkRollsBackAndReleasesItsKeys() {
+        db.failInsertOf = "Q";
+        ClientBulkResult result = service(2).apply(List.of(
+                create("P", "S1"),
+                create("Q", "S1"),
+                create("R", "S1")), ACTOR);
+
+        assertThat(statuses(result)).containsExactly(Status.FAILED, Status.FAILED, Status.OK);
+        assertThat(result.items().get(0).message()).isEqualTo("boom");
+        assertThat(result.chunks()).isEqualTo(2);
+        assertThat(uniqueness.exists("P", "S1")).isFalse();
+        assertThat(uniqueness.exists("R", "S1")).isTrue();
+    }
+
+    // ===================== helpers =====================
+
+    private ClientBulkService service(int chunkSize) {
+        ClientRepository repo = mock(ClientRepository.class);
+        when(repo.findAll()).thenReturn(db.models());
+        uniqueness = new ClientUniquenessService(repo);
+        uniqueness.warmUp();
+
+        // ไม่มี transaction synchronization: afterCommit ของ uniqueness ทำทันทีตามลำดับที่เรียก
+        PlatformTransactionManager tx = mock(PlatformTransactionManager.class);
+        when(tx.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        return new ClientBulkService(db, tx, uniqueness, mock(ClientListCache.class), chunkSize);
+    }
+
+    private static ClientChange create(String code, String service) {
+        return new ClientChange(ClientChange.Op.CREATE,
+                ClientDto.builder().code(code).service(service).nameTh("ชื่อ " + code).nameEn("Name " + code)
+                        .build());
+    }
+
+    private static ClientChange update(int id, long version, String service) {
+        return new ClientChange(ClientChange.Op.UPDATE,
+                ClientDto.builder().id(id).version(version).service(service).build());
+    }
+
+    private static ClientChange delete(int id, long version) {
+        return new ClientChange(ClientChange.Op.DELETE, ClientDto.builder().id(id).version(version).build());
+    }
+
+    private static List<Status> statuses(ClientBulkResult result) {
+        return result.items().stream().map(ClientBulkResult.Item::status).toList();
+    }
+
+    /** dbo.employers ใน memory: ตอบ SQL 4 แบบที่ ClientBulkService ใช้ และจด statement ตามลำดับ */
+    private static final class Employers extends NamedParameterJdbcTemplate {
+
+        static final class Row {
+            final int id;
+            final String code;
+            String service;
+            long version;
+
+            Row(int id, String code, String service, long version) {
+                this.id = id;
+                this.code = code;
+                this.service = service;
+                this.version = version;
+            }
+        }
+
+        final Map<Integer, Row> rows = new LinkedHashMap<>();
+        final List<String> statements = new ArrayList<>();
+        String failInsertOf;
+        private int nextId = 100;
+        private long nextVersion = 1000;
+
+        Employers() {
+            super(mock(JdbcOperations.class));
+        }
+
+        void add(int id, String code, String service) {
+            rows.put(id, new Row(id, code, service, nextVersion++));
+        }
+
+        long version(int id) {
+            return rows.get(id).version;
+        }
+
+        Integer idOf(String code, String service) {
+            return rows.values().stream()
+                    .filter(r -> r.code.equals(code) && r.service.equals(service))
+                    .map(r -> r.id).findFirst().orElse(null);
+        }
+
+        List<ClientModel> models() {
+            return rows.values().stream().map(r -> {
+                ClientModel c = new ClientModel();
+                c.setId(r.id);
+                c.setCode(r.code);
+                c.setService(r.service);
+                return c;
+            }).toList();
+        }
+
+        // SELECT ... WITH (UPDLOCK) WHERE id IN (:ids)
+        @Override
+        public void query(String sql, Map<String, ?> params, RowCallbackHandler rch) {
+            assertThat(sql).startsWith("SELECT id, code, service");
+            for (Object id : (List<?>) params.get("ids")) {
+                Row r = rows.get((Integer) id);
+                if (r != null) process(rch, r);
+            }
+        }
+
+        // INSERT ... OUTPUT INSERTED.id, INSERTED.code, INSERTED.service VALUES (...), (...)
+        @Override
+        public void query(String sql, SqlParameterSource params, RowCallbackHandler rch) {
+            assertThat(sql).startsWith("INSERT INTO dbo.employers");
+            List<Row> inserted = new ArrayList<>();
+            for (int n = 0; params.hasValue("code" + n); n++) {
+                String code = (String) params.getValue("code" + n);
+                if (code.equals(failInsertOf)) throw new DataIntegrityViolationException("insert failed",
+                        new SQLException("boom"));
+                inserted.add(new Row(nextId++, code, (String) params.getValue("service" + n), nextVersion++));
+            }
+            statements.add("INSERT x" + inserted.size());
+            for (Row r : inserted) {
+                rows.put(r.id, r);
+                process(rch, r);
+            }
+        }
+
+        // UPDATE / DELETE ... WHERE id = :id AND row_version = :version
+        @Override
+        public int[] batchUpdate(String sql, Map<String, ?>[] batch) {
+            boolean delete = sql.startsWith("DELETE");
+            statements.add((delete ? "DELETE x" : "UPDATE x") + batch.length);
+            int[] counts = new int[batch.length];
+            for (int i = 0; i < batch.length; i++) {
+                Row r = rows.get((Integer) batch[i].get("id"));
+                if (r == null || r.version != (Long) batch[i].get("version")) continue;
+                if (delete) {
+                    rows.remove(r.id);
+                } else {
+                    if (batch[i].get("service") != null) r.service = (String) batch[i].get("service");
+                    r.version = nextVersion++;
+                }
+                counts[i] = 1;
+            }
+            return counts;
+        }
+
+        private static void process(RowCallbackHandler rch, Row r) {
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getInt("id")).thenReturn(r.id);
+                when(rs.getString("code")).thenReturn(r.code);
+                when(rs.getString("service")).thenReturn(r.service);
+                when(rs.getLong("version")).thenReturn(r.version);
+                rch.processRow(rs);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
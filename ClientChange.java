@@ -0,0 +1,13 @@
+package com.aeon.acss.fdu.model.dto;
+
+/**
+ * 1 รายการของ POST /client/api/bulk
+ * CREATE ใช้ code, service, nameTh, nameEn; UPDATE ใช้ id, version + field ที่จะแก้; DELETE ใช้ id, version
+ * (created_by/updated_by มาจากผู้ใช้ที่ login ไม่ใช่ค่าใน body)
+ */
+public record ClientChange(Op op, ClientDto client) {
+
+    public enum Op {
+        CREATE, UPDATE, DELETE
+    }
+}
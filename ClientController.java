@@ -3,8 +3,14 @@ package com.aeon.acss.fdu.controller;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -15,21 +21,38 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.model.dto.ClientBulkResult;
+import com.aeon.acss.fdu.model.dto.ClientChange;
 import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.aeon.acss.fdu.model.dto.ClientPage;
+import com.aeon.acss.fdu.model.dto.ClientPageQuery;
+import com.aeon.acss.fdu.service.ClientBulkService;
+import com.aeon.acss.fdu.service.ClientListCache;
 import com.aeon.acss.fdu.service.ClientService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @Controller
 @RequestMapping("/client")
 public class ClientController {
 
 	private final ClientService clientService;
+	private final ClientBulkService clientBulkService;
+	private final CurrentUser currentUser;
+	private final int bulkMaxItems;
 
-	public ClientController(ClientService clientService) {
+	public ClientController(ClientService clientService, ClientBulkService clientBulkService, CurrentUser currentUser,
+			@Value("${fdu.client.bulk.max-items:10000}") int bulkMaxItems) {
 		this.clientService = clientService;
+		this.clientBulkService = clientBulkService;
+		this.currentUser = currentUser;
+		this.bulkMaxItems = bulkMaxItems;
     }
 
 	// ===== 1) View (Thymeleaf) =====
@@ -43,17 +66,35 @@ public class ClientController {
 
 	// ===== 2) JSON API =====
 
-	// GET /client/api
+	// GET /client/api (ETag = hash ของ JSON; If-None-Match ตรง -> 304 ไม่ต้องแตะ DB/serialize)
 	@GetMapping("/api")
 	@ResponseBody
-	public List<ClientDto> list() {
-		return clientService.findAllDtos();
+	public ResponseEntity<byte[]> list(WebRequest request) {
+		ClientListCache.Snapshot snapshot = clientService.snapshot();
+		if (request.checkNotModified(snapshot.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(snapshot.etag())
+					.cacheControl(CacheControl.noCache())
+					.build();
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.eTag(snapshot.etag())
+				.cacheControl(CacheControl.noCache())
+				.body(snapshot.json());
     }
 
+	// GET /client/api/page (DataTables server-side: draw/start/length/search[value]/order + after = cursor)
+	@GetMapping("/api/page")
+	@ResponseBody
+	public ClientPage page(@RequestParam Map<String, String> params) {
+		return clientService.page(ClientPageQuery.from(params));
+	}
+
 	// POST /client/api
 	@PostMapping("/api")
 	@ResponseBody
-	public ClientDto create(@RequestBody ClientDto dto) {
+	public ClientDto create(@RequestBody ClientDto dto, HttpServletRequest request) {
 		if (isBlank(dto.getCode()) || isBlank(dto.getService()) || isBlank(dto.getNameTh())
 				|| isBlank(dto.getNameEn())) {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "code, service, nameTh, nameEn are required");
@@ -64,60 +105,77 @@ public class ClientController {
 			throw new ResponseStatusException(HttpStatus.CONFLICT, "Duplicate (code + service)");
 		}
 
-		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime now = ClientService.now();
 		ClientModel c = new ClientModel();
 		c.setCode(dto.getCode().trim());
 		c.setService(dto.getService().trim());
 		c.setNameTh(dto.getNameTh().trim());
 		c.setNameEn(dto.getNameEn().trim());
 
-		// TODO: derive from logged-in user instead of trusting input
-		c.setCreatedBy(dto.getCreatedBy());
+		int actor = currentUser.id(request);
+		c.setCreatedBy(actor);
 		c.setCreatedAt(now);
-		c.setUpdatedBy(dto.getUpdatedBy() != null ? dto.getUpdatedBy() : dto.getCreatedBy());
+		c.setUpdatedBy(actor);
 		c.setUpdatedAt(now);
 
-		ClientModel saved = clientService.save(c);
-		return ClientDto.from(saved);
+		try {
+			return ClientDto.from(clientService.save(c));
+		} catch (DuplicateKeyException e) {
+			// create พร้อมกันที่ key เดียวกัน ผ่าน guard ด้านบนมาได้ทั้งคู่ แต่จองได้คนเดียว
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Duplicate (code + service)");
+		}
     }
 
-	// PUT /client/api/{id}
-	@PutMapping("/api/{id}")
+	// POST /client/api/bulk  [{ "op": "CREATE", "client": {...} }, { "op": "DELETE", "client": { "id": 1 } }, ...]
+	@PostMapping("/api/bulk")
 	@ResponseBody
-	public ResponseEntity<ClientDto> update(@PathVariable Integer id, @RequestBody ClientDto dto) {
-		ClientModel existing = clientService.findById(id);
-		if (existing == null) {
-			return ResponseEntity.notFound().build();
+	public ClientBulkResult bulk(@RequestBody List<ClientChange> changes, HttpServletRequest request) {
+		if (changes == null || changes.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "changes are required");
+		}
+		if (changes.size() > bulkMaxItems) {
+			throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+					"At most " + bulkMaxItems + " changes per request");
 		}
+		return clientBulkService.apply(changes, currentUser.id(request));
+	}
 
+	// PUT /client/api/{id}  (body.version = version ที่เห็นล่าสุด บังคับ: ไม่ส่ง = 428, มีคนแก้/ลบก่อน = 409)
+	@PutMapping("/api/{id}")
+	@ResponseBody
+	public ResponseEntity<ClientDto> update(@PathVariable Integer id, @RequestBody ClientDto dto,
+			HttpServletRequest request) {
+		requireVersion(dto.getVersion());
 		// We keep code immutable in Edit modal; update service/name fields only.
-		if (!isBlank(dto.getService()))
-			existing.setService(dto.getService().trim());
-		if (!isBlank(dto.getNameTh()))
-			existing.setNameTh(dto.getNameTh().trim());
-		if (!isBlank(dto.getNameEn()))
-			existing.setNameEn(dto.getNameEn().trim());
-
-		existing.setUpdatedBy(dto.getUpdatedBy());
-		existing.setUpdatedAt(LocalDateTime.now());
-
-		ClientModel saved = clientService.save(existing);
-		return ResponseEntity.ok(ClientDto.from(saved));
+		try {
+			return ResponseEntity.ok(clientService.update(id, dto, currentUser.id(request)));
+		} catch (OptimisticLockingFailureException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Client was changed by someone else, please reload");
+		} catch (DuplicateKeyException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Duplicate (code + service)");
+		}
 	}
 
-	// DELETE /client/api/{id}
+	// DELETE /client/api/{id}?version=... (บังคับ เหมือน PUT)
 	@DeleteMapping("/api/{id}")
 	@ResponseBody
-	public ResponseEntity<Void> delete(@PathVariable Integer id) {
-		ClientModel existing = clientService.findById(id);
-		if (existing == null) {
-			return ResponseEntity.notFound().build();
+	public ResponseEntity<Void> delete(@PathVariable Integer id, @RequestParam(required = false) Long version) {
+		requireVersion(version);
+		try {
+			clientService.delete(id, version);
+		} catch (OptimisticLockingFailureException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Client was changed by someone else, please reload");
 		}
-		clientService.deleteById(id);
 		return ResponseEntity.noContent().build();
     }
 
 	// ===== helpers =====
+	private static void requireVersion(Long version) {
+		if (version == null) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED, "version is required, please reload");
+		}
+	}
+
 	private boolean isBlank(String s) {
 		return s == null || s.trim().isEmpty();
     }
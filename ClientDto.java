@@ -1,5 +1,6 @@
 package com.aeon.acss.fdu.model.dto;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 
 import com.aeon.acss.fdu.model.ClientModel;
@@ -30,9 +31,18 @@ public class ClientDto {
 	@JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
 	private LocalDateTime updatedAt;
 
+	/** rowversion ของแถว ต้องส่งกลับมาตอนแก้/ลบ (JSON เป็น string เพราะ JS เก็บเลขเกิน 2^53 ไม่ได้) */
+	@JsonFormat(shape = JsonFormat.Shape.STRING)
+	private Long version;
+
 	public static ClientDto from(ClientModel c) {
 		return ClientDto.builder().id(c.getId()).code(c.getCode()).service(c.getService()).nameTh(c.getNameTh())
 				.nameEn(c.getNameEn()).createdBy(c.getCreatedBy()).createdAt(c.getCreatedAt())
-				.updatedBy(c.getUpdatedBy()).updatedAt(c.getUpdatedAt()).build();
+				.updatedBy(c.getUpdatedBy()).updatedAt(c.getUpdatedAt()).version(version(c.getRowVersion())).build();
+	}
+
+	/** rowversion 8 byte (big-endian) -> long */
+	public static Long version(byte[] rowVersion) {
+		return (rowVersion != null && rowVersion.length == 8) ? ByteBuffer.wrap(rowVersion).getLong() : null;
 	}
 }
@@ -0,0 +1,173 @@
+package com.aeon.acss.fdu.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.aeon.acss.fdu.model.dto.ClientPageQuery;
+
+/**
+ * อ่าน/แก้ไข/ลบ client ด้วย SQL ตรง: select เข้า ClientDto เลย (ไม่สร้าง entity ที่ JPA ต้อง track)
+ * และแก้/ลบด้วย statement เดียว (ไม่ต้อง findById ก่อนเหมือนผ่าน JPA)
+ *
+ * <p>หน้ารายการใช้ keyset pagination: หน้าถัดไปเริ่มจาก (ค่า sort, id) ของแถวสุดท้ายของหน้าก่อน
+ * จึงอ่านแค่ length แถวไม่ว่าจะอยู่หน้าไหน (OFFSET ต้องข้ามแถวก่อนหน้าทั้งหมด) — ควรมี index (code, id) ฯลฯ
+ *
+ * <p>optimistic check ใช้คอลัมน์ rowversion (DB เปลี่ยนให้เองทุกครั้งที่แถวถูกแก้ ไม่ซ้ำแม้แก้ในวินาทีเดียวกัน):
+ * แก้/ลบต้องส่ง version ที่เห็นล่าสุดมาเสมอ แถวที่ version ไม่ตรง (หรือถูกลบไปแล้ว) จะไม่ถูกแก้
+ * ต้องมีคอลัมน์: ALTER TABLE dbo.employers ADD row_version ROWVERSION NOT NULL
+ */
+@Repository
+public class ClientJdbcRepository {
+
+    private static final String RETURNING = " OUTPUT INSERTED.id, INSERTED.code, INSERTED.service,"
+            + " INSERTED.name_th, INSERTED.name_en, INSERTED.created_by, INSERTED.created_at,"
+            + " INSERTED.updated_by, INSERTED.updated_at, CAST(INSERTED.row_version AS BIGINT) AS version";
+
+    // rowversion = binary(8) big-endian เทียบกับ long ที่ client ส่งกลับมาได้ตรงทุก bit
+    private static final String VERSION_MATCHES = " AND row_version = CAST(:expected AS BINARY(8))";
+
+    // code แก้ไม่ได้ (เหมือนหน้า Edit) field ที่ไม่ส่งมาคงค่าเดิม
+    private static final String UPDATE = "UPDATE dbo.employers SET"
+            + " service = COALESCE(:service, service),"
+            + " name_th = COALESCE(:nameTh, name_th),"
+            + " name_en = COALESCE(:nameEn, name_en),"
+            + " updated_by = :updatedBy, updated_at = :now"
+            + RETURNING
+            + " WHERE id = :id" + VERSION_MATCHES;
+
+    private static final String DELETE = "DELETE FROM dbo.employers WHERE id = :id" + VERSION_MATCHES;
+
+    private static final String COLUMNS =
+            "id, code, service, name_th, name_en, created_by, created_at, updated_by, updated_at,"
+            + " CAST(row_version AS BIGINT) AS version";
+
+    // field ของ ClientDto -> คอลัมน์ (ตรงกับ ClientPageQuery.SORTABLE; whitelist กัน SQL injection)
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "code", "code",
+            "service", "service",
+            "nameTh", "name_th",
+            "nameEn", "name_en",
+            "createdAt", "created_at");
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ClientJdbcRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** ทุก client เรียงตาม id (สำหรับ cache ของ GET /client/api) */
+    public List<ClientDto> findAll() {
+        return jdbc.query("SELECT " + COLUMNS + " FROM dbo.employers ORDER BY id", Map.of(),
+                ClientJdbcRepository::mapRow);
+    }
+
+    /** จำนวน client ที่ตรงคำค้น (search = null -> ทั้งหมด) */
+    public long count(String search) {
+        MapSqlParameterSource p = new MapSqlParameterSource();
+        Long n = jdbc.queryForObject("SELECT COUNT_BIG(*) FROM dbo.employers" + where(search, p), p, Long.class);
+        return n != null ? n : 0;
+    }
+
+    /**
+     * 1 หน้าตามคำค้น/sort ของ q: ถ้ามี cursor ที่ตรง sort ใช้ keyset (WHERE (col, id) &gt; cursor)
+     * ไม่งั้น (หน้าแรก หรือกระโดดไปหน้าที่ไม่มี cursor) ใช้ OFFSET start
+     */
+    public List<ClientDto> page(ClientPageQuery q) {
+        MapSqlParameterSource p = new MapSqlParameterSource();
+        String column = SORT_COLUMNS.getOrDefault(q.getSortField(), "code");
+        String dir = q.isSortDesc() ? " DESC" : " ASC";
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM dbo.employers")
+                .append(where(q.getSearch(), p));
+
+        boolean keyset = q.hasUsableCursor();
+        if (keyset) {
+            String op = q.isSortDesc() ? " < " : " > ";
+            sql.append(q.getSearch() != null ? " AND " : " WHERE ");
+            if ("id".equals(column)) {
+                sql.append("id").append(op).append(":afterId");
+            } else {
+                sql.append('(').append(column).append(op).append(":afterValue OR (")
+                        .append(column).append(" = :afterValue AND id").append(op).append(":afterId))");
+                p.addValue("afterValue", cursorValue(column, q.getAfter().value()));
+            }
+            p.addValue("afterId", q.getAfter().id());
+        }
+
+        sql.append(" ORDER BY ").append(column).append(dir);
+        if (!"id".equals(column)) sql.append(", id").append(dir);
+        sql.append(" OFFSET :offset ROWS FETCH NEXT :length ROWS ONLY");
+        p.addValue("offset", keyset ? 0 : q.getStart());
+        p.addValue("length", q.getPageSize());
+        return jdbc.query(sql.toString(), p, ClientJdbcRepository::mapRow);
+    }
+
+    /**
+     * @return แถวหลังแก้ (จาก OUTPUT INSERTED ใน round trip เดียวกัน) หรือ empty ถ้าไม่มีแถวตรง id/version
+     */
+    public Optional<ClientDto> update(Integer id, ClientDto changes, long expectedVersion, LocalDateTime now) {
+        MapSqlParameterSource p = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("service", changes.getService(), Types.NVARCHAR)
+                .addValue("nameTh", changes.getNameTh(), Types.NVARCHAR)
+                .addValue("nameEn", changes.getNameEn(), Types.NVARCHAR)
+                .addValue("updatedBy", changes.getUpdatedBy(), Types.INTEGER)
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("expected", expectedVersion, Types.BIGINT);
+        List<ClientDto> rows = jdbc.query(UPDATE, p, ClientJdbcRepository::mapRow);
+        return rows.stream().findFirst();
+    }
+
+    /** @return จำนวนแถวที่ลบ (0 = ไม่มี id นี้ หรือ version ไม่ตรง) */
+    public int delete(Integer id, long expectedVersion) {
+        return jdbc.update(DELETE, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("expected", expectedVersion, Types.BIGINT));
+    }
+
+    // contains ใน code/service/ชื่อ (เหมือน search ของ DataTables ฝั่ง client เดิม)
+    private static String where(String search, MapSqlParameterSource p) {
+        if (search == null) return "";
+        p.addValue("q", "%" + CustomerSearchRepository.escapeLike(search) + "%", Types.NVARCHAR);
+        return " WHERE (code LIKE :q ESCAPE '\\' OR service LIKE :q ESCAPE '\\'"
+                + " OR name_th LIKE :q ESCAPE '\\' OR name_en LIKE :q ESCAPE '\\')";
+    }
+
+    private static Object cursorValue(String column, String value) {
+        if (!"created_at".equals(column)) return value;
+        try {
+            return Timestamp.valueOf(LocalDateTime.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor value: " + value, e);
+        }
+    }
+
+    private static ClientDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return ClientDto.builder()
+                .id(rs.getInt("id"))
+                .code(rs.getString("code"))
+                .service(rs.getString("service"))
+                .nameTh(rs.getString("name_th"))
+                .nameEn(rs.getString("name_en"))
+                .createdBy(rs.getObject("created_by", Integer.class))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .updatedBy(rs.getObject("updated_by", Integer.class))
+                .updatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null)
+                .version(rs.getLong("version"))
+                .build();
+    }
+}
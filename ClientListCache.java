@@ -0,0 +1,148 @@
+package com.aeon.acss.fdu.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.aeon.acss.fdu.repository.ClientJdbcRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * cache ของรายการ client (dbo.employers แทบไม่เปลี่ยน) ทั้ง List&lt;ClientDto&gt; และ JSON ที่ serialize แล้ว
+ *
+ * <p>ทุกครั้งที่เขียน (save/delete) จะ {@link #invalidate()} — version เพิ่มขึ้น snapshot เดิมใช้ไม่ได้
+ * โหลดใหม่ตอนมีคนขอครั้งถัดไป ถ้าระหว่างโหลดมีการ invalidate อีก ผลที่โหลดได้จะไม่ถูกเก็บ (กันเก็บข้อมูลเก่า)
+ *
+ * <p>จำนวนแถวของหน้ารายการ ({@link #count(String)}) cache ด้วย version เดียวกัน — เปลี่ยนหน้า/sort
+ * ไม่ต้อง COUNT ใหม่ นับใหม่เฉพาะเมื่อมีการเขียนหรือคำค้นใหม่
+ *
+ * <p>metrics: fdu.client.query{op=list} (เวลาโหลดจาก DB) และ fdu.client.cache{result=hit|miss}
+ */
+@Slf4j
+@Component
+public class ClientListCache {
+
+    /** ข้อมูล ณ version หนึ่ง: dto, JSON bytes และ ETag (hash ของ JSON) */
+    public record Snapshot(long version, List<ClientDto> dtos, byte[] json, String etag) {
+    }
+
+    private final ClientJdbcRepository repo;
+    private final ObjectMapper mapper;
+
+    // คำค้นที่ต่างกันเก็บไม่เกินนี้ต่อ version (เต็มแล้วล้างทิ้ง)
+    private static final int MAX_COUNTS = 256;
+    private static final String ALL = "";
+
+    /** จำนวนแถวต่อคำค้น ณ version หนึ่ง (key "" = ทั้งหมด) */
+    private record Counts(long version, Map<String, Long> bySearch) {
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private volatile Counts counts = new Counts(-1, Map.of());
+
+    private final Timer loadTimer;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ClientListCache(ClientJdbcRepository repo, ObjectMapper mapper, MeterRegistry meters) {
+        this.repo = repo;
+        this.mapper = mapper;
+        this.loadTimer = Timer.builder("fdu.client.query")
+                .description("Client repository calls")
+                .tags("op", "list", "outcome", "success")
+                .register(meters);
+        this.hits = Counter.builder("fdu.client.cache").tag("result", "hit").register(meters);
+        this.misses = Counter.builder("fdu.client.cache").tag("result", "miss").register(meters);
+    }
+
+    public Snapshot get() {
+        Snapshot s = snapshot;
+        long v = version.get();
+        if (s != null && s.version() == v) {
+            hits.increment();
+            return s;
+        }
+        misses.increment();
+        return load(v);
+    }
+
+    private Snapshot load(long v) {
+        // select เข้า dto ตรง ๆ ไม่ต้อง hydrate entity แล้ว copy
+        List<ClientDto> dtos = loadTimer.record(repo::findAll);
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(dtos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize client list", e);
+        }
+        Snapshot s = new Snapshot(v, dtos, json, etag(json));
+
+        synchronized (this) {
+            // มี invalidate ระหว่างโหลด -> ไม่เก็บ (คนถัดไปโหลดใหม่) แต่ส่งผลนี้ให้คนที่ขอไปก่อน
+            if (version.get() == v) snapshot = s;
+        }
+        log.debug("Client list cache loaded: {} clients, version {}", dtos.size(), v);
+        return s;
+    }
+
+    /** จำนวน client ที่ตรงคำค้น (null = ทั้งหมด) — COUNT จาก DB ครั้งเดียวต่อ version */
+    public long count(String search) {
+        String key = (search != null) ? search : ALL;
+        long v = version.get();
+        Counts c = counts;
+        if (c.version() != v) {
+            c = new Counts(v, new ConcurrentHashMap<>());
+            counts = c;
+        }
+        Long n = c.bySearch().get(key);
+        if (n != null) return n;
+
+        n = repo.count(search);
+        if (version.get() == v) {
+            if (c.bySearch().size() >= MAX_COUNTS) c.bySearch().clear();
+            c.bySearch().put(key, n);
+        }
+        return n;
+    }
+
+    /**
+     * ทำให้ snapshot ปัจจุบันใช้ไม่ได้ ถ้าอยู่ใน transaction จะ invalidate ซ้ำหลัง commit ด้วย
+     * (กันคนที่โหลดระหว่าง transaction ยังไม่ commit ได้ข้อมูลเก่าไปเก็บ)
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
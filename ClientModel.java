@@ -2,6 +2,9 @@ package com.aeon.acss.fdu.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -45,4 +48,9 @@ public class ClientModel {
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // rowversion ของ SQL Server: DB เปลี่ยนให้เองทุกครั้งที่แถวถูกแก้ (ใช้เป็น version ของ optimistic check)
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(name = "row_version", insertable = false, updatable = false)
+    private byte[] rowVersion;
 }
@@ -0,0 +1,15 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.util.List;
+
+/**
+ * รายการ client 1 หน้า ตาม DataTables server-side protocol
+ * next = cursor ของหน้าถัดไป (null = หน้าสุดท้าย) ส่งกลับมาเป็น parameter after
+ */
+public record ClientPage(
+        int draw,
+        long recordsTotal,
+        long recordsFiltered,
+        List<ClientDto> data,
+        String next) {
+}
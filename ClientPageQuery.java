@@ -0,0 +1,116 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * คำขอหน้ารายการ client ตาม DataTables server-side protocol (draw/start/length/search/order)
+ * บวก cursor ของ keyset pagination ({@code after} = ค่าจากหน้าก่อนหน้า)
+ */
+@Data
+@Builder
+public class ClientPageQuery {
+
+    public static final int MAX_LENGTH = 500;
+    public static final int DEFAULT_LENGTH = 10;
+
+    /** field ของ ClientDto ที่ sort ได้ (คอลัมน์ not null จึงใช้ keyset ได้ตรง ๆ) */
+    public static final Set<String> SORTABLE = Set.of("id", "code", "service", "nameTh", "nameEn", "createdAt");
+
+    /** ค้นหาแบบ contains ใน code, service, nameTh, nameEn */
+    private String search;
+
+    private int draw;
+    private int start;
+    private int length;
+    private String sortField;
+    private boolean sortDesc;
+
+    /** ตำแหน่งต่อจากแถวสุดท้ายของหน้าก่อน (null = ใช้ start แบบ offset) */
+    private Cursor after;
+
+    /**
+     * ตำแหน่ง keyset: ค่าของ sortField และ id ของแถวสุดท้ายที่เห็น
+     * ใช้ได้เฉพาะกับ sort เดียวกับตอนที่สร้าง (ไม่ตรง = ไม่ใช้ cursor)
+     */
+    public record Cursor(String sortField, boolean sortDesc, String value, int id) {
+
+        /** cursor ที่ชี้แถว last (แถวสุดท้ายของหน้าปัจจุบัน) */
+        public static Cursor of(ClientDto last, String sortField, boolean sortDesc) {
+            Object value = switch (sortField) {
+                case "code" -> last.getCode();
+                case "service" -> last.getService();
+                case "nameTh" -> last.getNameTh();
+                case "nameEn" -> last.getNameEn();
+                case "createdAt" -> last.getCreatedAt();
+                default -> last.getId();
+            };
+            return new Cursor(sortField, sortDesc, String.valueOf(value), last.getId());
+        }
+
+        public String encode() {
+            String raw = sortField + '\u0000' + (sortDesc ? "d" : "a") + '\u0000' + value + '\u0000' + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @return null ถ้า token ว่างหรือรูปแบบไม่ถูกต้อง */
+        public static Cursor decode(String token) {
+            if (token == null || token.isBlank()) return null;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\u0000", -1);
+                if (parts.length != 4 || !SORTABLE.contains(parts[0])) return null;
+                return new Cursor(parts[0], "d".equals(parts[1]), parts[2], Integer.parseInt(parts[3]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /** สร้างจาก query string ของ /client/api/page */
+    public static ClientPageQuery from(Map<String, String> params) {
+        String sortColumn = text(params.get("order[0][column]"));
+        String sortField = sortColumn != null
+                ? text(params.get("columns[" + sortColumn + "][data]"))
+                : null;
+        return ClientPageQuery.builder()
+                .search(text(params.get("search[value]")))
+                .draw(number(params.get("draw"), 0))
+                .start(Math.max(0, number(params.get("start"), 0)))
+                .length(number(params.get("length"), DEFAULT_LENGTH))
+                .sortField(SORTABLE.contains(sortField) ? sortField : "code")
+                .sortDesc("desc".equalsIgnoreCase(text(params.get("order[0][dir]"))))
+                .after(Cursor.decode(params.get("after")))
+                .build();
+    }
+
+    /** cursor ใช้ได้กับคำขอนี้ไหม (sort ตรงกัน) */
+    public boolean hasUsableCursor() {
+        return after != null && after.sortField().equals(sortField) && after.sortDesc() == sortDesc;
+    }
+
+    /** length &lt;= 0 (DataTables ส่ง -1 = ทั้งหมด) จะถูกจำกัดที่ MAX_LENGTH */
+    public int getPageSize() {
+        return (length <= 0 || length > MAX_LENGTH) ? MAX_LENGTH : length;
+    }
+
+    /** ตัดช่องว่าง ค่าว่าง = null */
+    private static String text(String s) {
+        return (s == null || s.trim().isEmpty()) ? null : s.trim();
+    }
+
+    private static int number(String s, int defaultValue) {
+        String v = text(s);
+        if (v == null) return defaultValue;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
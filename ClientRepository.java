@@ -6,5 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import com.aeon.acss.fdu.model.ClientModel;
 
 public interface ClientRepository extends JpaRepository<ClientModel, Integer> {
-    boolean existsByCodeIgnoreCaseAndServiceIgnoreCase(String code, String service);
+    // equality ตรง ๆ (ไม่ครอบ UPPER()) ให้ใช้ index ได้ — collation ของ DB เป็น case-insensitive อยู่แล้ว
+    boolean existsByCodeAndService(String code, String service);
 }
@@ -1,34 +1,101 @@
 
 package com.aeon.acss.fdu.service;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.aeon.acss.fdu.model.ClientModel;
 import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.aeon.acss.fdu.model.dto.ClientPage;
+import com.aeon.acss.fdu.model.dto.ClientPageQuery;
+import com.aeon.acss.fdu.repository.ClientJdbcRepository;
 import com.aeon.acss.fdu.repository.ClientRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * metrics: fdu.client.query (tag op = page/save/update/delete, outcome) — รายการทั้งหมดวัดที่ {@link ClientListCache}
+ */
 @Service
 public class ClientService {
 
     private final ClientRepository repo;
+    private final ClientJdbcRepository jdbcRepo;
+    private final ClientListCache cache;
+    private final ClientUniquenessService uniqueness;
+    private final MeterRegistry meters;
 
-    public ClientService(ClientRepository repo) {
+    public ClientService(ClientRepository repo, ClientJdbcRepository jdbcRepo, ClientListCache cache,
+                         ClientUniquenessService uniqueness, MeterRegistry meters) {
         this.repo = repo;
+        this.jdbcRepo = jdbcRepo;
+        this.cache = cache;
+        this.uniqueness = uniqueness;
+        this.meters = meters;
+    }
+
+    /** เวลาที่ใช้เป็น created_at/updated_at (ตัดเหลือวินาทีเท่าที่หน้าจอแสดง — version ใช้ rowversion แยกต่างหาก) */
+    public static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
     }
 
-    @Transactional(readOnly = true)
     public List<ClientDto> findAllDtos() {
-        return repo.findAll().stream()
-                .map(ClientDto::from)
-                .toList();
+        return cache.get().dtos();
+    }
+
+    /**
+     * 1 หน้าของรายการ client (ค้นหา/sort/keyset ใน SQL) — ไม่โหลดทั้งตารางเหมือน findAllDtos
+     * จำนวนแถว cache ไว้จนกว่าจะมีการเขียน (เปลี่ยนหน้าไม่ต้อง count ซ้ำ) ไม่มีคำค้นใช้จำนวนทั้งหมดเป็น recordsFiltered
+     */
+    public ClientPage page(ClientPageQuery q) {
+        return timed("page", () -> loadPage(q));
     }
 
+    private ClientPage loadPage(ClientPageQuery q) {
+        List<ClientDto> rows = jdbcRepo.page(q);
+        long total = cache.count(null);
+        long filtered = (q.getSearch() == null) ? total : cache.count(q.getSearch());
+        String next = (rows.size() == q.getPageSize())
+                ? ClientPageQuery.Cursor.of(rows.get(rows.size() - 1), q.getSortField(), q.isSortDesc()).encode()
+                : null;
+        return new ClientPage(q.getDraw(), total, filtered, rows, next);
+    }
+
+    /** รายการ client พร้อม JSON ที่ serialize แล้วและ ETag (สำหรับ GET /client/api) */
+    public ClientListCache.Snapshot snapshot() {
+        return cache.get();
+    }
+
+    /**
+     * @throws org.springframework.dao.DuplicateKeyException ถ้า (code, service) ซ้ำกับ client อื่น
+     */
     @Transactional
 	public ClientModel save(ClientModel c) {
-        return repo.save(c);
+        return timed("save", () -> doSave(c));
+    }
+
+    private ClientModel doSave(ClientModel c) {
+        ClientUniquenessService.Claim claim = uniqueness.claim(c);
+        ClientModel saved;
+        try {
+            saved = repo.save(c);
+        } catch (RuntimeException e) {
+            claim.cancel();
+            throw e;
+        }
+        claim.bind(saved.getId());
+        cache.invalidate();
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -36,13 +103,100 @@ public class ClientService {
         return repo.findById(id).orElse(null);
     }
 
+    /**
+     * แก้ service/nameTh/nameEn (ค่าว่าง = ไม่แก้) ด้วย UPDATE เดียว ไม่ต้องอ่านก่อน
+     * changes.version (บังคับ) คือ version ที่ผู้ใช้เห็นล่าสุด
+     *
+     * @param actor id ของผู้ใช้ที่ login (ลง updated_by — ไม่ใช้ changes.updatedBy)
+     * @throws IllegalArgumentException ไม่ได้ส่ง version มา
+     * @throws OptimisticLockingFailureException ไม่มีแถวตรง id + version (มีคนแก้หรือลบไปก่อนแล้ว)
+     * @throws org.springframework.dao.DuplicateKeyException (code, service) ซ้ำ
+     */
     @Transactional
-    public void deleteById(Integer id) {
-        repo.deleteById(id);
+    public ClientDto update(Integer id, ClientDto changes, int actor) {
+        return timed("update", () -> doUpdate(id, changes, actor));
+    }
+
+    private ClientDto doUpdate(Integer id, ClientDto changes, int actor) {
+        long version = requireVersion(changes.getVersion());
+        ClientDto trimmed = ClientDto.builder()
+                .service(trimToNull(changes.getService()))
+                .nameTh(trimToNull(changes.getNameTh()))
+                .nameEn(trimToNull(changes.getNameEn()))
+                .updatedBy(actor)
+                .build();
+
+        ClientUniquenessService.Claim claim = uniqueness.claimService(id, trimmed.getService());
+        Optional<ClientDto> row;
+        try {
+            row = jdbcRepo.update(id, trimmed, version, now());
+        } catch (RuntimeException e) {
+            claim.cancel();
+            throw e;
+        }
+        if (row.isEmpty()) {
+            claim.cancel();
+            throw conflict(id);
+        }
+        claim.bind(id);
+        cache.invalidate();
+        return row.get();
+    }
+
+    /**
+     * ลบด้วย DELETE เดียว (ไม่โหลด entity ก่อนเหมือน deleteById ของ Spring Data)
+     *
+     * @param expectedVersion version ที่ผู้ใช้เห็นล่าสุด (บังคับ)
+     * @throws IllegalArgumentException ไม่ได้ส่ง version มา
+     * @throws OptimisticLockingFailureException ไม่มีแถวตรง id + version (มีคนแก้หรือลบไปก่อนแล้ว)
+     */
+    @Transactional
+    public void delete(Integer id, Long expectedVersion) {
+        long version = requireVersion(expectedVersion);
+        timed("delete", () -> {
+            if (jdbcRepo.delete(id, version) == 0) throw conflict(id);
+            uniqueness.release(id);
+            cache.invalidate();
+            return null;
+        });
+    }
+
+    private static long requireVersion(Long version) {
+        if (version == null) throw new IllegalArgumentException("version is required");
+        return version;
+    }
+
+    // ไม่มีแถวถูกแก้: version ไม่ตรง หรือแถวถูกลบไปแล้ว — ทั้งคู่คือผู้ใช้เห็นข้อมูลเก่า
+    private static OptimisticLockingFailureException conflict(Integer id) {
+        return new OptimisticLockingFailureException("Client " + id + " was changed or deleted by someone else");
+    }
+
+    private <T> T timed(String op, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meters);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } catch (OptimisticLockingFailureException e) {
+            outcome = "conflict";
+            throw e;
+        } catch (DuplicateKeyException e) {
+            outcome = "duplicate";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("fdu.client.query")
+                    .description("Client repository calls")
+                    .tags("op", op, "outcome", outcome)
+                    .register(meters));
+        }
+    }
+
+    private static String trimToNull(String s) {
+        return (s == null || s.trim().isEmpty()) ? null : s.trim();
     }
 
-    @Transactional(readOnly = true)
     public boolean existsByCodeService(String code, String service) {
-        return repo.existsByCodeIgnoreCaseAndServiceIgnoreCase(code, service);
+        return uniqueness.exists(code, service);
     }
 }
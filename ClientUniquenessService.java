@@ -0,0 +1,211 @@
+package com.aeon.acss.fdu.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.repository.ClientRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ตรวจ (code, service) ซ้ำของ client ใน memory แทน query ที่ครอบ UPPER() (ใช้ index ไม่ได้)
+ *
+ * <p>เก็บ key ที่ normalize แล้ว (trim + upper-case) -&gt; id ของ client โหลดครั้งเดียวตอน start
+ * และอัปเดตตามการเขียนผ่าน {@link ClientService} หลัง commit การจอง key ใช้ putIfAbsent
+ * จึงกัน create พร้อมกันที่ key เดียวกันได้ (ในเครื่องเดียว — ข้ามเครื่องต้องพึ่ง unique index ใน DB:
+ * CREATE UNIQUE INDEX ux_employers_code_service ON dbo.employers (code, service))
+ *
+ * <p>ถ้ายังโหลดไม่เสร็จ (เช่น DB ไม่พร้อมตอน start) จะถาม DB ด้วย equality ตรง ๆ
+ * (collation ของ DB เป็น case-insensitive อยู่แล้ว จึงใช้ index ได้)
+ */
+@Slf4j
+@Service
+public class ClientUniquenessService {
+
+    // id ชั่วคราวของ key ที่จองไว้สำหรับ client ใหม่ที่ยังไม่ได้ id
+    private static final int PENDING = -1;
+
+    private final ClientRepository repo;
+
+    private final Map<String, Integer> owners = new ConcurrentHashMap<>();
+    private final Map<Integer, String> keyOfId = new ConcurrentHashMap<>();
+    private volatile boolean warmed;
+
+    public ClientUniquenessService(ClientRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            for (ClientModel c : repo.findAll()) {
+                String key = key(c.getCode(), c.getService());
+                owners.putIfAbsent(key, c.getId());
+                keyOfId.put(c.getId(), key);
+            }
+            warmed = true;
+            log.info("Client uniqueness keys loaded: {}", owners.size());
+        } catch (DataAccessException e) {
+            log.warn("Cannot load client keys, falling back to database checks: {}", e.getMessage());
+        }
+    }
+
+    public boolean exists(String code, String service) {
+        if (warmed) return owners.containsKey(key(code, service));
+        return owners.containsKey(key(code, service)) || repo.existsByCodeAndService(trim(code), trim(service));
+    }
+
+    /**
+     * จอง (code, service) ให้ client นี้ก่อนบันทึก แล้วผูก id จริงด้วย {@link Claim#bind(Integer)} หลัง save
+     * key จะถูกยืนยันหลัง commit หรือคืนถ้า rollback
+     *
+     * @throws DuplicateKeyException ถ้า client อื่นใช้ (code, service) นี้อยู่แล้ว
+     */
+    public Claim claim(ClientModel c) {
+        Integer id = c.getId();
+        String key = key(c.getCode(), c.getService());
+        String oldKey = (id != null) ? keyOfId.get(id) : null;
+        if (key.equals(oldKey)) return new Claim(key, oldKey, id, false, false);
+
+        int owner = (id != null) ? id : PENDING;
+        if (!warmed && repo.existsByCodeAndService(trim(c.getCode()), trim(c.getService()))) {
+            throw duplicate(c);
+        }
+        Integer previous = owners.putIfAbsent(key, owner);
+        // client ใหม่ต้องได้ key ที่ว่างเท่านั้น (PENDING ของอีกคำขอก็นับว่าซ้ำ)
+        if (previous != null && (id == null || !previous.equals(id))) throw duplicate(c);
+        return new Claim(key, oldKey, id, true, true);
+    }
+
+    /**
+     * จอง service ใหม่ของ client ที่มีอยู่แล้ว (code แก้ไม่ได้ จึงใช้ code จาก key เดิมใน memory ไม่ต้องอ่าน DB)
+     * ถ้ายังโหลดไม่เสร็จจะอ่าน code จาก DB แล้วเช็คซ้ำด้วย equality แบบเดียวกับ {@link #claim(ClientModel)}
+     *
+     * @throws DuplicateKeyException ถ้า client อื่นใช้ (code, service) นี้อยู่แล้ว
+     */
+    public Claim claimService(Integer id, String service) {
+        if (service == null) return new Claim(null, null, id, false, false);
+        String oldKey = keyOfId.get(id);
+        if (oldKey == null) {
+            if (warmed) return new Claim(null, null, id, false, false); // ไม่มี client นี้ (UPDATE จะไม่เจอแถว)
+            return claimUnwarmed(id, service);
+        }
+        String key = oldKey.substring(0, oldKey.indexOf('\u0000') + 1) + norm(service);
+        if (key.equals(oldKey)) return new Claim(key, oldKey, id, false, false);
+
+        Integer previous = owners.putIfAbsent(key, id);
+        if (previous != null && !previous.equals(id)) {
+            throw new DuplicateKeyException("Duplicate (code + service): client " + id + " / " + service);
+        }
+        return new Claim(key, oldKey, id, true, true);
+    }
+
+    private Claim claimUnwarmed(Integer id, String service) {
+        ClientModel current = repo.findById(id).orElse(null);
+        if (current == null) return new Claim(null, null, id, false, false);
+        String oldKey = key(current.getCode(), current.getService());
+        String key = key(current.getCode(), service);
+        if (key.equals(oldKey)) return new Claim(key, oldKey, id, false, false);
+
+        if (repo.existsByCodeAndService(trim(current.getCode()), trim(service))) {
+            throw new DuplicateKeyException("Duplicate (code + service): client " + id + " / " + service);
+        }
+        Integer previous = owners.putIfAbsent(key, id);
+        if (previous != null && !previous.equals(id)) {
+            throw new DuplicateKeyException("Duplicate (code + service): client " + id + " / " + service);
+        }
+        return new Claim(key, oldKey, id, true, true);
+    }
+
+    /**
+     * รับ key ที่ client อื่นปล่อยไปก่อนหน้าใน transaction เดียวกัน (ลบ หรือเปลี่ยน service ไปแล้ว)
+     * key ยังเป็นของเจ้าของเดิมจนกว่าจะ commit จึงไม่จองตอนนี้ แต่ย้ายให้ตอน bind —
+     * ต้อง bind หลัง release/bind ของเจ้าของเดิม (afterCommit ทำงานตามลำดับที่ลงทะเบียน)
+     */
+    public Claim transfer(ClientModel c) {
+        Integer id = c.getId();
+        String key = key(c.getCode(), c.getService());
+        String oldKey = (id != null) ? keyOfId.get(id) : null;
+        return new Claim(key, oldKey, id, true, false);
+    }
+
+    /** ลบ key ของ client หลัง commit */
+    public void release(Integer id) {
+        afterCommit(() -> {
+            String key = keyOfId.remove(id);
+            if (key != null) owners.remove(key, id);
+        }, null);
+    }
+
+    public final class Claim {
+        private final String key;
+        private final String oldKey;
+        private final Integer id;
+        private final boolean reserved;
+        private final boolean held; // จองใน owners แล้ว (ต้องคืนถ้าไม่ได้บันทึก)
+
+        private Claim(String key, String oldKey, Integer id, boolean reserved, boolean held) {
+            this.key = key;
+            this.oldKey = oldKey;
+            this.id = id;
+            this.reserved = reserved;
+            this.held = held;
+        }
+
+        public void bind(Integer savedId) {
+            if (!reserved) return;
+            afterCommit(() -> {
+                owners.put(key, savedId);
+                keyOfId.put(savedId, key);
+                if (oldKey != null) owners.remove(oldKey, savedId);
+            }, this::cancel);
+        }
+
+        /** save ไม่สำเร็จ -> คืน key ที่จองไว้ */
+        public void cancel() {
+            if (held) owners.remove(key, (id != null) ? id : PENDING);
+        }
+    }
+
+    // ===================== helpers =====================
+
+    static String key(String code, String service) {
+        return norm(code) + '\u0000' + norm(service);
+    }
+
+    private static String trim(String s) {
+        return (s == null) ? null : s.trim();
+    }
+
+    private static String norm(String s) {
+        return (s == null) ? "" : s.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static DuplicateKeyException duplicate(ClientModel c) {
+        return new DuplicateKeyException("Duplicate (code + service): " + c.getCode() + " / " + c.getService());
+    }
+
+    private static void afterCommit(Runnable committed, Runnable rolledBack) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) committed.run();
+                else if (rolledBack != null) rolledBack.run();
+            }
+        });
+    }
+}
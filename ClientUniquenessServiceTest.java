@@ -0,0 +1,176 @@
+package com.aeon.acss.fdu.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.repository.ClientRepository;
+
+/**
+ * การจอง (code, service) ใน memory: กันซ้ำแบบไม่สนตัวพิมพ์, ยืนยันหลัง commit, คืนเมื่อ rollback
+ * และถาม DB แทนเมื่อยังโหลด key ไม่เสร็จ
+ */
+class ClientUniquenessServiceTest {
+
+    private ClientRepository repo;
+    private ClientUniquenessService uniqueness;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(ClientRepository.class);
+        when(repo.findAll()).thenReturn(List.of(client(1, "A", "S1"), client(2, "B", "S1")));
+        uniqueness = new ClientUniquenessService(repo);
+        uniqueness.warmUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // ===================== claim =====================
+
+    @Test
+    void duplicateKeyIsRejectedIgnoringCaseAndSpaces() {
+        assertThat(uniqueness.exists(" a ", "s1")).isTrue();
+        assertThatThrownBy(() -> uniqueness.claim(client(null, "a", " S1 "))).isInstanceOf(DuplicateKeyException.class);
+        // client เดิมบันทึก key เดิมซ้ำได้
+        uniqueness.claim(client(1, "A", "s1")).bind(1);
+        verify(repo, never()).existsByCodeAndService(any(), any());
+    }
+
+    @Test
+    void pendingClaimBlocksAnotherCreateUntilCancelled() {
+        ClientUniquenessService.Claim first = uniqueness.claim(client(null, "C", "S1"));
+
+        assertThatThrownBy(() -> uniqueness.claim(client(null, "c", "s1"))).isInstanceOf(DuplicateKeyException.class);
+
+        first.cancel();
+        uniqueness.claim(client(null, "c", "s1")).bind(3);
+        assertThat(uniqueness.exists("C", "S1")).isTrue();
+    }
+
+    @Test
+    void changingTheKeyFreesTheOldOneAfterBind() {
+        uniqueness.claim(client(1, "A", "S2")).bind(1);
+
+        assertThat(uniqueness.exists("A", "S1")).isFalse();
+        assertThat(uniqueness.exists("A", "S2")).isTrue();
+        uniqueness.claim(client(null, "A", "S1")).bind(3);
+    }
+
+    @Test
+    void claimServiceKeepsTheCodeFromMemory() {
+        uniqueness.claimService(2, "s9").bind(2);
+
+        assertThat(uniqueness.exists("B", "S9")).isTrue();
+        assertThat(uniqueness.exists("B", "S1")).isFalse();
+        // code ต่างกัน -> (A, S9) ยังว่าง
+        uniqueness.claimService(1, "S9").cancel();
+        assertThat(uniqueness.exists("A", "S9")).isFalse();
+        verify(repo, never()).findById(any());
+    }
+
+    // ===================== transaction =====================
+
+    @Test
+    void claimIsConfirmedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        uniqueness.claim(client(null, "C", "S1")).bind(3);
+        uniqueness.release(1);
+
+        // ยังไม่ commit: key ใหม่จองอยู่ key ของ client ที่ลบยังไม่ว่าง
+        assertThat(uniqueness.exists("C", "S1")).isTrue();
+        assertThat(uniqueness.exists("A", "S1")).isTrue();
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(uniqueness.exists("C", "S1")).isTrue();
+        assertThat(uniqueness.exists("A", "S1")).isFalse();
+        assertThatThrownBy(() -> uniqueness.claim(client(null, "C", "S1"))).isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void rollbackReturnsTheClaimedKeyAndKeepsTheReleasedOne() {
+        TransactionSynchronizationManager.initSynchronization();
+        uniqueness.claim(client(null, "C", "S1")).bind(3);
+        uniqueness.claim(client(2, "B", "S2")).bind(2);
+        uniqueness.release(1);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(uniqueness.exists("C", "S1")).isFalse();
+        assertThat(uniqueness.exists("B", "S2")).isFalse();
+        assertThat(uniqueness.exists("B", "S1")).isTrue();
+        assertThat(uniqueness.exists("A", "S1")).isTrue();
+    }
+
+    @Test
+    void transferTakesOverAKeyReleasedInTheSameTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        uniqueness.release(1);
+        // client ใหม่ใช้ key ของ client 1 ที่ถูกลบในชุดเดียวกัน (claim ตอนนี้จะซ้ำ)
+        uniqueness.transfer(client(null, "A", "S1")).bind(3);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(uniqueness.exists("A", "S1")).isTrue();
+        assertThatThrownBy(() -> uniqueness.claim(client(null, "A", "S1"))).isInstanceOf(DuplicateKeyException.class);
+        // key ผูกกับ id ใหม่แล้ว -> ลบ client 3 ต้องปล่อย key
+        uniqueness.release(3);
+        assertThat(uniqueness.exists("A", "S1")).isFalse();
+    }
+
+    // ===================== ก่อนโหลดเสร็จ =====================
+
+    @Test
+    void beforeWarmUpTheDatabaseIsAsked() {
+        ClientRepository cold = mock(ClientRepository.class);
+        when(cold.findAll()).thenThrow(new QueryTimeoutException("db down"));
+        when(cold.existsByCodeAndService("A", "S1")).thenReturn(true);
+        when(cold.findById(1)).thenReturn(Optional.of(client(1, "A", "S1")));
+        when(cold.existsByCodeAndService("A", "S2")).thenReturn(true);
+        ClientUniquenessService service = new ClientUniquenessService(cold);
+        service.warmUp();
+
+        assertThat(service.exists(" A ", "S1")).isTrue();
+        assertThatThrownBy(() -> service.claim(client(null, "A", "S1"))).isInstanceOf(DuplicateKeyException.class);
+        assertThatThrownBy(() -> service.claimService(1, "S2")).isInstanceOf(DuplicateKeyException.class);
+
+        service.claimService(1, "S3").bind(1);
+        assertThat(service.exists("A", "S3")).isTrue();
+    }
+
+    // ===================== helpers =====================
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        syncs.forEach(s -> s.afterCompletion(status));
+    }
+
+    private static ClientModel client(Integer id, String code, String service) {
+        ClientModel c = new ClientModel();
+        c.setId(id);
+        c.setCode(code);
+        c.setService(service);
+        return c;
+    }
+}
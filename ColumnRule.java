@@ -0,0 +1,127 @@
+package com.aeon.acss.fdu.importer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * rule ของ 1 คอลัมน์: normalize ค่าก่อน แล้วค่อยตรวจ (ค่าว่างผ่านเสมอ ยกเว้น rule required)
+ */
+public record ColumnRule(String name, UnaryOperator<String> normalizer, Predicate<String> check, String message) {
+
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern NUMERIC = Pattern.compile("-?\\d+(\\.\\d+)?(E-?\\d+)?");
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.US);
+    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.US);
+
+    /** @return ค่าที่ normalize แล้ว (ใช้แทนค่าเดิมในแถว) */
+    public String normalize(String value) {
+        return (normalizer == null || value == null || value.isEmpty()) ? value : normalizer.apply(value);
+    }
+
+    public boolean isValid(String value) {
+        return check == null || check.test(value);
+    }
+
+    // ===================== factories =====================
+
+    public static ColumnRule required() {
+        return new ColumnRule("required", null, v -> v != null && !v.isBlank(), "is required");
+    }
+
+    public static ColumnRule maxLength(int max) {
+        return new ColumnRule("maxLength(" + max + ")", String::trim,
+                v -> v == null || v.length() <= max, "must not exceed " + max + " characters");
+    }
+
+    /** CIF / เลขที่สัญญา / เบอร์โทร: cell ตัวเลขจะมาเป็น "3.450100993487E12" -> แปลงกลับเป็นตัวเลขล้วน */
+    public static ColumnRule digits(int minLength, int maxLength) {
+        return new ColumnRule("digits(" + minLength + "-" + maxLength + ")", ColumnRule::plainNumber,
+                v -> isBlank(v) || (DIGITS.matcher(v).matches() && v.length() >= minLength && v.length() <= maxLength),
+                "must be " + (minLength == maxLength ? minLength : minLength + "-" + maxLength) + " digits");
+    }
+
+    public static ColumnRule upperCode() {
+        return new ColumnRule("upperCode", v -> v.trim().toUpperCase(Locale.US),
+                v -> isBlank(v) || v.chars().allMatch(ch -> Character.isLetterOrDigit(ch) || ch == '_' || ch == '-'),
+                "must contain only letters, digits, '_' or '-'");
+    }
+
+    public static ColumnRule text() {
+        return new ColumnRule("text", v -> SPACES.matcher(v.trim()).replaceAll(" "), null, null);
+    }
+
+    public static ColumnRule integer() {
+        return new ColumnRule("integer", ColumnRule::plainNumber,
+                v -> isBlank(v) || v.matches("-?\\d+"), "must be a whole number");
+    }
+
+    /** Decimal(precision, scale) เช่น Decimal15,2 */
+    public static ColumnRule decimal(int precision, int scale) {
+        return new ColumnRule("decimal(" + precision + "," + scale + ")",
+                v -> {
+                    String t = v.trim().replace(",", "");
+                    if (!NUMERIC.matcher(t).matches()) return v;
+                    return new BigDecimal(t).setScale(scale, RoundingMode.HALF_UP).toPlainString();
+                },
+                v -> {
+                    if (isBlank(v)) return true;
+                    if (!NUMERIC.matcher(v).matches()) return false;
+                    return new BigDecimal(v).precision() <= precision;
+                },
+                "must be a number with at most " + (precision - scale) + " integer digits");
+    }
+
+    /** yyyy-MM-dd HH:mm:ss (รับ LocalDateTime.toString() จาก cell วันที่ และ dd/MM/yyyy ด้วย) */
+    public static ColumnRule dateTime() {
+        return new ColumnRule("dateTime", ColumnRule::toDateTime,
+                v -> isBlank(v) || parseDateTime(v) != null, "must be a date/time (yyyy-MM-dd HH:mm:ss)");
+    }
+
+    // ===================== helpers =====================
+
+    private static boolean isBlank(String v) {
+        return v == null || v.isBlank();
+    }
+
+    static String plainNumber(String v) {
+        String t = v.trim();
+        // แตะเฉพาะค่าที่มาจาก numeric cell (มี . หรือ E) เพื่อไม่ให้เลข 0 นำหน้าหาย
+        if (t.indexOf('.') < 0 && t.indexOf('E') < 0) return t;
+        if (!NUMERIC.matcher(t).matches()) return t;
+        BigDecimal n = new BigDecimal(t);
+        return (n.signum() == 0) ? "0" : n.stripTrailingZeros().toPlainString();
+    }
+
+    private static String toDateTime(String v) {
+        LocalDateTime dt = parseDateTime(v.trim());
+        return (dt != null) ? dt.format(DATE_TIME) : v;
+    }
+
+    private static LocalDateTime parseDateTime(String v) {
+        try {
+            return LocalDateTime.parse(v, DATE_TIME);
+        } catch (DateTimeParseException ignore) {
+            // ลองรูปแบบอื่น
+        }
+        try {
+            return LocalDateTime.parse(v); // 2026-02-01T09:00 (จาก cell วันที่)
+        } catch (DateTimeParseException ignore) {
+            // ลองรูปแบบอื่น
+        }
+        try {
+            return LocalDate.parse(v, DMY).atStartOfDay();
+        } catch (DateTimeParseException ignore) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.aeon.acss.fdu.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * id ของผู้ใช้ที่ทำรายการ (ลง created_by/updated_by) — ไม่เชื่อค่าที่ส่งมาใน body
+ *
+ * <p>อ่านจาก session attribute ชื่อ fdu.security.user-id-attribute (ระบบ login ตั้งไว้ตอนเข้าระบบ)
+ * ถ้าไม่มีใช้ remote user ของ container (ต้องเป็นตัวเลข) ไม่มีทั้งคู่ = 401
+ */
+@Component
+public class CurrentUser {
+
+    private final String attribute;
+
+    public CurrentUser(@Value("${fdu.security.user-id-attribute:USER_ID}") String attribute) {
+        this.attribute = attribute;
+    }
+
+    /** @throws ResponseStatusException 401 ถ้ายังไม่ได้ login */
+    public int id(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Integer id = (session != null) ? number(session.getAttribute(attribute)) : null;
+        if (id == null) id = number(request.getRemoteUser());
+        if (id == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Please log in");
+        return id;
+    }
+
+    private static Integer number(Object value) {
+        if (value instanceof Number n) return n.intValue();
+        if (value instanceof String s && !s.isBlank()) {
+            try {
+                return Integer.valueOf(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,262 @@
+package com.aeon.acss.fdu.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchCriteria;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * export ผลค้นหา Customer Lists ทั้งหมด (ไม่ตัดหน้า) เป็น XLSX หรือ CSV แบบ streaming
+ *
+ * <p>XLSX ใช้ SXSSFWorkbook: ถือใน memory แค่ window-size แถว ที่เหลือ flush ลง temp file (บีบอัด)
+ * sheet ละไม่เกิน 1,048,576 แถว (ขีดจำกัดของ xlsx) เกินแล้วขึ้น sheet ใหม่พร้อม header
+ * CSV เขียนตรงลง response ทีละแถว — จำกัดจำนวน export พร้อมกันด้วย semaphore
+ * ข้อความที่ขึ้นต้นด้วย = + - @ (หรือ tab/CR) เติม ' นำหน้า กัน Excel ตีความเป็นสูตร (CSV injection)
+ */
+@Slf4j
+@Service
+public class CustomerExportService {
+
+    public enum Format {
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String s) {
+            return "csv".equalsIgnoreCase(s) ? CSV : XLSX;
+        }
+    }
+
+    private static final List<String> HEADERS = List.of(
+            "Customer ID", "Customer Name", "Job Status", "Appointment Date", "Survey Type", "Client Name",
+            "OS Balance", "Agreement No.", "Created Date", "Updated Date", "Collector Result", "Collector Remark");
+
+    // เหมือน STATUS_MAP ใน customer-list.html
+    private static final Map<String, String> STATUS_TEXT = Map.of(
+            "1", "Draft",
+            "2", "Sending",
+            "4", "Onprocess",
+            "5", "Send Pda",
+            "6", "Completed",
+            "98", "Mci Cancel",
+            "99", "Cancel");
+
+    private static final String SHEET_NAME = "Customer Lists";
+    private static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private final CustomerSearchService searchService;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final int windowSize;
+
+    public CustomerExportService(CustomerSearchService searchService,
+                                 @Value("${fdu.customer-search.export.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${fdu.customer-search.export.acquire-timeout:PT5S}") Duration acquireTimeout,
+                                 @Value("${fdu.customer-search.export.window-size:100}") int windowSize) {
+        this.searchService = searchService;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.acquireTimeout = acquireTimeout;
+        this.windowSize = Math.max(1, windowSize);
+    }
+
+    /**
+     * @return จำนวนแถวที่ export
+     * @throws RejectedExecutionException ถ้ามี export อื่นเต็มโควตาอยู่ (ยังไม่ได้เขียนอะไรลง out)
+     */
+    public long export(CustomerSearchCriteria c, Format format, OutputStream out) throws IOException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many exports running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for export slot", e);
+        }
+
+        long started = System.nanoTime();
+        try {
+            long rows = (format == Format.CSV) ? csv(c, out) : xlsx(c, out);
+            log.info("Customer export ({}): {} rows in {} ms", format, rows, (System.nanoTime() - started) / 1_000_000);
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // ===================== XLSX =====================
+
+    private long xlsx(CustomerSearchCriteria c, OutputStream out) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(windowSize);
+        wb.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = wb.createCellStyle();
+            Font bold = wb.createFont();
+            bold.setBold(true);
+            headerStyle.setFont(bold);
+            CellStyle moneyStyle = wb.createCellStyle();
+            moneyStyle.setDataFormat(wb.createDataFormat().getFormat("#,##0.00"));
+
+            Sheet[] sheet = {newSheet(wb, SHEET_NAME, headerStyle)};
+            int[] rowNo = {1};
+            long count = searchService.forEach(c, r -> {
+                if (rowNo[0] == MAX_SHEET_ROWS) {
+                    sheet[0] = newSheet(wb, SHEET_NAME + " (" + (wb.getNumberOfSheets() + 1) + ")", headerStyle);
+                    rowNo[0] = 1;
+                }
+                Row row = sheet[0].createRow(rowNo[0]++);
+                Object[] values = values(r);
+                for (int col = 0; col < values.length; col++) {
+                    if (values[col] instanceof BigDecimal money) {
+                        Cell cell = row.createCell(col);
+                        cell.setCellValue(money.doubleValue());
+                        cell.setCellStyle(moneyStyle);
+                    } else if (values[col] != null) {
+                        row.createCell(col).setCellValue((String) values[col]);
+                    }
+                }
+            });
+
+            wb.write(out);
+            return count;
+        } finally {
+            wb.dispose(); // ลบ temp file ของ row ที่ flush ออกไป
+            wb.close();
+        }
+    }
+
+    private static Sheet newSheet(SXSSFWorkbook wb, String name, CellStyle headerStyle) {
+        Sheet sheet = wb.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.size(); i++) {
+            Cell cell = header.createCell(i);
+            cell.setCellValue(HEADERS.get(i));
+            cell.setCellStyle(headerStyle);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    // ===================== CSV =====================
+
+    private long csv(CustomerSearchCriteria c, OutputStream out) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // BOM ให้ Excel เปิดภาษาไทยถูก
+        w.write('\uFEFF');
+        line(w, HEADERS);
+
+        long count = searchService.forEach(c, r -> {
+            try {
+                Object[] values = values(r);
+                String[] line = new String[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    // ตัวเลข (เช่น ยอดติดลบ) ไม่ต้อง escape — เฉพาะข้อความที่มาจากข้อมูล
+                    line[i] = (values[i] instanceof BigDecimal money)
+                            ? money.toPlainString() : formulaSafe((String) values[i]);
+                }
+                line(w, Arrays.asList(line));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        w.flush();
+        return count;
+    }
+
+    private static void line(Writer w, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) w.write(',');
+            String v = values.get(i);
+            if (v == null || v.isEmpty()) continue;
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                w.write('"');
+                w.write(v.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(v);
+            }
+        }
+        w.write("\r\n");
+    }
+
+    /** ข้อความที่ Excel/Sheets จะตีความเป็นสูตร -> เติม ' นำหน้า (แสดงเป็นข้อความ) */
+    static String formulaSafe(String v) {
+        if (v == null || v.isEmpty()) return v;
+        char first = v.charAt(0);
+        return (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r')
+                ? "'" + v : v;
+    }
+
+    // ===================== helpers =====================
+
+    /** ค่าตามลำดับ HEADERS: String หรือ BigDecimal (OS Balance) */
+    private static Object[] values(CustomerListRow r) {
+        return new Object[] {
+                r.customerId(),
+                r.customerName(),
+                STATUS_TEXT.getOrDefault(r.status(), r.status()),
+                r.appointmentDate(),
+                r.surveyType(),
+                r.clientName(),
+                r.osBalance(),
+                r.agreementNo(),
+                date(r.createdDate()),
+                date(r.updateDate()),
+                r.collectorResult(),
+                r.collectorRemark()
+        };
+    }
+
+    private static String date(LocalDate d) {
+        return (d != null) ? d.toString() : null;
+    }
+
+    /** ชื่อไฟล์ เช่น customer-list-20260117.xlsx */
+    public static String fileName(Format format) {
+        return String.format(Locale.US, "customer-list-%1$tY%1$tm%1$td.%2$s", LocalDate.now(), format.getExtension());
+    }
+}
@@ -0,0 +1,25 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * แถวของหน้า Customer Lists (1 job ของลูกค้า)
+ */
+public record CustomerListRow(
+        String customerId,
+        String customerName,
+        String status, // "1","2","4","5","6","98","99"
+        String appointmentDate,
+        String surveyType, // SUH/SUC/...
+        String clientName, // thai name
+        String clientCode, // PRMF/AMNF/KBAF/BMW1
+        BigDecimal osBalance,
+        String agreementNo,
+        LocalDate createdDate,
+        LocalDate updateDate,
+        String collectorResult,
+        String collectorRemark,
+        String address,
+        String zipcode) {
+}
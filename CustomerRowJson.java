@@ -0,0 +1,94 @@
+package com.aeon.acss.fdu.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchResult;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * เขียนผลค้นหา Customer Lists เป็น JSON ตรงลง OutputStream ด้วย JsonGenerator
+ * (ไม่สร้าง Map ต่อแถว / List ของ Map ก่อน serialize)
+ *
+ * <p>ชื่อ field เหมือนที่หน้า customer-list.html ใช้อยู่
+ */
+public final class CustomerRowJson {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // flush ทุก n แถวของ NDJSON ให้ client เริ่มอ่านได้ก่อนจบ
+    private static final int FLUSH_EVERY = 500;
+
+    private CustomerRowJson() {
+    }
+
+    /** {draw, recordsTotal, recordsFiltered, data: [...]} ตาม DataTables server-side */
+    public static void writePage(OutputStream out, CustomerSearchResult result) throws IOException {
+        try (JsonGenerator g = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            g.writeStartObject();
+            g.writeNumberField("draw", result.draw());
+            g.writeNumberField("recordsTotal", result.recordsTotal());
+            g.writeNumberField("recordsFiltered", result.recordsFiltered());
+            g.writeArrayFieldStart("data");
+            for (CustomerListRow r : result.data()) writeRow(g, r);
+            g.writeEndArray();
+            g.writeEndObject();
+        }
+    }
+
+    /**
+     * NDJSON: 1 แถวต่อ 1 บรรทัด สำหรับผลลัพธ์ขนาดใหญ่ (ส่งแบบ chunked ไม่ต้องรู้ความยาวก่อน)
+     * ผู้เรียกส่งแถวเข้า consumer ที่ได้ แถวถูกเขียนออกทันที
+     */
+    public static Consumer<CustomerListRow> ndjson(JsonGenerator g) {
+        long[] written = {0};
+        return r -> {
+            try {
+                writeRow(g, r);
+                g.writeRaw('\n');
+                if (++written[0] % FLUSH_EVERY == 0) g.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public static JsonGenerator generator(OutputStream out) throws IOException {
+        JsonGenerator g = JSON.createGenerator(out, JsonEncoding.UTF8);
+        // root value คั่นด้วย '\n' เอง (ไม่ใช้ space ที่เป็น default)
+        g.setRootValueSeparator(null);
+        return g;
+    }
+
+    public static void writeRow(JsonGenerator g, CustomerListRow r) throws IOException {
+        g.writeStartObject();
+        g.writeStringField("customerId", r.customerId());
+        g.writeStringField("customerName", r.customerName());
+        g.writeStringField("status", r.status()); // ส่งเป็น code ไปให้หน้า map เป็นคำเอง
+        g.writeStringField("appointmentDate", r.appointmentDate());
+        g.writeStringField("surveyType", r.surveyType());
+        g.writeStringField("clientName", r.clientName());
+        if (r.osBalance() != null) g.writeNumberField("osBalance", r.osBalance());
+        else g.writeNullField("osBalance");
+        g.writeStringField("agreementNo", r.agreementNo());
+        g.writeStringField("createdDate", date(r.createdDate()));
+        g.writeStringField("updateDate", date(r.updateDate()));
+        g.writeStringField("collectorResult", r.collectorResult());
+        g.writeStringField("collectorRemark", r.collectorRemark());
+        // เผื่อกรอง client ใน backend (ส่ง code ด้วย)
+        g.writeStringField("clientCode", r.clientCode());
+        g.writeEndObject();
+    }
+
+    private static String date(LocalDate d) {
+        return (d != null) ? d.toString() : "";
+    }
+}
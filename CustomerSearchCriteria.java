@@ -0,0 +1,137 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * เงื่อนไขค้นหา Customer Lists (normalize แล้ว: trim, ค่าว่าง = null, วันที่ parse แล้ว)
+ * พร้อม paging/sort ตาม DataTables server-side protocol
+ */
+@Data
+@Builder
+public class CustomerSearchCriteria {
+
+    // รองรับทั้ง yyyy-MM-dd (จาก input type=date) และ dd/MM/yyyy
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
+    private static final DateTimeFormatter DMY = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.US);
+
+    public static final int MAX_LENGTH = 1000;
+    public static final int DEFAULT_LENGTH = 50;
+
+    private String customerId;
+    private String custName;
+    private String client;
+    private String agreementNo;
+    private String address;
+    private String zipcode;
+    private String surveyType;
+    private String jobStatus;
+    private LocalDate createdFrom;
+    private LocalDate createdTo;
+    private LocalDate updateFrom;
+    private LocalDate updateTo;
+
+    // ===== paging / sort =====
+    private int draw;
+    private int start;
+    private int length;
+    /** ชื่อ field ของ CustomerListRow (เช่น customerId) หรือ null = ไม่ sort */
+    private String sortField;
+    private boolean sortDesc;
+
+    /**
+     * สร้างจาก query string ของ /customer-list/api/search (ชื่อ filter เดิม 12 ช่อง + DataTables
+     * draw/start/length/order[0][column]/order[0][dir]/columns[n][data])
+     * sortField ไม่ได้ตรวจที่นี่ — repository/index sort เฉพาะ field ที่รู้จัก ที่เหลือใช้ลำดับ default
+     */
+    public static CustomerSearchCriteria from(Map<String, String> params) {
+        String sortColumn = text(params.get("order[0][column]"));
+        return CustomerSearchCriteria.builder()
+                .customerId(text(params.get("customerId")))
+                .custName(text(params.get("custName")))
+                .client(text(params.get("client")))
+                .agreementNo(text(params.get("agreementNo")))
+                .address(text(params.get("address")))
+                .zipcode(text(params.get("zipcode")))
+                .surveyType(text(params.get("surveyType")))
+                .jobStatus(text(params.get("jobStatus")))
+                .createdFrom(date(params.get("createdFrom")))
+                .createdTo(date(params.get("createdTo")))
+                .updateFrom(date(params.get("updateFrom")))
+                .updateTo(date(params.get("updateTo")))
+                .draw(number(params.get("draw"), 0))
+                .start(Math.max(0, number(params.get("start"), 0)))
+                .length(number(params.get("length"), DEFAULT_LENGTH))
+                .sortField(sortColumn != null ? text(params.get("columns[" + sortColumn + "][data]")) : null)
+                .sortDesc("desc".equalsIgnoreCase(text(params.get("order[0][dir]"))))
+                .build();
+    }
+
+    private static int number(String s, int defaultValue) {
+        String v = text(s);
+        if (v == null) return defaultValue;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static String text(String s) {
+        return (s == null || s.trim().isEmpty()) ? null : s.trim();
+    }
+
+    public static LocalDate date(String s) {
+        String v = text(s);
+        if (v == null) return null;
+        try {
+            // input type=date จะส่ง yyyy-MM-dd
+            return LocalDate.parse(v, ISO);
+        } catch (DateTimeParseException ignore) {
+            // เผื่อ dd/MM/yyyy
+            try {
+                return LocalDate.parse(v, DMY);
+            } catch (DateTimeParseException ignore2) {
+                return null; // format ไม่ถูกต้อง -> ไม่ filter ด้วยเงื่อนไขนี้
+            }
+        }
+    }
+
+    /** มีเงื่อนไขค้นหาอย่างน้อย 1 ช่อง */
+    public boolean hasFilter() {
+        return customerId != null || custName != null || client != null || agreementNo != null
+                || address != null || zipcode != null || surveyType != null || jobStatus != null
+                || createdFrom != null || createdTo != null || updateFrom != null || updateTo != null;
+    }
+
+    /**
+     * ชื่อเงื่อนไขที่ใช้ (เรียงคงที่ คั่นด้วย +) เช่น "client+custName" หรือ "none" — ใช้เป็น tag ของ metrics
+     * (ไม่มีค่าที่ผู้ใช้พิมพ์ จำนวนแบบจำกัดตามจำนวนช่อง)
+     */
+    public String filterKey() {
+        StringJoiner key = new StringJoiner("+");
+        if (customerId != null) key.add("customerId");
+        if (custName != null) key.add("custName");
+        if (client != null) key.add("client");
+        if (agreementNo != null) key.add("agreementNo");
+        if (address != null) key.add("address");
+        if (zipcode != null) key.add("zipcode");
+        if (surveyType != null) key.add("surveyType");
+        if (jobStatus != null) key.add("jobStatus");
+        if (createdFrom != null || createdTo != null) key.add("created");
+        if (updateFrom != null || updateTo != null) key.add("updated");
+        return key.length() == 0 ? "none" : key.toString();
+    }
+
+    /** length &lt;= 0 (DataTables ส่ง -1 = ทั้งหมด) จะถูกจำกัดที่ MAX_LENGTH */
+    public int getPageSize() {
+        return (length <= 0 || length > MAX_LENGTH) ? MAX_LENGTH : length;
+    }
+}
@@ -0,0 +1,399 @@
+package com.aeon.acss.fdu.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchCriteria;
+import com.aeon.acss.fdu.model.dto.CustomerSearchResult;
+import com.aeon.acss.fdu.repository.CustomerSearchRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * index ของ Customer Lists ใน memory สำหรับค้นหาแบบ substring โดยไม่ต้อง scan
+ *
+ * <p>customerId, customerName, agreementNo, address, zipcode ถูก lower-case ครั้งเดียวตอน index
+ * แล้วแตกเป็น trigram ({@link TrigramIndex}) — query ที่ยาว &gt;= 3 ตัวอักษรจึงเหลือแค่ intersect posting list
+ * แล้ว verify เฉพาะ candidate ส่วน query สั้นกว่านั้นจะ scan แถวที่ยังไม่ถูกลบ
+ *
+ * <p>client, surveyType, status มี {@link DocBitmap} ต่อค่า ส่วน createdDate/updateDate
+ * เป็น {@link DayColumn} (epoch-day เรียงไว้ ตัดช่วงด้วย binary search) — ทุก request ถูก compile เป็น
+ * {@link SearchPlan} ที่เลือกเงื่อนไขที่แคบที่สุดเป็นตัวตั้งจากสถิติของ index แล้วเช็คที่เหลือตามต้นทุน
+ * (เปิด debug log ของ class นี้เพื่อดูแผน)
+ *
+ * <p>ปรับปรุงแบบ incremental ตาม update_date: แถวที่เปลี่ยนได้ doc id ใหม่ต่อท้าย (posting append-only)
+ * แล้ว mark doc เดิมว่าลบ เมื่อ doc ที่ลบเกิน max-deleted-ratio หรือครบ rebuild-interval จะโหลดใหม่ทั้งหมด
+ * (แถวที่ถูกลบใน DB จะหายจาก index ตอน rebuild) ระหว่างที่ยังโหลดไม่เสร็จ service จะค้นหาผ่าน SQL แทน
+ */
+@Slf4j
+@Component
+public class CustomerSearchIndex {
+
+    static final int F_CUSTOMER_ID = 0;
+    static final int F_CUSTOMER_NAME = 1;
+    static final int F_AGREEMENT_NO = 2;
+    static final int F_ADDRESS = 3;
+    static final int F_ZIPCODE = 4;
+
+    // default order ของ search ฝั่ง SQL (ORDER BY customer_id, agreement_no) และ tie-break ของทุก sort
+    private static final Comparator<CustomerListRow> TIE_BREAK = Comparator
+            .comparing(CustomerListRow::customerId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CustomerListRow::agreementNo, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // field เดียวกับที่ CustomerSearchRepository sort ได้ (null มาก่อน เหมือน SQL Server)
+    private static final Map<String, Comparator<CustomerListRow>> SORTS = Map.ofEntries(
+            sort("customerId", CustomerListRow::customerId),
+            sort("customerName", CustomerListRow::customerName),
+            sort("status", CustomerListRow::status),
+            sort("appointmentDate", CustomerListRow::appointmentDate),
+            sort("surveyType", CustomerListRow::surveyType),
+            sort("clientName", CustomerListRow::clientName),
+            sort("osBalance", CustomerListRow::osBalance),
+            sort("agreementNo", CustomerListRow::agreementNo),
+            sort("createdDate", CustomerListRow::createdDate),
+            sort("updateDate", CustomerListRow::updateDate),
+            sort("collectorResult", CustomerListRow::collectorResult),
+            sort("collectorRemark", CustomerListRow::collectorRemark));
+
+    private final CustomerSearchRepository repo;
+    private final boolean enabled;
+    private final Duration rebuildInterval;
+    private final double maxDeletedRatio;
+
+    // search = read lock, apply การเปลี่ยนแปลง = write lock (rebuild สร้าง Store ใหม่นอก lock แล้วค่อยสลับ)
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Store store;
+    private Instant builtAt;
+
+    public CustomerSearchIndex(CustomerSearchRepository repo,
+                               @Value("${fdu.customer-search.index.enabled:true}") boolean enabled,
+                               @Value("${fdu.customer-search.index.rebuild-interval:PT6H}") Duration rebuildInterval,
+                               @Value("${fdu.customer-search.index.max-deleted-ratio:0.25}") double maxDeletedRatio) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.rebuildInterval = rebuildInterval;
+        this.maxDeletedRatio = maxDeletedRatio;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return store != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== maintenance =====================
+
+    /** รอบแรกหลัง start จะโหลดทั้งหมด รอบต่อไปดึงเฉพาะแถวที่ update_date เปลี่ยน */
+    @Scheduled(fixedDelayString = "${fdu.customer-search.index.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!enabled) return;
+        try {
+            if (needsRebuild()) rebuild();
+            else applyUpdates();
+        } catch (DataAccessException e) {
+            // index เดิม (ถ้ามี) ยังใช้ได้ รอบหน้าลองใหม่
+            log.warn("Customer search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean needsRebuild() {
+        lock.readLock().lock();
+        try {
+            if (store == null) return true;
+            if (Instant.now().isAfter(builtAt.plus(rebuildInterval))) return true;
+            return store.deletedCount() > store.size() * maxDeletedRatio;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void rebuild() {
+        long started = System.nanoTime();
+        Instant at = Instant.now();
+        Store fresh = new Store();
+        repo.forEachRow(fresh::append);
+        fresh.loaded();
+
+        lock.writeLock().lock();
+        try {
+            store = fresh;
+            builtAt = at;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Customer search index built: {} rows, {} grams ({} KB postings) in {} ms",
+                fresh.size(), fresh.grams.gramCount(), fresh.grams.sizeInBytes() / 1024,
+                (System.nanoTime() - started) / 1_000_000);
+        if (fresh.duplicateKeys > 0) {
+            // index ถือว่า (customer_id, agreement_no) ไม่ซ้ำ — แถวซ้ำเก็บแค่แถวสุดท้าย จำนวนจะไม่ตรงกับ SQL
+            log.warn("Customer search index: {} row(s) share (customer_id, agreement_no) with an earlier row; only the last one is searchable",
+                    fresh.duplicateKeys);
+        }
+    }
+
+    private void applyUpdates() {
+        LocalDate since;
+        lock.readLock().lock();
+        try {
+            since = store.watermark;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (since == null) return;
+
+        // ดึงจาก DB นอก lock แล้วค่อย apply ทีเดียว
+        List<CustomerListRow> changed = new ArrayList<>();
+        repo.forEachUpdatedSince(since, changed::add);
+        if (changed.isEmpty()) return;
+
+        int applied = 0;
+        lock.writeLock().lock();
+        try {
+            for (CustomerListRow row : changed) {
+                if (store.upsert(row)) applied++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (applied > 0) log.debug("Customer search index: {} row(s) updated since {}", applied, since);
+    }
+
+    // ===================== search =====================
+
+    public CustomerSearchResult search(CustomerSearchCriteria c) {
+        lock.readLock().lock();
+        try {
+            Store s = store;
+            if (s == null) throw new IllegalStateException("Customer search index is not ready");
+
+            int[] matched = s.plan(c).execute(s.deleted);
+            List<CustomerListRow> page = s.page(matched, c);
+            return new CustomerSearchResult(c.getDraw(), s.liveCount(), matched.length, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * ทุกแถวที่ตรงเงื่อนไข (ไม่ตัดหน้า) เรียงตาม criteria
+     * คืนแค่ reference ของแถว (immutable) เพื่อให้ผู้เรียกเขียนออกนอก lock ได้
+     */
+    public List<CustomerListRow> matchAll(CustomerSearchCriteria c) {
+        lock.readLock().lock();
+        try {
+            Store s = store;
+            if (s == null) throw new IllegalStateException("Customer search index is not ready");
+            return s.all(s.plan(c).execute(s.deleted), c);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== storage =====================
+
+    /** แถวทั้งหมด + ค่า lower-case + trigram/bitmap/วันที่ (doc id = ลำดับใน rows) */
+    private static final class Store {
+
+        final List<CustomerListRow> rows = new ArrayList<>();
+        final List<String[]> lowered = new ArrayList<>();
+        final int[] filled = new int[5]; // จำนวน doc ที่ field ข้อความไม่ว่าง (รวมที่ลบแล้ว)
+        final BitSet deleted = new BitSet();
+        final Map<String, Integer> docByKey = new HashMap<>();
+        final TrigramIndex grams = new TrigramIndex();
+        final Map<String, DocBitmap> byClient = new HashMap<>();
+        final Map<String, DocBitmap> bySurveyType = new HashMap<>();
+        final Map<String, DocBitmap> byStatus = new HashMap<>();
+        final DayColumn created = new DayColumn();
+        final DayColumn updated = new DayColumn();
+        LocalDate watermark;
+        int loadedSize = -1; // จำนวน doc ตอนโหลดเสร็จ: doc ก่อนหน้านี้เรียงตาม customer_id, agreement_no จาก SQL
+        int duplicateKeys;   // แถวที่ key ซ้ำระหว่างโหลด
+
+        int size() {
+            return rows.size();
+        }
+
+        int deletedCount() {
+            return deleted.cardinality();
+        }
+
+        int liveCount() {
+            return rows.size() - deleted.cardinality();
+        }
+
+        void append(CustomerListRow row) {
+            int doc = rows.size();
+            String[] low = {
+                    lower(row.customerId()),
+                    lower(row.customerName()),
+                    lower(row.agreementNo()),
+                    lower(row.address()),
+                    lower(row.zipcode())
+            };
+            rows.add(row);
+            lowered.add(low);
+            for (int f = 0; f < low.length; f++) {
+                grams.add(f, doc, low[f]);
+                if (low[f] != null) filled[f]++;
+            }
+            bitmap(byClient, row.clientCode(), doc);
+            bitmap(bySurveyType, row.surveyType(), doc);
+            bitmap(byStatus, row.status(), doc);
+            created.add(doc, row.createdDate());
+            updated.add(doc, row.updateDate());
+
+            Integer previous = docByKey.put(key(row), doc);
+            if (previous != null) {
+                deleted.set(previous);
+                if (loadedSize < 0) duplicateKeys++;
+            }
+
+            LocalDate updated = row.updateDate();
+            if (updated != null && (watermark == null || updated.isAfter(watermark))) watermark = updated;
+        }
+
+        /** โหลดครั้งแรกเสร็จ: เรียงคอลัมน์วันที่ทีเดียว */
+        void loaded() {
+            created.merge();
+            updated.merge();
+            loadedSize = rows.size();
+        }
+
+        /**
+         * ลำดับ doc ยังตรงกับ default order ของ SQL ไหม — แถวที่ upsert หลังโหลดได้ doc ต่อท้าย
+         * จึงต้อง sort ตาม key เองตั้งแต่มีแถวแรกที่เปลี่ยน (จนกว่าจะ rebuild)
+         */
+        boolean inKeyOrder() {
+            return rows.size() == loadedSize;
+        }
+
+        private static void bitmap(Map<String, DocBitmap> index, String value, int doc) {
+            if (value != null) index.computeIfAbsent(value, v -> new DocBitmap()).add(doc);
+        }
+
+        /** @return false ถ้าแถวเหมือนเดิม (ดึงซ้ำเพราะ watermark ละเอียดแค่ระดับวัน) */
+        boolean upsert(CustomerListRow row) {
+            Integer doc = docByKey.get(key(row));
+            if (doc != null && rows.get(doc).equals(row)) return false;
+            append(row);
+            return true;
+        }
+
+        /** compile เงื่อนไขเป็นแผน (ตัดช่องว่างทิ้ง, lower-case/epoch-day ครั้งเดียว, estimate จากสถิติปัจจุบัน) */
+        SearchPlan plan(CustomerSearchCriteria c) {
+            List<SearchPlan.Step> steps = new ArrayList<>();
+            if (c.getClient() != null) {
+                steps.add(SearchPlan.bitmap("client", c.getClient(), byClient.get(c.getClient())));
+            }
+            if (c.getSurveyType() != null) {
+                steps.add(SearchPlan.bitmap("surveyType", c.getSurveyType(), bySurveyType.get(c.getSurveyType())));
+            }
+            if (c.getJobStatus() != null) {
+                steps.add(SearchPlan.bitmap("jobStatus", c.getJobStatus(), byStatus.get(c.getJobStatus())));
+            }
+            if (c.getCreatedFrom() != null || c.getCreatedTo() != null) {
+                steps.add(SearchPlan.dayRange("created", c.getCreatedFrom(), c.getCreatedTo(), created));
+            }
+            if (c.getUpdateFrom() != null || c.getUpdateTo() != null) {
+                steps.add(SearchPlan.dayRange("updated", c.getUpdateFrom(), c.getUpdateTo(), updated));
+            }
+            substring(steps, "customerId", F_CUSTOMER_ID, c.getCustomerId());
+            substring(steps, "custName", F_CUSTOMER_NAME, c.getCustName());
+            substring(steps, "agreementNo", F_AGREEMENT_NO, c.getAgreementNo());
+            substring(steps, "address", F_ADDRESS, c.getAddress());
+            substring(steps, "zipcode", F_ZIPCODE, c.getZipcode());
+
+            SearchPlan plan = SearchPlan.of(c.filterKey(), rows.size(), steps);
+            if (log.isDebugEnabled()) log.debug("Customer search {}", plan.explain());
+            return plan;
+        }
+
+        private void substring(List<SearchPlan.Step> steps, String field, int fieldNo, String value) {
+            if (value == null) return;
+            steps.add(SearchPlan.substring(field, fieldNo, lower(value), grams, lowered, filled[fieldNo]));
+        }
+
+        /** ตัดหน้าเดียว: ไม่ sort = customer_id, agreement_no (ลำดับ doc ถ้ายังไม่มี upsert), sort = top-k */
+        List<CustomerListRow> page(int[] matched, CustomerSearchCriteria c) {
+            int from = Math.min(c.getStart(), matched.length);
+            int to = (int) Math.min((long) from + c.getPageSize(), matched.length);
+            if (from >= to) return List.of();
+
+            Comparator<CustomerListRow> cmp = order(c);
+            if (cmp == null) {
+                List<CustomerListRow> page = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) page.add(rows.get(matched[i]));
+                return page;
+            }
+            return topK(matched, cmp, from, to);
+        }
+
+        List<CustomerListRow> all(int[] matched, CustomerSearchCriteria c) {
+            CustomerListRow[] out = new CustomerListRow[matched.length];
+            for (int i = 0; i < matched.length; i++) out[i] = rows.get(matched[i]);
+            Comparator<CustomerListRow> cmp = order(c);
+            if (cmp != null) Arrays.sort(out, cmp);
+            return Arrays.asList(out);
+        }
+
+        /** null = ลำดับ doc ใช้ได้เลย */
+        private Comparator<CustomerListRow> order(CustomerSearchCriteria c) {
+            Comparator<CustomerListRow> sort = SORTS.get(c.getSortField());
+            if (sort == null) return inKeyOrder() ? null : TIE_BREAK;
+            return (c.isSortDesc() ? sort.reversed() : sort).thenComparing(TIE_BREAK);
+        }
+
+        /** เก็บแค่ to แถวแรกใน heap (ไม่ต้อง sort ทั้งผลลัพธ์เมื่อขอหน้าต้น ๆ) */
+        private List<CustomerListRow> topK(int[] matched, Comparator<CustomerListRow> cmp, int from, int to) {
+            PriorityQueue<CustomerListRow> heap = new PriorityQueue<>(to + 1, cmp.reversed());
+            for (int doc : matched) {
+                CustomerListRow r = rows.get(doc);
+                if (heap.size() < to) {
+                    heap.add(r);
+                } else if (cmp.compare(r, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(r);
+                }
+            }
+            CustomerListRow[] sorted = new CustomerListRow[heap.size()];
+            for (int i = sorted.length - 1; i >= 0; i--) sorted[i] = heap.poll();
+            return List.of(sorted).subList(from, to);
+        }
+    }
+
+    // ===================== helpers =====================
+
+    private static <T extends Comparable<? super T>> Map.Entry<String, Comparator<CustomerListRow>> sort(
+            String field, Function<CustomerListRow, T> getter) {
+        return Map.entry(field, Comparator.comparing(getter, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    private static String key(CustomerListRow r) {
+        return r.customerId() + '\u0000' + r.agreementNo();
+    }
+
+    static String lower(String s) {
+        return (s == null) ? null : s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,274 @@
+package com.aeon.acss.fdu.repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchCriteria;
+
+/**
+ * ค้นหา Customer Lists บน SQL Server (filter + sort + paging ทำใน SQL ทั้งหมด)
+ *
+ * <p>อ่านจาก view/table ตาม fdu.customer-search.source (default dbo.v_customer_list) ที่มีคอลัมน์:
+ * customer_id, customer_name, status, appointment_date, survey_type, client_name, client_code,
+ * os_balance, agreement_no, created_date, update_date, collector_result, collector_remark, address, zipcode
+ *
+ * <p>view default สร้างจากแถวที่ import บันทึกไว้ ({@link com.aeon.acss.fdu.importer.ImportRowWriter dbo.import_rows},
+ * key ของ JSON = header ของ template) + ชื่อ client จาก dbo.employers — customer_id + agreement_no ซ้ำหลาย import
+ * ใช้แถวที่ save ล่าสุด; คอลัมน์ของงานภาคสนาม (status, appointment_date, survey_type, collector_*) ไม่มีในไฟล์ import
+ * จึงเป็น NULL จนกว่าจะชี้ source ไปที่ view ของระบบงาน:
+ * <pre>
+ * CREATE VIEW dbo.v_customer_list AS
+ * SELECT customer_id, customer_name, status, appointment_date, survey_type, client_name, client_code,
+ *        os_balance, agreement_no, created_date, update_date, collector_result, collector_remark, address, zipcode
+ * FROM (
+ *   SELECT CAST(JSON_VALUE(r.row_data, '$."Customer - customer_id(20)"') AS NVARCHAR(20))     AS customer_id,
+ *          CAST(JSON_VALUE(r.row_data, '$."Customer - customer_name(127)"') AS NVARCHAR(127)) AS customer_name,
+ *          CAST(NULL AS VARCHAR(2))     AS status,
+ *          CAST(NULL AS VARCHAR(20))    AS appointment_date,
+ *          CAST(NULL AS NVARCHAR(50))   AS survey_type,
+ *          COALESCE(e.name_en, CAST(JSON_VALUE(r.row_data, '$."Customer - client_name_en(150)"') AS NVARCHAR(150)))
+ *                                       AS client_name,
+ *          CAST(JSON_VALUE(r.row_data, '$."Customer - client_code(16)"') AS NVARCHAR(16))     AS client_code,
+ *          TRY_CAST(JSON_VALUE(r.row_data, '$."Account - agr_outstanding _balance(Decimal15,2)"') AS DECIMAL(15, 2))
+ *                                       AS os_balance,
+ *          CAST(JSON_VALUE(r.row_data, '$."Account - agreement_no(16)"') AS NVARCHAR(16))     AS agreement_no,
+ *          CAST(MIN(r.created_at) OVER (PARTITION BY JSON_VALUE(r.row_data, '$."Customer - customer_id(20)"'),
+ *                                                    JSON_VALUE(r.row_data, '$."Account - agreement_no(16)"'))
+ *               AS DATE)                AS created_date,
+ *          CAST(r.created_at AS DATE)   AS update_date,
+ *          CAST(NULL AS NVARCHAR(100))  AS collector_result,
+ *          CAST(NULL AS NVARCHAR(254))  AS collector_remark,
+ *          CONCAT_WS(' ', JSON_VALUE(r.row_data, '$."Home Address - address_no(20)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - village_building(45)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - moo(2)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - soi(25)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - road(25)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - sub_district(25)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - district(25)"'),
+ *                         JSON_VALUE(r.row_data, '$."Home Address - province(20)"')) AS address,
+ *          CAST(JSON_VALUE(r.row_data, '$."Home Address - post_code(5)"') AS NVARCHAR(5))     AS zipcode,
+ *          ROW_NUMBER() OVER (PARTITION BY JSON_VALUE(r.row_data, '$."Customer - customer_id(20)"'),
+ *                                          JSON_VALUE(r.row_data, '$."Account - agreement_no(16)"')
+ *                             ORDER BY r.created_at DESC, r.import_id DESC, r.row_no DESC) AS rn
+ *   FROM dbo.import_rows r
+ *   LEFT JOIN dbo.employers e ON e.code = JSON_VALUE(r.row_data, '$."Customer - client_code(16)"')
+ * ) x
+ * WHERE rn = 1 AND customer_id IS NOT NULL AND agreement_no IS NOT NULL;
+ * </pre>
+ * view ใช้ collation ของ DB (case-insensitive) ทั้ง LIKE และเงื่อนไขเท่ากับ (client/surveyType/status)
+ */
+@Repository
+public class CustomerSearchRepository {
+
+    private static final String COLUMNS = "customer_id, customer_name, status, appointment_date, survey_type, "
+            + "client_name, client_code, os_balance, agreement_no, created_date, update_date, "
+            + "collector_result, collector_remark, address, zipcode";
+
+    // field ของ CustomerListRow -> คอลัมน์ที่ sort ได้ (whitelist กัน SQL injection)
+    private static final Map<String, String> SORTABLE = Map.ofEntries(
+            Map.entry("customerId", "customer_id"),
+            Map.entry("customerName", "customer_name"),
+            Map.entry("status", "status"),
+            Map.entry("appointmentDate", "appointment_date"),
+            Map.entry("surveyType", "survey_type"),
+            Map.entry("clientName", "client_name"),
+            Map.entry("osBalance", "os_balance"),
+            Map.entry("agreementNo", "agreement_no"),
+            Map.entry("createdDate", "created_date"),
+            Map.entry("updateDate", "update_date"),
+            Map.entry("collectorResult", "collector_result"),
+            Map.entry("collectorRemark", "collector_remark"));
+
+    // ค่าของคอลัมน์ sort จากแถวล่าสุดของหน้า (keyset ของหน้าถัดไป)
+    private static final Map<String, Function<CustomerListRow, Object>> SORT_VALUE = Map.ofEntries(
+            Map.entry("customerId", CustomerListRow::customerId),
+            Map.entry("customerName", CustomerListRow::customerName),
+            Map.entry("status", CustomerListRow::status),
+            Map.entry("appointmentDate", CustomerListRow::appointmentDate),
+            Map.entry("surveyType", CustomerListRow::surveyType),
+            Map.entry("clientName", CustomerListRow::clientName),
+            Map.entry("osBalance", CustomerListRow::osBalance),
+            Map.entry("agreementNo", CustomerListRow::agreementNo),
+            Map.entry("createdDate", r -> r.createdDate() != null ? Date.valueOf(r.createdDate()) : null),
+            Map.entry("updateDate", r -> r.updateDate() != null ? Date.valueOf(r.updateDate()) : null),
+            Map.entry("collectorResult", CustomerListRow::collectorResult),
+            Map.entry("collectorRemark", CustomerListRow::collectorRemark));
+
+    private static final RowMapper<CustomerListRow> ROW_MAPPER = CustomerSearchRepository::mapRow;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final String source;
+
+    public CustomerSearchRepository(NamedParameterJdbcTemplate jdbc,
+                                    @Value("${fdu.customer-search.source:dbo.v_customer_list}") String source) {
+        this.jdbc = jdbc;
+        this.source = source;
+    }
+
+    public long countAll() {
+        Long n = jdbc.queryForObject("SELECT COUNT_BIG(*) FROM " + source, Map.of(), Long.class);
+        return n != null ? n : 0;
+    }
+
+    public long count(CustomerSearchCriteria c) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = where(c, params);
+        Long n = jdbc.queryForObject("SELECT COUNT_BIG(*) FROM " + source + where, params, Long.class);
+        return n != null ? n : 0;
+    }
+
+    /** หน้าเดียวตาม start/length (OFFSET ... FETCH) */
+    public List<CustomerListRow> search(CustomerSearchCriteria c) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT " + COLUMNS + " FROM " + source + where(c, params)
+                + orderBy(c)
+                + " OFFSET :start ROWS FETCH NEXT :length ROWS ONLY";
+        params.addValue("start", Math.max(0, c.getStart()));
+        params.addValue("length", c.getPageSize());
+        return jdbc.query(sql, params, ROW_MAPPER);
+    }
+
+    /**
+     * หน้าถัดจากแถว after (keyset ตามลำดับ sort ของ criteria + customer_id, agreement_no) สำหรับอ่านทุกแถวทีละหน้า
+     * แต่ละหน้าเป็น query แยก: ไม่ถือ connection ค้างระหว่างที่ส่งแถวให้ client (ไม่ใช้ OFFSET ที่ช้าลงตามหน้า)
+     *
+     * @param after แถวสุดท้ายของหน้าก่อน (null = หน้าแรก)
+     */
+    public List<CustomerListRow> pageAfter(CustomerSearchCriteria c, CustomerListRow after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT TOP (:limit) " + COLUMNS + " FROM " + source + where(c, params)
+                + after(c, after, params) + orderBy(c);
+        params.addValue("limit", limit);
+        return jdbc.query(sql, params, ROW_MAPPER);
+    }
+
+    // ===================== full scan (สำหรับ in-memory index) =====================
+
+    /** อ่านทุกแถวแบบ streaming (ไม่สะสมเป็น List) เรียงตาม key เดียวกับ default order ของ search */
+    public void forEachRow(Consumer<CustomerListRow> action) {
+        jdbc.query("SELECT " + COLUMNS + " FROM " + source + " ORDER BY customer_id, agreement_no",
+                Map.of(), (RowCallbackHandler) rs -> action.accept(mapRow(rs, 0)));
+    }
+
+    /** แถวที่ update_date ตั้งแต่วันที่ since (รวมวันนั้น เพราะ update_date ละเอียดแค่ระดับวัน) */
+    public void forEachUpdatedSince(LocalDate since, Consumer<CustomerListRow> action) {
+        jdbc.query("SELECT " + COLUMNS + " FROM " + source + " WHERE update_date >= :since"
+                        + " ORDER BY customer_id, agreement_no",
+                Map.of("since", Date.valueOf(since)), (RowCallbackHandler) rs -> action.accept(mapRow(rs, 0)));
+    }
+
+    // ===================== SQL builders =====================
+
+    private static String where(CustomerSearchCriteria c, MapSqlParameterSource p) {
+        StringBuilder sb = new StringBuilder(" WHERE 1 = 1");
+        like(sb, p, "customer_id", "customerId", c.getCustomerId());
+        like(sb, p, "customer_name", "custName", c.getCustName());
+        equal(sb, p, "client_code", "client", c.getClient());
+        like(sb, p, "agreement_no", "agreementNo", c.getAgreementNo());
+        like(sb, p, "address", "address", c.getAddress());
+        like(sb, p, "zipcode", "zipcode", c.getZipcode());
+        equal(sb, p, "survey_type", "surveyType", c.getSurveyType());
+        equal(sb, p, "status", "jobStatus", c.getJobStatus());
+        range(sb, p, "created_date", "created", c.getCreatedFrom(), c.getCreatedTo());
+        range(sb, p, "update_date", "update", c.getUpdateFrom(), c.getUpdateTo());
+        return sb.toString();
+    }
+
+    /** collation ของ DB เป็น case-insensitive อยู่แล้ว ไม่ต้องครอบ LOWER() (ให้ใช้ index ได้) */
+    private static void like(StringBuilder sb, MapSqlParameterSource p, String column, String name, String value) {
+        if (value == null) return;
+        sb.append(" AND ").append(column).append(" LIKE :").append(name).append(" ESCAPE '\\'");
+        p.addValue(name, "%" + escapeLike(value) + "%");
+    }
+
+    /** เท่ากันตาม collation ของ DB (case-insensitive: "prmf" = "PRMF") */
+    private static void equal(StringBuilder sb, MapSqlParameterSource p, String column, String name, String value) {
+        if (value == null) return;
+        sb.append(" AND ").append(column).append(" = :").append(name);
+        p.addValue(name, value);
+    }
+
+    /** to รวมทั้งวัน: column &lt; to + 1 วัน (ใช้ได้ทั้ง DATE และ DATETIME) */
+    private static void range(StringBuilder sb, MapSqlParameterSource p, String column, String name,
+                              LocalDate from, LocalDate to) {
+        if (from != null) {
+            sb.append(" AND ").append(column).append(" >= :").append(name).append("From");
+            p.addValue(name + "From", Date.valueOf(from));
+        }
+        if (to != null) {
+            sb.append(" AND ").append(column).append(" < :").append(name).append("ToExcl");
+            p.addValue(name + "ToExcl", Date.valueOf(to.plusDays(1)));
+        }
+    }
+
+    /**
+     * แถวที่อยู่หลัง after ตาม orderBy — NULL ของ SQL Server น้อยที่สุด (ASC อยู่ต้น, DESC อยู่ท้าย)
+     * customer_id + agreement_no ถือว่าไม่ซ้ำและไม่ NULL (key ของ view)
+     */
+    private static String after(CustomerSearchCriteria c, CustomerListRow after, MapSqlParameterSource p) {
+        if (after == null) return "";
+        p.addValue("afterId", after.customerId());
+        p.addValue("afterAgreement", after.agreementNo());
+        String tie = "(customer_id > :afterId OR (customer_id = :afterId AND agreement_no > :afterAgreement))";
+
+        String column = SORTABLE.get(c.getSortField());
+        if (column == null) return " AND " + tie;
+        Object value = SORT_VALUE.get(c.getSortField()).apply(after);
+        p.addValue("afterValue", value);
+        String same = "(" + column + " = :afterValue AND " + tie + ")";
+        if (c.isSortDesc()) {
+            return (value == null)
+                    ? " AND " + column + " IS NULL AND " + tie
+                    : " AND (" + column + " < :afterValue OR " + column + " IS NULL OR " + same + ")";
+        }
+        return (value == null)
+                ? " AND (" + column + " IS NOT NULL OR (" + column + " IS NULL AND " + tie + "))"
+                : " AND (" + column + " > :afterValue OR " + same + ")";
+    }
+
+    private static String orderBy(CustomerSearchCriteria c) {
+        String column = SORTABLE.get(c.getSortField());
+        if (column == null) return " ORDER BY customer_id, agreement_no";
+        // tie-breaker ให้ลำดับคงที่ระหว่างหน้า
+        return " ORDER BY " + column + (c.isSortDesc() ? " DESC" : " ASC") + ", customer_id, agreement_no";
+    }
+
+    static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_").replace("[", "\\[");
+    }
+
+    private static CustomerListRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Date created = rs.getDate("created_date");
+        Date updated = rs.getDate("update_date");
+        return new CustomerListRow(
+                rs.getString("customer_id"),
+                rs.getString("customer_name"),
+                rs.getString("status"),
+                rs.getString("appointment_date"),
+                rs.getString("survey_type"),
+                rs.getString("client_name"),
+                rs.getString("client_code"),
+                rs.getBigDecimal("os_balance"),
+                rs.getString("agreement_no"),
+                created != null ? created.toLocalDate() : null,
+                updated != null ? updated.toLocalDate() : null,
+                rs.getString("collector_result"),
+                rs.getString("collector_remark"),
+                rs.getString("address"),
+                rs.getString("zipcode"));
+    }
+}
@@ -0,0 +1,14 @@
+package com.aeon.acss.fdu.model.dto;
+
+import java.util.List;
+
+/**
+ * ผลค้นหา 1 หน้า ตาม DataTables server-side protocol
+ * (recordsTotal = ทั้งหมดก่อน filter, recordsFiltered = หลัง filter)
+ */
+public record CustomerSearchResult(
+        int draw,
+        long recordsTotal,
+        long recordsFiltered,
+        List<CustomerListRow> data) {
+}
@@ -0,0 +1,115 @@
+package com.aeon.acss.fdu.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchCriteria;
+import com.aeon.acss.fdu.model.dto.CustomerSearchResult;
+import com.aeon.acss.fdu.repository.CustomerSearchRepository;
+import com.aeon.acss.fdu.search.CustomerSearchIndex;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * metrics: fdu.customer.search (latency) และ fdu.customer.search.matches (recordsFiltered)
+ * tag filters = ชุดเงื่อนไขที่ใช้ ({@link CustomerSearchCriteria#filterKey()}), source = index/sql
+ * สองตัวนี้ไม่มี percentile histogram (application.properties) — ชุดเงื่อนไขมีหลายแบบ
+ * ถ้าคูณ bucket ของ histogram เข้าไปด้วยจำนวน series จะบาน เหลือแค่ count/sum/max ต่อชุดเงื่อนไข
+ */
+@Slf4j
+@Service
+public class CustomerSearchService {
+
+    // แถวต่อ query ของ forEach (ผ่าน SQL)
+    private static final int STREAM_PAGE = 1000;
+
+    private final CustomerSearchRepository repo;
+    private final CustomerSearchIndex index;
+    private final MeterRegistry meters;
+
+    public CustomerSearchService(CustomerSearchRepository repo, CustomerSearchIndex index, MeterRegistry meters) {
+        this.repo = repo;
+        this.index = index;
+        this.meters = meters;
+    }
+
+    /** ใช้ in-memory index เมื่อโหลดเสร็จแล้ว ไม่งั้นค้นหาผ่าน SQL */
+    @Transactional(readOnly = true)
+    public CustomerSearchResult search(CustomerSearchCriteria c) {
+        long started = System.nanoTime();
+
+        if (index.isReady()) {
+            CustomerSearchResult result = index.search(c);
+            record(c, "index", started, result);
+            log.debug("Customer search (index) [{}]: {} of {} (total {}) in {} ms", c.filterKey(),
+                    result.data().size(), result.recordsFiltered(), result.recordsTotal(), (System.nanoTime() - started) / 1_000_000);
+            return result;
+        }
+
+        long total = repo.countAll();
+        // ไม่มีเงื่อนไขเลย -> filtered = total ไม่ต้อง count ซ้ำ
+        long filtered = c.hasFilter() ? repo.count(c) : total;
+        List<CustomerListRow> page = (filtered == 0 || c.getStart() >= filtered) ? List.of() : repo.search(c);
+
+        CustomerSearchResult result = new CustomerSearchResult(c.getDraw(), total, filtered, page);
+        record(c, "sql", started, result);
+        log.debug("Customer search (sql) [{}]: {} of {} (total {}) in {} ms", c.filterKey(), page.size(), filtered, total,
+                (System.nanoTime() - started) / 1_000_000);
+        return result;
+    }
+
+    private void record(CustomerSearchCriteria c, String source, long startedNanos, CustomerSearchResult result) {
+        String filters = c.filterKey();
+        Timer.builder("fdu.customer.search")
+                .description("Customer list search latency by filter combination")
+                .tags("filters", filters, "source", source)
+                .register(meters)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("fdu.customer.search.matches")
+                .description("Rows matching a customer list search")
+                .baseUnit("rows")
+                .tags("filters", filters, "source", source)
+                .register(meters)
+                .record(result.recordsFiltered());
+    }
+
+    /** ทุกแถวที่ตรงเงื่อนไข (ไม่จำกัดจำนวน) — ดู {@link #forEach(CustomerSearchCriteria, long, Consumer)} */
+    public long forEach(CustomerSearchCriteria c, Consumer<CustomerListRow> action) {
+        return forEach(c, Long.MAX_VALUE, action);
+    }
+
+    /**
+     * ส่งแถวที่ตรงเงื่อนไข (ไม่ตัดหน้า) ให้ action ทีละแถว สำหรับ streaming/export
+     * ผ่าน SQL อ่านทีละหน้า (keyset) นอก transaction — connection คืน pool ระหว่างที่ action เขียนให้ client ช้า ๆ
+     *
+     * @param limit จำนวนแถวสูงสุด
+     * @return จำนวนแถวที่ส่ง
+     */
+    public long forEach(CustomerSearchCriteria c, long limit, Consumer<CustomerListRow> action) {
+        if (index.isReady()) {
+            List<CustomerListRow> rows = index.matchAll(c);
+            if (rows.size() > limit) rows = rows.subList(0, (int) limit);
+            rows.forEach(action);
+            return rows.size();
+        }
+        long count = 0;
+        CustomerListRow last = null;
+        while (count < limit) {
+            int n = (int) Math.min(STREAM_PAGE, limit - count);
+            List<CustomerListRow> page = repo.pageAfter(c, last, n);
+            page.forEach(action);
+            count += page.size();
+            if (page.size() < n) break;
+            last = page.get(page.size() - 1);
+        }
+        return count;
+    }
+}
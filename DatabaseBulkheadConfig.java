@@ -0,0 +1,82 @@
+package com.aeon.acss.fdu.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ครอบ DataSource ด้วย {@link BulkheadDataSource} เมื่อ fdu.db.bulkhead.enabled=true
+ * (default ตาม spring.threads.virtual.enabled — virtual thread ไม่จำกัดจำนวน จึงต้องจำกัดงาน DB เอง)
+ *
+ * <p>จำนวน permit = fdu.db.bulkhead.max-concurrent หรือ (ถ้า 0) maximumPoolSize ของ Hikari หัก 1 ใน 5
+ * (อย่างน้อย 1) ไว้ให้ connection ซ้อนของ thread ที่ถือ permit อยู่แล้ว (REQUIRES_NEW) ไม่ต้องรอ pool
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "fdu.db.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceBulkhead(
+            @Value("${fdu.db.bulkhead.max-concurrent:0}") int maxConcurrent,
+            @Value("${fdu.db.bulkhead.acquire-timeout:PT10S}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource ds) || bean instanceof BulkheadDataSource) return bean;
+                int permits = (maxConcurrent > 0) ? maxConcurrent : belowPool(poolSize(ds));
+                log.info("Database bulkhead on '{}': {} concurrent connections, acquire timeout {}",
+                        beanName, permits, acquireTimeout);
+                return new BulkheadDataSource(ds, permits, acquireTimeout);
+            }
+        };
+    }
+
+    /** fdu.db.bulkhead.available / waiting (gauge) และ rejected (counter) */
+    @Bean
+    MeterBinder dataSourceBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof BulkheadDataSource b)) return;
+            Gauge.builder("fdu.db.bulkhead.available", b, BulkheadDataSource::getAvailable)
+                    .description("Free database permits")
+                    .register(registry);
+            Gauge.builder("fdu.db.bulkhead.waiting", b, BulkheadDataSource::getWaiting)
+                    .description("Threads waiting for a database permit")
+                    .register(registry);
+            FunctionCounter.builder("fdu.db.bulkhead.rejected", b, BulkheadDataSource::getRejected)
+                    .description("getConnection calls that timed out waiting for a permit")
+                    .register(registry);
+        };
+    }
+
+    static int belowPool(int poolSize) {
+        return Math.max(1, poolSize - Math.max(1, poolSize / 5));
+    }
+
+    private static int poolSize(DataSource ds) {
+        try {
+            if (ds.isWrapperFor(HikariDataSource.class)) {
+                // ยังไม่ตั้งค่า (-1) = Hikari ใช้ default ตอน start pool
+                int size = ds.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                if (size > 0) return size;
+            }
+        } catch (SQLException e) {
+            log.warn("Cannot read connection pool size: {}", e.getMessage());
+        }
+        return 10; // default ของ Hikari
+    }
+}
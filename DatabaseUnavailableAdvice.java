@@ -0,0 +1,32 @@
+package com.aeon.acss.fdu.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ได้ connection ไม่ทัน (bulkhead/pool เต็ม หรือ DB ติดต่อไม่ได้) -> 503 + Retry-After แทน 500
+ * ให้หน้าเว็บ/ผู้เรียกลองใหม่ได้
+ */
+@Slf4j
+@ControllerAdvice
+public class DatabaseUnavailableAdvice {
+
+    private static final String RETRY_AFTER_SECONDS = "2";
+
+    @ExceptionHandler({CannotGetJdbcConnectionException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<String> databaseUnavailable(RuntimeException e) {
+        log.warn("Database unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body("Database is busy, please try again.");
+    }
+}
@@ -0,0 +1,112 @@
+package com.aeon.acss.fdu.search;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * คอลัมน์วันที่ของ index: epoch-day ต่อ doc + doc id ที่เรียงตามวัน
+ *
+ * <p>ช่วงวันที่ตอบด้วย binary search บนส่วนที่เรียงแล้ว บวก scan ส่วนท้าย (doc ที่ต่อท้ายหลัง sort ครั้งล่าสุด)
+ * ส่วนท้ายจะถูก merge เข้าส่วนที่เรียงเมื่อยาวเกิน {@link #MAX_TAIL} (หรือ 1/8 ของส่วนที่เรียงแล้ว); ไม่ thread-safe
+ */
+final class DayColumn {
+
+    static final int NULL_DAY = Integer.MIN_VALUE;
+
+    private static final int MAX_TAIL = 4096;
+
+    private int[] dayOfDoc = new int[1024];
+    private int docCount;
+
+    // doc ที่มีวันที่ เรียงตาม (day, doc)
+    private long[] sorted = new long[0];
+    private int sortedCount;
+    private int sortedUpTo; // doc id < sortedUpTo อยู่ใน sorted แล้ว
+
+    /** doc ต้องต่อท้ายตามลำดับ (doc == จำนวน doc ปัจจุบัน) */
+    void add(int doc, LocalDate date) {
+        if (doc != docCount) throw new IllegalArgumentException("doc id must be appended in order: " + doc);
+        if (docCount == dayOfDoc.length) dayOfDoc = Arrays.copyOf(dayOfDoc, docCount * 2);
+        dayOfDoc[docCount++] = (date == null) ? NULL_DAY : Math.toIntExact(date.toEpochDay());
+        // ส่วนท้ายโตตามสัดส่วนของส่วนที่เรียงแล้ว -> merge แบบ amortized (ตอนโหลดครั้งแรกไม่ merge ทุก 4096 แถว)
+        if (docCount - sortedUpTo > Math.max(MAX_TAIL, sortedCount >>> 3)) merge();
+    }
+
+    int day(int doc) {
+        return dayOfDoc[doc];
+    }
+
+    boolean inRange(int doc, int fromDay, int toDay) {
+        int d = dayOfDoc[doc];
+        return d != NULL_DAY && d >= fromDay && d <= toDay;
+    }
+
+    /** จำนวน doc (รวมที่ลบแล้ว) ในช่วง [fromDay, toDay] ใช้เลือกเงื่อนไขที่แคบที่สุด */
+    int count(int fromDay, int toDay) {
+        int n = upper(toDay) - lower(fromDay);
+        for (int doc = sortedUpTo; doc < docCount; doc++) {
+            if (inRange(doc, fromDay, toDay)) n++;
+        }
+        return n;
+    }
+
+    /** doc id ในช่วง [fromDay, toDay] เรียงจากน้อยไปมาก */
+    int[] docs(int fromDay, int toDay) {
+        int lo = lower(fromDay);
+        int hi = upper(toDay);
+        int[] out = new int[hi - lo + (docCount - sortedUpTo)];
+        int n = 0;
+        for (int i = lo; i < hi; i++) out[n++] = (int) sorted[i];
+        for (int doc = sortedUpTo; doc < docCount; doc++) {
+            if (inRange(doc, fromDay, toDay)) out[n++] = doc;
+        }
+        Arrays.sort(out, 0, n);
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    static int fromDay(LocalDate from) {
+        return (from == null) ? Integer.MIN_VALUE + 1 : Math.toIntExact(from.toEpochDay());
+    }
+
+    static int toDay(LocalDate to) {
+        return (to == null) ? Integer.MAX_VALUE : Math.toIntExact(to.toEpochDay());
+    }
+
+    /** เรียกหลังโหลดครั้งแรกเสร็จ (หรือเมื่อส่วนท้ายยาวเกิน) */
+    void merge() {
+        int tail = 0;
+        long[] added = new long[docCount - sortedUpTo];
+        for (int doc = sortedUpTo; doc < docCount; doc++) {
+            if (dayOfDoc[doc] != NULL_DAY) added[tail++] = entry(dayOfDoc[doc], doc);
+        }
+        Arrays.sort(added, 0, tail);
+
+        long[] merged = new long[sortedCount + tail];
+        int i = 0, j = 0, n = 0;
+        while (i < sortedCount && j < tail) merged[n++] = (sorted[i] <= added[j]) ? sorted[i++] : added[j++];
+        while (i < sortedCount) merged[n++] = sorted[i++];
+        while (j < tail) merged[n++] = added[j++];
+
+        sorted = merged;
+        sortedCount = n;
+        sortedUpTo = docCount;
+    }
+
+    // (day << 32 | doc) เรียงตาม day แล้ว doc; day เป็น signed จึงเรียงถูกทั้งก่อน/หลัง 1970
+    private static long entry(int day, int doc) {
+        return ((long) day << 32) | (doc & 0xFFFFFFFFL);
+    }
+
+    private int lower(int fromDay) {
+        return search(entry(fromDay, 0));
+    }
+
+    private int upper(int toDay) {
+        return (toDay == Integer.MAX_VALUE) ? sortedCount : search(entry(toDay + 1, 0));
+    }
+
+    private int search(long key) {
+        int i = Arrays.binarySearch(sorted, 0, sortedCount, key);
+        return (i >= 0) ? i : -i - 1;
+    }
+}
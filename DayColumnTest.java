@@ -0,0 +1,79 @@
+package com.aeon.acss.fdu.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * ช่วงวันที่จากส่วนที่เรียงแล้ว + ส่วนท้ายที่ยังไม่ merge, วันว่าง และวันก่อน 1970
+ */
+class DayColumnTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void rangeCoversSortedPartAndUnmergedTail() {
+        DayColumn column = new DayColumn();
+        for (int doc = 0; doc < 10; doc++) column.add(doc, JAN_1.plusDays(9 - doc));
+        column.merge();
+        // ส่วนท้าย: ยังไม่ถูก merge
+        column.add(10, JAN_1.plusDays(3));
+        column.add(11, null);
+
+        int from = DayColumn.fromDay(JAN_1.plusDays(2));
+        int to = DayColumn.toDay(JAN_1.plusDays(4));
+
+        assertThat(column.count(from, to)).isEqualTo(4);
+        assertThat(column.docs(from, to)).containsExactly(5, 6, 7, 10);
+
+        column.merge();
+        assertThat(column.docs(from, to)).containsExactly(5, 6, 7, 10);
+        assertThat(column.count(from, to)).isEqualTo(4);
+    }
+
+    @Test
+    void openEndsIncludeEveryDatedDocButNotNulls() {
+        DayColumn column = new DayColumn();
+        column.add(0, JAN_1);
+        column.add(1, null);
+        column.add(2, LocalDate.of(1965, 6, 30));
+        column.add(3, LocalDate.of(2100, 12, 31));
+        column.merge();
+
+        int all = DayColumn.fromDay(null);
+        int any = DayColumn.toDay(null);
+
+        assertThat(column.docs(all, any)).containsExactly(0, 2, 3);
+        assertThat(column.day(1)).isEqualTo(DayColumn.NULL_DAY);
+        assertThat(column.inRange(1, all, any)).isFalse();
+        // ก่อน 1970 (epoch day ติดลบ) เรียงถูก
+        assertThat(column.docs(all, DayColumn.toDay(LocalDate.of(1999, 1, 1)))).containsExactly(2);
+        assertThat(column.docs(DayColumn.fromDay(JAN_1), any)).containsExactly(0, 3);
+    }
+
+    @Test
+    void longTailIsMergedAutomatically() {
+        DayColumn column = new DayColumn();
+        int docs = 20_000;
+        for (int doc = 0; doc < docs; doc++) column.add(doc, JAN_1.plusDays(doc % 365));
+
+        int from = DayColumn.fromDay(JAN_1.plusDays(10));
+        int to = DayColumn.toDay(JAN_1.plusDays(10));
+        int[] expected = IntStream.range(0, docs).filter(d -> d % 365 == 10).toArray();
+
+        assertThat(column.docs(from, to)).containsExactly(expected);
+        assertThat(column.count(from, to)).isEqualTo(expected.length);
+    }
+
+    @Test
+    void docsMustBeAppendedInOrder() {
+        DayColumn column = new DayColumn();
+        column.add(0, JAN_1);
+
+        assertThatThrownBy(() -> column.add(2, JAN_1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,408 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * อ่านไฟล์ CSV/TSV (UTF-8) แบบ memory-map แล้ว parse ขนานทีละ chunk — ผลเหมือน {@link XlsxStreamReader}:
+ * header 2 แถวแรก (กลุ่ม / คอลัมน์) ผ่าน {@link TemplateRegistry}, แถวข้อมูลยาวเท่าจำนวนคอลัมน์ และข้ามแถวว่าง
+ *
+ * <p>รอบแรก scan byte ตามลำดับ (ไม่ decode) หาจุดตัด chunk ที่ต้นบรรทัด นอก quoted field และนับจำนวนแถว
+ * รอบสอง parse แต่ละ chunk ขนานกันบน executor แล้วส่งแถวให้ handler ตามลำดับเดิม
+ * ตัดที่ '\n' เท่านั้น จึงไม่ผ่ากลาง UTF-8 หลาย byte (ภาษาไทย)
+ *
+ * <p>chunk ที่ parse แล้วค้างเป็น String ใน memory จนกว่า handler จะรับไป (หลายเท่าของขนาดไฟล์ส่วนนั้น)
+ * จึงจำกัดจำนวน byte ของ chunk ที่ค้างอยู่รวมทุกไฟล์ที่อ่านพร้อมกันด้วย window เดียว (maxInFlightBytes)
+ * ไม่ใช่ต่อไฟล์ — งานที่ยังมี chunk ค้างอยู่ไม่รอ window (รับแถวของตัวเองก่อน) จึงไม่ล็อกกันเอง
+ */
+public class DelimitedFileReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    // MappedByteBuffer index เป็น int -> map ทีละไม่เกิน 1GB
+    private static final long MAX_REGION = 1L << 30;
+    private static final int MAX_CHUNK = 256 << 20;
+    private static final int HEADER_WINDOW = 1 << 20;
+
+    private final TemplateRegistry templates;
+    private final Executor executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int windowBytes;
+    private final Semaphore window;
+
+    /**
+     * @param maxInFlightBytes byte ของ chunk ที่ parse แล้วแต่ handler ยังไม่รับ รวมทุกไฟล์ (อย่างน้อย 1 chunk)
+     */
+    public DelimitedFileReader(TemplateRegistry templates, Executor executor, int parallelism, int chunkSize,
+                               int maxInFlightBytes) {
+        this.templates = templates;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.min(MAX_CHUNK, Math.max(64 * 1024, chunkSize));
+        this.windowBytes = Math.max(this.chunkSize, maxInFlightBytes);
+        this.window = new Semaphore(windowBytes, true);
+    }
+
+    /** .csv / .tsv / .txt */
+    public static boolean accepts(String fileName) {
+        String ext = extension(fileName);
+        return ext.equals("csv") || ext.equals("tsv") || ext.equals("txt");
+    }
+
+    /**
+     * @param fileName ชื่อไฟล์เดิม (.tsv = tab, นอกนั้นดูจากบรรทัดแรกว่าใช้ , ; หรือ tab)
+     * @return headers ที่ resolve แล้ว (เหมือน XlsxStreamReader)
+     */
+    public List<String> read(Path file, String fileName, XlsxStreamReader.RowHandler handler) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return new ArrayList<>();
+
+            // BOM + header 2 แถว
+            MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_WINDOW));
+            int bom = hasBom(head) ? 3 : 0;
+            byte delimiter = extension(fileName).equals("tsv") ? (byte) '\t' : sniff(head, bom);
+
+            ChunkParser header = new ChunkParser(head.slice(bom, head.limit() - bom), delimiter);
+            List<String> row1 = header.next();
+            List<String> row2 = header.next();
+            if (header.truncated() && head.limit() < size) {
+                throw new IOException("Header row is longer than " + HEADER_WINDOW + " bytes");
+            }
+            long dataStart = bom + header.position();
+
+            int columnCount = Math.max(row1 != null ? row1.size() : 0, row2 != null ? row2.size() : 0);
+            HeaderLayout layout = templates.layout(row1, row2, columnCount);
+            handler.columns(layout);
+
+            Scan scan = scan(ch, dataStart, size, delimiter);
+            handler.expectedRows(scan.records);
+            emitChunks(ch, scan.boundaries, delimiter, columnCount, handler);
+
+            List<String> headers = layout.headers(0, mergedGroups(row1, columnCount));
+            handler.finished(headers);
+            return headers;
+        }
+    }
+
+    // ===================== pass 1: chunk boundaries =====================
+
+    private record Scan(long[] boundaries, long records) {
+    }
+
+    // state ของ scanner ต้องตรงกับ ChunkParser (quote เปิดได้เฉพาะต้น field)
+    private static final int FIELD_START = 0, UNQUOTED = 1, QUOTED = 2, QUOTE_IN_QUOTED = 3;
+
+    private Scan scan(FileChannel ch, long from, long size, byte delimiter) throws IOException {
+        long[] cuts = new long[16];
+        int n = 0;
+        cuts[n++] = from;
+        long nextCut = from + chunkSize;
+        long records = 0;
+        int state = FIELD_START;
+        boolean lineOpen = false;
+
+        for (long region = from; region < size; region += MAX_REGION) {
+            int len = (int) Math.min(MAX_REGION, size - region);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, region, len);
+            for (int i = 0; i < len; i++) {
+                byte b = buf.get(i);
+                boolean endOfRecord = false;
+                switch (state) {
+                    case FIELD_START -> {
+                        if (b == QUOTE) state = QUOTED;
+                        else if (b == LF) endOfRecord = true;
+                        else if (b != delimiter) state = UNQUOTED;
+                    }
+                    case UNQUOTED -> {
+                        if (b == delimiter) state = FIELD_START;
+                        else if (b == LF) endOfRecord = true;
+                    }
+                    case QUOTED -> {
+                        if (b == QUOTE) state = QUOTE_IN_QUOTED;
+                    }
+                    default -> {
+                        if (b == QUOTE) state = QUOTED; // "" = quote ใน field
+                        else if (b == delimiter) state = FIELD_START;
+                        else if (b == LF) endOfRecord = true;
+                        else state = UNQUOTED;
+                    }
+                }
+                if (!endOfRecord) {
+                    lineOpen = true;
+                    continue;
+                }
+                state = FIELD_START;
+                lineOpen = false;
+                records++;
+                long next = region + i + 1;
+                if (next >= nextCut && next < size) {
+                    if (n == cuts.length) cuts = Arrays.copyOf(cuts, n * 2);
+                    cuts[n++] = next;
+                    nextCut = next + chunkSize;
+                }
+            }
+        }
+        if (lineOpen) records++; // บรรทัดสุดท้ายไม่มี '\n'
+
+        if (n == cuts.length) cuts = Arrays.copyOf(cuts, n + 1);
+        cuts[n++] = size;
+        return new Scan(Arrays.copyOf(cuts, n), records);
+    }
+
+    // ===================== pass 2: parallel parse =====================
+
+    private void emitChunks(FileChannel ch, long[] bounds, byte delimiter, int columnCount,
+                            XlsxStreamReader.RowHandler handler) throws IOException {
+        Deque<InFlight> inFlight = new ArrayDeque<>();
+        int next = 0;
+        int chunks = bounds.length - 1;
+        try {
+            while (next < chunks || !inFlight.isEmpty()) {
+                while (next < chunks && inFlight.size() < parallelism * 2) {
+                    long start = bounds[next];
+                    long end = bounds[next + 1];
+                    // chunk ที่ยาวเกิน window (record ยาวมาก) นับเท่า window
+                    int bytes = (int) Math.min(end - start, windowBytes);
+                    if (!reserve(bytes, inFlight.isEmpty())) break;
+                    next++;
+                    inFlight.add(new InFlight(
+                            CompletableFuture.supplyAsync(() -> parseChunk(ch, start, end, delimiter), executor), bytes));
+                }
+                InFlight head = inFlight.poll();
+                try {
+                    for (List<String> cells : join(head.rows())) {
+                        emit(cells, columnCount, handler);
+                    }
+                } finally {
+                    window.release(head.bytes());
+                }
+            }
+        } finally {
+            // handler หยุดกลางทาง (ยกเลิก/error) -> ไม่ต้องรอ chunk ที่เหลือ
+            for (InFlight f : inFlight) {
+                f.rows().cancel(false);
+                window.release(f.bytes());
+            }
+        }
+    }
+
+    private record InFlight(CompletableFuture<List<List<String>>> rows, int bytes) {
+    }
+
+    /**
+     * จอง window สำหรับ chunk ถัดไป: ยังมี chunk ค้างอยู่ = ไม่รอ (ไปรับแถวที่ค้างก่อน),
+     * ไม่มีเลย = รอจนงานอื่นคืน window
+     */
+    private boolean reserve(int bytes, boolean idle) throws IOException {
+        if (!idle) return window.tryAcquire(bytes);
+        try {
+            window.acquire(bytes);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the CSV parse window");
+        }
+    }
+
+    private static List<List<String>> parseChunk(FileChannel ch, long start, long end, byte delimiter) {
+        try {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            ChunkParser p = new ChunkParser(buf, delimiter);
+            List<List<String>> rows = new ArrayList<>();
+            for (List<String> row = p.next(); row != null; row = p.next()) rows.add(row);
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<List<String>> join(CompletableFuture<List<List<String>>> chunk) throws IOException {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        }
+    }
+
+    /** กติกาเดียวกับ XlsxStreamReader.endRow: เติม/ตัดให้ยาวเท่า header แล้วข้ามแถวว่าง */
+    private static void emit(List<String> cells, int columnCount, XlsxStreamReader.RowHandler handler) {
+        List<String> line = new ArrayList<>(columnCount);
+        boolean blank = true;
+        for (int c = 0; c < columnCount; c++) {
+            String v = (c < cells.size()) ? cells.get(c) : "";
+            if (!v.isBlank()) blank = false;
+            line.add(v);
+        }
+        if (blank) return;
+        handler.row(line);
+    }
+
+    /**
+     * parse record จาก buffer (ตำแหน่ง 0..limit) ทีละแถว — field ที่ไม่มี quote สร้าง String จาก byte ตรง ๆ
+     * ส่วน quoted field คัดลอกลง scratch ที่ใช้ซ้ำ ไม่ thread-safe
+     */
+    private static final class ChunkParser {
+
+        private final ByteBuffer buf;
+        private final int limit;
+        private final byte delimiter;
+        private byte[] scratch = new byte[256];
+        private int pos;
+        private boolean truncated;
+
+        ChunkParser(ByteBuffer buf, byte delimiter) {
+            this.buf = buf;
+            this.limit = buf.limit();
+            this.delimiter = delimiter;
+        }
+
+        int position() {
+            return pos;
+        }
+
+        /** record สุดท้ายจบที่ปลาย buffer โดยไม่มี '\n' (อาจถูกตัดถ้า buffer ไม่ใช่ท้ายไฟล์) */
+        boolean truncated() {
+            return truncated;
+        }
+
+        /** record ถัดไป หรือ null ถ้าหมด */
+        List<String> next() {
+            if (pos >= limit) return null;
+            List<String> row = new ArrayList<>();
+            while (true) {
+                row.add(buf.get(pos) == QUOTE ? quoted() : unquoted());
+                if (pos >= limit) {
+                    truncated = true;
+                    return row;
+                }
+                byte b = buf.get(pos++);
+                if (b == LF) return row;
+                // b == delimiter: field ถัดไป (delimiter ตัวสุดท้ายของไฟล์ = field ว่างท้ายแถว)
+                if (pos >= limit) {
+                    row.add("");
+                    truncated = true;
+                    return row;
+                }
+            }
+        }
+
+        private String unquoted() {
+            int start = pos;
+            while (pos < limit) {
+                byte b = buf.get(pos);
+                if (b == delimiter || b == LF) break;
+                pos++;
+            }
+            int end = pos;
+            if (end > start && buf.get(end - 1) == CR) end--; // CRLF
+            int len = end - start;
+            if (len == 0) return "";
+            ensure(len);
+            buf.get(start, scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private String quoted() {
+            pos++; // เปิด quote
+            int len = 0;
+            while (pos < limit) {
+                byte b = buf.get(pos++);
+                if (b == QUOTE) {
+                    if (pos < limit && buf.get(pos) == QUOTE) {
+                        pos++;
+                    } else {
+                        break;
+                    }
+                }
+                ensure(len + 1);
+                scratch[len++] = b;
+            }
+            // ข้อความหลังปิด quote (ไฟล์ไม่ตรง RFC) ต่อท้ายไว้ ไม่ทิ้ง
+            while (pos < limit) {
+                byte b = buf.get(pos);
+                if (b == delimiter || b == LF) break;
+                pos++;
+                if (b == CR && (pos >= limit || buf.get(pos) == LF)) continue;
+                ensure(len + 1);
+                scratch[len++] = b;
+            }
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int len) {
+            if (len > scratch.length) scratch = Arrays.copyOf(scratch, Math.max(len, scratch.length * 2));
+        }
+    }
+
+    // ===================== helpers =====================
+
+    private static boolean hasBom(MappedByteBuffer head) {
+        return head.limit() >= 3
+                && head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF;
+    }
+
+    /** ตัวคั่นที่พบมากที่สุดในบรรทัดแรก (นอก quote) ระหว่าง , ; และ tab */
+    private static byte sniff(MappedByteBuffer head, int from) {
+        int comma = 0, semicolon = 0, tab = 0;
+        boolean quoted = false;
+        for (int i = from; i < head.limit(); i++) {
+            byte b = head.get(i);
+            if (b == QUOTE) quoted = !quoted;
+            else if (quoted) continue;
+            else if (b == LF) break;
+            else if (b == ',') comma++;
+            else if (b == ';') semicolon++;
+            else if (b == '\t') tab++;
+        }
+        if (tab > comma && tab >= semicolon) return '\t';
+        if (semicolon > comma) return ';';
+        return ',';
+    }
+
+    /**
+     * CSV ไม่มี merged cells: Excel save ชื่อกลุ่มไว้ที่ช่องแรกของช่วงเท่านั้น
+     * จึงถือว่าช่องว่างที่ตามหลังชื่อกลุ่มในแถวบนเป็นช่วงเดียวกัน (เหมือน merge แนวนอน)
+     */
+    private static List<CellRangeAddress> mergedGroups(List<String> row1, int columnCount) {
+        List<CellRangeAddress> merged = new ArrayList<>();
+        if (row1 == null) return merged;
+        int start = -1;
+        for (int c = 0; c <= columnCount; c++) {
+            boolean filled = c < columnCount && c < row1.size() && !row1.get(c).isBlank();
+            if (c < columnCount && !filled) continue;
+            if (start >= 0 && c - 1 > start) merged.add(new CellRangeAddress(0, 0, start, c - 1));
+            start = c;
+        }
+        return merged;
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) return "";
+        int dot = fileName.lastIndexOf('.');
+        return (dot < 0) ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,106 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ไฟล์ใหญ่กว่า 1 chunk (ขั้นต่ำ 64KB): จุดตัด chunk ต้องไม่ตกกลาง quoted field ที่มีขึ้นบรรทัด/ตัวคั่น/quote
+ * และแถวต้องออกมาตามลำดับเดิมแม้ parse ขนาน
+ */
+class DelimitedFileReaderTest {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void quotedFieldsSpanningChunkBoundariesStayInOneRow() throws IOException {
+        List<List<String>> expected = new ArrayList<>();
+        StringBuilder csv = new StringBuilder("Customer,,\nCIF,Remark,Amount\n");
+        for (int r = 0; csv.length() < CHUNK * 5; r++) {
+            // remark ยาวไม่เท่ากันให้จุดตัดเลื่อนไปตกหลายตำแหน่งใน field
+            String remark = "line 1, \"นัดชำระ\" " + "x".repeat(r % 97) + "\nline 2;\tend";
+            expected.add(List.of("C" + r, remark, r + ".00"));
+            csv.append("C").append(r).append(",\"").append(remark.replace("\"", "\"\"")).append("\",")
+                    .append(r).append(".00").append((r % 3 == 0) ? "\r\n" : "\n");
+        }
+
+        Result result = read(csv.toString(), "remarks.csv", CHUNK);
+
+        assertThat(result.headers).containsExactly("Customer - CIF", "Customer - Remark", "Customer - Amount");
+        assertThat(result.expectedRows).isEqualTo(expected.size());
+        assertThat(result.rows).isEqualTo(expected);
+    }
+
+    @Test
+    void recordLongerThanTheWindowIsStillRead() throws IOException {
+        // field เดียวยาวกว่า window ทั้งหมด: chunk นั้นนับเท่า window ไม่รอไม่จบ
+        String huge = "\"" + "ก\n".repeat(CHUNK) + "\"";
+        String csv = "G\nA\n" + "before\n" + huge + "\n" + "after";
+
+        Result result = read(csv, "huge.csv", CHUNK);
+
+        assertThat(result.headers).containsExactly("G - A");
+        assertThat(result.rows).hasSize(3);
+        assertThat(result.rows.get(0)).containsExactly("before");
+        assertThat(result.rows.get(1).get(0)).hasSize(2 * CHUNK);
+        assertThat(result.rows.get(2)).containsExactly("after");
+    }
+
+    @Test
+    void tabSeparatedWithBomAndBlankLines() throws IOException {
+        String tsv = "\uFEFFGroup\t\nCIF\tName\n\nC1\t\"a\tb\"\n\t\nC2\tc";
+
+        Result result = read(tsv, "x.tsv", CHUNK);
+
+        assertThat(result.headers).containsExactly("Group - CIF", "Group - Name");
+        assertThat(result.rows).containsExactly(List.of("C1", "a\tb"), List.of("C2", "c"));
+    }
+
+    // ===================== helpers =====================
+
+    private static final class Result implements XlsxStreamReader.RowHandler {
+        final List<List<String>> rows = new ArrayList<>();
+        long expectedRows;
+        List<String> headers;
+
+        @Override
+        public void row(List<String> cells) {
+            rows.add(cells);
+        }
+
+        @Override
+        public void expectedRows(long n) {
+            expectedRows = n;
+        }
+    }
+
+    private Result read(String content, String fileName, int windowBytes) throws IOException {
+        Path file = dir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        DelimitedFileReader reader = new DelimitedFileReader(new TemplateRegistry(), pool, 4, CHUNK, windowBytes);
+        Result result = new Result();
+        result.headers = reader.read(file, fileName, result);
+        return result;
+    }
+}
@@ -0,0 +1,223 @@
+package com.aeon.acss.fdu.search;
+
+import java.util.Arrays;
+
+/**
+ * bitmap ของ doc id แบบ roaring: แบ่ง id เป็นช่วงละ 65536 (16 bit บน = key)
+ * แต่ละช่วงเก็บเป็น array ของ 16 bit ล่าง (ถ้ามีไม่เกิน 4096 ตัว) หรือ bitmap 8 KB (ถ้าหนาแน่น)
+ *
+ * <p>ค่าที่มีแถวน้อย (เช่น client เล็ก ๆ) จึงไม่กิน bitmap เต็มขนาดเท่าจำนวนแถว
+ * ไม่ thread-safe — ผู้ใช้คุมการเขียนเอง
+ */
+final class DocBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    private int cardinality;
+
+    void add(int doc) {
+        char key = (char) (doc >>> 16);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, key, new ArrayContainer());
+        }
+        Container c = containers[i];
+        int before = c.cardinality();
+        containers[i] = c.add((char) doc);
+        if (containers[i].cardinality() > before) cardinality++;
+    }
+
+    boolean contains(int doc) {
+        int i = indexOf((char) (doc >>> 16));
+        return i >= 0 && containers[i].contains((char) doc);
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /** AND ของ 2 bitmap (ไม่แก้ตัวเดิม) */
+    DocBitmap and(DocBitmap other) {
+        DocBitmap out = new DocBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) i++;
+            else if (keys[i] > other.keys[j]) j++;
+            else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) {
+                    out.insertAt(out.size, keys[i], c);
+                    out.cardinality += c.cardinality();
+                }
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** doc id ทั้งหมด เรียงจากน้อยไปมาก */
+    int[] toArray() {
+        int[] out = new int[cardinality];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n = containers[i].copyTo(out, n, keys[i] << 16);
+        }
+        return out;
+    }
+
+    private int indexOf(char key) {
+        // doc id ส่วนใหญ่ต่อท้าย -> เช็ค container สุดท้ายก่อน
+        if (size > 0 && keys[size - 1] == key) return size - 1;
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    // ===================== containers =====================
+
+    private abstract static class Container {
+        abstract Container add(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract int copyTo(int[] out, int n, int high);
+    }
+
+    /** 16 bit ล่างที่เรียงแล้ว */
+    private static final class ArrayContainer extends Container {
+        char[] values = new char[4];
+        int n;
+
+        @Override
+        Container add(char low) {
+            int i = (n > 0 && values[n - 1] < low) ? -(n + 1) : Arrays.binarySearch(values, 0, n, low);
+            if (i >= 0) return this;
+            i = -i - 1;
+            if (n == ARRAY_MAX) return toBitmap().add(low);
+            if (n == values.length) values = Arrays.copyOf(values, Math.min(n * 2, ARRAY_MAX));
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = low;
+            n++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, n, low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer out = new ArrayContainer();
+            out.values = new char[Math.max(1, n)];
+            for (int i = 0; i < n; i++) {
+                if (other.contains(values[i])) out.values[out.n++] = values[i];
+            }
+            return out;
+        }
+
+        @Override
+        int copyTo(int[] out, int pos, int high) {
+            for (int i = 0; i < n; i++) out[pos++] = high | values[i];
+            return pos;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < n; i++) b.add(values[i]);
+            return b;
+        }
+    }
+
+    /** bitmap 65536 bit (1024 long) */
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int n;
+
+        @Override
+        Container add(char low) {
+            long bit = 1L << low;
+            int w = low >>> 6;
+            if ((words[w] & bit) == 0) {
+                words[w] |= bit;
+                n++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof BitmapContainer b) {
+                BitmapContainer out = new BitmapContainer();
+                for (int w = 0; w < words.length; w++) {
+                    out.words[w] = words[w] & b.words[w];
+                    out.n += Long.bitCount(out.words[w]);
+                }
+                if (out.n > ARRAY_MAX) return out;
+                ArrayContainer small = new ArrayContainer();
+                small.values = new char[Math.max(1, out.n)];
+                small.n = 0;
+                out.copyTo(small);
+                return small;
+            }
+            // array AND bitmap -> ผลไม่เกินฝั่ง array
+            return other.and(this);
+        }
+
+        @Override
+        int copyTo(int[] out, int pos, int high) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[pos++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return pos;
+        }
+
+        private void copyTo(ArrayContainer a) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    a.values[a.n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+}
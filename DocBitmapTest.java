@@ -0,0 +1,92 @@
+package com.aeon.acss.fdu.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * bitmap แบบ roaring: array -> bitmap เมื่อหนาแน่น, id ข้ามช่วง 65536 และ AND ทุกคู่ของ container
+ */
+class DocBitmapTest {
+
+    @Test
+    void addsAreKeptSortedAndDuplicatesIgnored() {
+        DocBitmap bitmap = bitmap(70_000, 5, 65_536, 5, 3, 1 << 20);
+
+        assertThat(bitmap.cardinality()).isEqualTo(5);
+        assertThat(bitmap.toArray()).containsExactly(3, 5, 65_536, 70_000, 1 << 20);
+        assertThat(bitmap.contains(65_536)).isTrue();
+        assertThat(bitmap.contains(4)).isFalse();
+        assertThat(bitmap.contains(65_540)).isFalse();
+    }
+
+    @Test
+    void denseRangeTurnsIntoABitmapContainer() {
+        DocBitmap bitmap = new DocBitmap();
+        // เกิน 4096 ตัวในช่วงเดียว (ใส่จากท้ายมาหน้า ไม่ใช่ต่อท้ายอย่างเดียว)
+        for (int doc = 9_999; doc >= 0; doc -= 2) bitmap.add(doc);
+        bitmap.add(9_999);
+
+        assertThat(bitmap.cardinality()).isEqualTo(5_000);
+        assertThat(bitmap.toArray()).containsExactly(IntStream.range(0, 5_000).map(i -> i * 2 + 1).toArray());
+        assertThat(bitmap.contains(9_999)).isTrue();
+        assertThat(bitmap.contains(9_998)).isFalse();
+    }
+
+    @Test
+    void andOfTwoSparseBitmaps() {
+        DocBitmap a = bitmap(1, 2, 3, 100_000, 200_000);
+        DocBitmap b = bitmap(2, 3, 4, 200_000, 300_000);
+
+        DocBitmap both = a.and(b);
+
+        assertThat(both.toArray()).containsExactly(2, 3, 200_000);
+        assertThat(both.cardinality()).isEqualTo(3);
+        // ตัวเดิมไม่ถูกแก้
+        assertThat(a.cardinality()).isEqualTo(5);
+    }
+
+    @Test
+    void andOfDenseAndSparseContainers() {
+        DocBitmap evens = new DocBitmap();
+        DocBitmap threes = new DocBitmap();
+        for (int doc = 0; doc < 30_000; doc++) {
+            if (doc % 2 == 0) evens.add(doc);
+            if (doc % 3 == 0) threes.add(doc);
+        }
+        DocBitmap few = bitmap(0, 6, 7, 29_994);
+
+        // bitmap AND bitmap ผลยังหนาแน่น (5000 ตัว > 4096)
+        DocBitmap sixes = evens.and(threes);
+        assertThat(sixes.cardinality()).isEqualTo(5_000);
+        assertThat(sixes.toArray()).containsExactly(IntStream.range(0, 5_000).map(i -> i * 6).toArray());
+
+        // array AND bitmap ได้ผลเดียวกันทั้งสองทิศ
+        assertThat(few.and(evens).toArray()).containsExactly(0, 6, 29_994);
+        assertThat(evens.and(few).toArray()).containsExactly(0, 6, 29_994);
+
+        // bitmap AND bitmap ที่ผลเหลือน้อย -> กลับเป็น array
+        DocBitmap high = new DocBitmap();
+        for (int doc = 25_000; doc < 30_000; doc++) high.add(doc);
+        DocBitmap small = sixes.and(high);
+        assertThat(small.cardinality()).isEqualTo(833);
+        assertThat(small.toArray()).startsWith(25_002).endsWith(29_994);
+    }
+
+    @Test
+    void andWithoutCommonRangesIsEmpty() {
+        DocBitmap both = bitmap(1, 2).and(bitmap(70_000));
+
+        assertThat(both.cardinality()).isZero();
+        assertThat(both.toArray()).isEmpty();
+        assertThat(both.contains(1)).isFalse();
+    }
+
+    private static DocBitmap bitmap(int... docs) {
+        DocBitmap bitmap = new DocBitmap();
+        for (int doc : docs) bitmap.add(doc);
+        return bitmap;
+    }
+}
@@ -0,0 +1,173 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * index ของ fingerprint แถว: key hash (CIF + agreement no.) -&gt; content hash ทั้งคู่ 64 bit
+ *
+ * <p>open addressing (linear probe) บน long[] 2 ตัว ไม่มี object ต่อแถว ค่า 0 สงวนไว้เป็นช่องว่าง
+ * (hash ที่ได้ 0 ถูกแทนด้วย 1) ไม่ thread-safe — 1 index เขียนจาก thread เดียว
+ */
+final class FingerprintIndex {
+
+    static final long ABSENT = 0;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char SEPARATOR = '\u001F';
+    private static final char NULL_CELL = '\u0000';
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    FingerprintIndex() {
+        this(1024);
+    }
+
+    private FingerprintIndex(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** content hash ของ key หรือ {@link #ABSENT} */
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != ABSENT; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return ABSENT;
+    }
+
+    /** ใส่ถ้ายังไม่มี คืนค่าเดิม (หรือ {@link #ABSENT} ถ้าใส่ใหม่) */
+    long putIfAbsent(long key, long hash) {
+        long old = get(key);
+        if (old == ABSENT) put(key, hash);
+        return old;
+    }
+
+    void put(long key, long hash) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != ABSENT && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == ABSENT) size++;
+        keys[i] = key;
+        values[i] = hash;
+    }
+
+    /** ลบแบบ backward shift (ไม่ทิ้ง tombstone) */
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == ABSENT) return;
+            i = (i + 1) & mask;
+        }
+        size--;
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != ABSENT; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            // เลื่อนมาเติมรูได้ถ้า home ไม่อยู่ระหว่าง (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = ABSENT;
+        values[hole] = ABSENT;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != ABSENT) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    // ===================== hashing =====================
+
+    /** key ของแถว (ค่าที่ trim แล้ว) หรือ {@link #ABSENT} ถ้าคอลัมน์ key ว่าง */
+    static long key(List<String> cells, int cifColumn, int agreementColumn) {
+        String cif = trimmed(cells, cifColumn);
+        String agreement = trimmed(cells, agreementColumn);
+        if (cif.isEmpty() || agreement.isEmpty()) return ABSENT;
+        long h = FNV_OFFSET;
+        h = fnv(h, cif);
+        h = fnv(h, SEPARATOR);
+        h = fnv(h, agreement);
+        return nonZero(mix(h));
+    }
+
+    /** hash ของทุก cell ตามลำดับ (ค่าดิบ ก่อน normalize) — คงที่ข้าม JVM/restart */
+    static long content(List<String> cells) {
+        long h = FNV_OFFSET;
+        for (String cell : cells) {
+            h = (cell == null) ? fnv(h, NULL_CELL) : fnv(h, cell);
+            h = fnv(h, SEPARATOR);
+        }
+        return nonZero(mix(h));
+    }
+
+    private static String trimmed(List<String> cells, int column) {
+        if (column < 0 || column >= cells.size() || cells.get(column) == null) return "";
+        return cells.get(column).trim();
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) h = fnv(h, s.charAt(i));
+        return h;
+    }
+
+    private static long fnv(long h, char c) {
+        h = (h ^ (c & 0xFF)) * FNV_PRIME;
+        return (h ^ (c >>> 8)) * FNV_PRIME;
+    }
+
+    // fmix64 ของ MurmurHash3: กระจาย bit ให้ linear probe ไม่จับกลุ่ม
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static long nonZero(long h) {
+        return (h == ABSENT) ? 1 : h;
+    }
+
+    // ===================== disk =====================
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == ABSENT) continue;
+            out.writeLong(keys[i]);
+            out.writeLong(values[i]);
+        }
+    }
+
+    static FingerprintIndex read(DataInput in) throws IOException {
+        int n = in.readInt();
+        FingerprintIndex index = new FingerprintIndex(Integer.highestOneBit(Math.max(512, n)) * 4);
+        for (int i = 0; i < n; i++) index.put(in.readLong(), in.readLong());
+        return index;
+    }
+}
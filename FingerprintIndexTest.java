@@ -0,0 +1,119 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * การลบแบบ backward shift ต้องไม่ทำให้ key ที่ probe ผ่านช่องที่ลบหาไม่เจอ
+ */
+class FingerprintIndexTest {
+
+    // capacity เริ่มต้น 1024: key ที่ 32 bit บนเป็น 0 ลง slot = key & 1023
+    private static final long A = 1, B = 1 + 1024, C = 1 + 2048, D = 2;
+
+    @Test
+    void removeShiftsCollidingKeysBack() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.put(A, 10);
+        index.put(B, 20);
+        index.put(D, 40); // home = 2 แต่ช่อง 2 ถูก B ใช้ -> ไปอยู่ช่อง 3
+        index.put(C, 30);
+
+        index.remove(A);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.get(A)).isEqualTo(FingerprintIndex.ABSENT);
+        assertThat(index.get(B)).isEqualTo(20);
+        assertThat(index.get(C)).isEqualTo(30);
+        assertThat(index.get(D)).isEqualTo(40);
+    }
+
+    @Test
+    void removeAcrossTheEndOfTheTable() {
+        FingerprintIndex index = new FingerprintIndex();
+        long last = 1023, wrapped = 1023 + 1024, home0 = 1024;
+        index.put(last, 1);
+        index.put(wrapped, 2); // วนไปช่อง 0
+        index.put(home0, 3);   // home = 0 -> ช่อง 1
+
+        index.remove(last);
+
+        assertThat(index.get(wrapped)).isEqualTo(2);
+        assertThat(index.get(home0)).isEqualTo(3);
+        index.remove(wrapped);
+        assertThat(index.get(home0)).isEqualTo(3);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removingMissingKeyIsNoOp() {
+        FingerprintIndex index = new FingerprintIndex();
+        index.put(A, 10);
+        index.remove(B);
+        index.remove(A);
+        index.remove(A);
+        assertThat(index.size()).isZero();
+        assertThat(index.putIfAbsent(A, 11)).isEqualTo(FingerprintIndex.ABSENT);
+        assertThat(index.get(A)).isEqualTo(11);
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() throws IOException {
+        Random random = new Random(42);
+        FingerprintIndex index = new FingerprintIndex();
+        Map<Long, Long> expected = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // key ช่วงแคบ ๆ ให้ชนกันบ่อย และผ่านการ grow หลายรอบ
+            keys.add((long) random.nextInt(1 << 14) + 1);
+        }
+        for (int step = 0; step < 50_000; step++) {
+            long key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                index.remove(key);
+                expected.remove(key);
+            } else {
+                long value = random.nextLong() | 1;
+                index.put(key, value);
+                expected.put(key, value);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(expected.size());
+        for (long key : keys) {
+            assertThat(index.get(key)).isEqualTo(expected.getOrDefault(key, FingerprintIndex.ABSENT));
+        }
+
+        FingerprintIndex copy = roundTrip(index);
+        assertThat(copy.size()).isEqualTo(expected.size());
+        expected.forEach((k, v) -> assertThat(copy.get(k)).isEqualTo(v));
+    }
+
+    @Test
+    void hashesIgnoreKeyWhitespaceButNotContent() {
+        List<String> row = List.of(" CIF1 ", "AG-01", "x");
+        assertThat(FingerprintIndex.key(row, 0, 1)).isEqualTo(FingerprintIndex.key(List.of("CIF1", "AG-01 "), 0, 1));
+        assertThat(FingerprintIndex.key(List.of("", "AG-01"), 0, 1)).isEqualTo(FingerprintIndex.ABSENT);
+        assertThat(FingerprintIndex.content(row)).isNotEqualTo(FingerprintIndex.content(List.of("CIF1", "AG-01", "x")));
+    }
+
+    private static FingerprintIndex roundTrip(FingerprintIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.write(out);
+        }
+        return FingerprintIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
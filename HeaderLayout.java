@@ -0,0 +1,162 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * header 2 แถวของ template ที่ compile แล้ว (cache ไว้ใน {@link TemplateRegistry})
+ *
+ * <p>เก็บ column index -&gt; field key และ rule ของแต่ละคอลัมน์ไว้เลย
+ * upload ครั้งต่อไปที่ใช้ template เดียวกันไม่ต้องวิเคราะห์ header ซ้ำ
+ */
+public final class HeaderLayout {
+
+    private final String fingerprint;
+    private final List<String> row1;
+    private final List<String> row2;
+    private final int columnCount;
+
+    private final List<String> rawHeaders;
+    private final String[] fieldKeys;
+
+    // validation plan (คู่ คอลัมน์ -> rule เรียงตามคอลัมน์)
+    private final int[] ruleColumns;
+    private final ColumnRule[] rules;
+    private final String[] ruleNames;
+
+    // merged regions อยู่ท้าย sheet -> resolve ชื่อ header เต็มทีหลัง แล้ว cache ตาม fingerprint ของ merge
+    private final Map<String, List<String>> resolved = new ConcurrentHashMap<>();
+
+    HeaderLayout(String fingerprint, List<String> row1, List<String> row2, int columnCount) {
+        this.fingerprint = fingerprint;
+        this.row1 = (row1 != null) ? List.copyOf(row1) : List.of();
+        this.row2 = (row2 != null) ? List.copyOf(row2) : List.of();
+        this.columnCount = columnCount;
+
+        List<String> raw = new ArrayList<>(columnCount);
+        fieldKeys = new String[columnCount];
+        List<Integer> cols = new ArrayList<>();
+        List<ColumnRule> ruleList = new ArrayList<>();
+        for (int c = 0; c < columnCount; c++) {
+            String sub = cell(this.row2, c).trim();
+            String h = !sub.isBlank() ? sub : cell(this.row1, c).trim();
+            raw.add(h);
+            fieldKeys[c] = ImportValidator.fieldKey(h);
+            for (ColumnRule r : ImportValidator.rulesFor(h)) {
+                cols.add(c);
+                ruleList.add(r);
+            }
+        }
+        rawHeaders = List.copyOf(raw);
+        ruleColumns = cols.stream().mapToInt(Integer::intValue).toArray();
+        rules = ruleList.toArray(new ColumnRule[0]);
+        ruleNames = Arrays.stream(ruleColumns).mapToObj(raw::get).toArray(String[]::new);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /** header แถวที่ 2 ตรง ๆ (หรือแถวแรกถ้าแถว 2 ว่าง) ยังไม่ resolve merged cells */
+    public List<String> getRawHeaders() {
+        return rawHeaders;
+    }
+
+    /** field key ของคอลัมน์ เช่น customer_id, post_code */
+    public String fieldKey(int column) {
+        return (column < fieldKeys.length) ? fieldKeys[column] : "";
+    }
+
+    /** คอลัมน์แรกที่มี field key นี้ (-1 ถ้าไม่มี) */
+    public int columnOf(String fieldKey) {
+        for (int c = 0; c < fieldKeys.length; c++) {
+            if (fieldKeys[c].equals(fieldKey)) return c;
+        }
+        return -1;
+    }
+
+    int[] ruleColumns() {
+        return ruleColumns;
+    }
+
+    ColumnRule[] rules() {
+        return rules;
+    }
+
+    String[] ruleNames() {
+        return ruleNames;
+    }
+
+    /**
+     * ชื่อ header เต็ม ("กลุ่ม - คอลัมน์") ตามกติกาเดิมของ upload
+     *
+     * @param firstRow แถวแรกของ sheet (header แถวบน)
+     */
+    public List<String> headers(int firstRow, List<CellRangeAddress> merged) {
+        List<CellRangeAddress> inHeader = new ArrayList<>();
+        StringBuilder key = new StringBuilder();
+        for (CellRangeAddress region : merged) {
+            if (region.getLastRow() < firstRow || region.getFirstRow() > firstRow + 1) continue;
+            if (region.getFirstColumn() >= columnCount) continue;
+            inHeader.add(region);
+            key.append(region.getFirstRow() - firstRow).append(':').append(region.getFirstColumn()).append(':')
+                    .append(region.getLastRow() - firstRow).append(':').append(region.getLastColumn()).append(';');
+        }
+        return resolved.computeIfAbsent(key.toString(), k -> resolve(firstRow, inHeader));
+    }
+
+    private List<String> resolve(int firstRow, List<CellRangeAddress> merged) {
+        // anchor ของแต่ละช่องใน 2 แถว header: lookup O(1) แทนการวนทุก merged region ต่อช่อง
+        String[][] anchor = new String[2][columnCount];
+        for (CellRangeAddress region : merged) {
+            String value = headerCell(region.getFirstRow() - firstRow, region.getFirstColumn());
+            for (int r = Math.max(region.getFirstRow(), firstRow); r <= Math.min(region.getLastRow(), firstRow + 1); r++) {
+                for (int c = region.getFirstColumn(); c <= Math.min(region.getLastColumn(), columnCount - 1); c++) {
+                    if (anchor[r - firstRow][c] == null) anchor[r - firstRow][c] = value;
+                }
+            }
+        }
+
+        List<String> headers = new ArrayList<>(columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            // รองรับ merged cells: ถ้าช่องว่าง จะไปดึงค่าจาก merged region
+            String top = mergedCell(anchor, 0, c).trim();
+            String sub = mergedCell(anchor, 1, c).trim();
+
+            // รวมชื่อ header
+            String finalHeader;
+            if (!top.isBlank() && !sub.isBlank()) finalHeader = top + " - " + sub;
+            else if (!sub.isBlank()) finalHeader = sub;
+            else finalHeader = top; // เผื่อกรณีมีแค่หัวบน
+
+            headers.add(finalHeader);
+        }
+        return List.copyOf(headers);
+    }
+
+    private String mergedCell(String[][] anchor, int row, int c) {
+        String v = headerCell(row, c);
+        if (!v.isBlank()) return v;
+        String a = anchor[row][c];
+        return (a != null) ? a : "";
+    }
+
+    /** row 0/1 = header แถวบน/ล่าง */
+    private String headerCell(int row, int c) {
+        List<String> r = (row == 0) ? row1 : (row == 1) ? row2 : List.of();
+        return cell(r, c);
+    }
+
+    private static String cell(List<String> row, int c) {
+        return (c < row.size() && row.get(c) != null) ? row.get(c) : "";
+    }
+}
@@ -1,234 +1,241 @@
 package com.aeon.acss.fdu.controller;
 
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.aeon.acss.fdu.importer.DelimitedFileReader;
+import com.aeon.acss.fdu.importer.ImportJob;
+import com.aeon.acss.fdu.importer.ImportJobService;
+import com.aeon.acss.fdu.importer.ImportPreviewService;
+import com.aeon.acss.fdu.importer.ImportStagingStore;
+import com.aeon.acss.fdu.importer.PersistReport;
+import com.aeon.acss.fdu.importer.StagedImport;
+
 import jakarta.servlet.http.HttpSession;
 
 @Controller
 @RequestMapping("/import-excel")
 public class ImportExcelController {
 
-  private static final String SESSION_FILE_NAME = "IMPORT_FILE_NAME";
-  private static final String SESSION_HEADERS   = "IMPORT_HEADERS";
-  private static final String SESSION_ROWS      = "IMPORT_ROWS";
+  // session เก็บแค่ id ของ import ตัวแถวอยู่ใน ImportStagingStore
+  private static final String SESSION_IMPORT_ID = "IMPORT_ID";
+  private static final String SESSION_JOB_ID    = "IMPORT_JOB_ID";
+  private static final String SESSION_SAVE_JOB_ID = "IMPORT_SAVE_JOB_ID";
+
+  private static final int PREVIEW_PAGE_SIZE = 50;
+
+  private final ImportStagingStore stagingStore;
+  private final ImportJobService importJobService;
+  private final ImportPreviewService previewService;
+
+  public ImportExcelController(ImportStagingStore stagingStore,
+                               ImportJobService importJobService,
+                               ImportPreviewService previewService) {
+    this.stagingStore = stagingStore;
+    this.importJobService = importJobService;
+    this.previewService = previewService;
+  }
 
   @GetMapping
   public String page(Model model, HttpSession session) {
     model.addAttribute("content", "import-excel :: content");
     model.addAttribute("activeMenu", "MAIN_IMPORT");
 
-    model.addAttribute("uploadedFileName", session.getAttribute(SESSION_FILE_NAME));
-    model.addAttribute("headers", session.getAttribute(SESSION_HEADERS));
-    model.addAttribute("rows", session.getAttribute(SESSION_ROWS));
+    // job เบื้องหลังของ session นี้ (ถ้ามี)
+    ImportJob job = importJobService.find((String) session.getAttribute(SESSION_JOB_ID), session.getId());
+    if (job != null && job.isFinished()) {
+      session.removeAttribute(SESSION_JOB_ID);
+      if (job.getState() == ImportJob.State.DONE) {
+        // upload ใหม่แทนของเดิม
+        stagingStore.delete((String) session.getAttribute(SESSION_IMPORT_ID));
+        session.setAttribute(SESSION_IMPORT_ID, job.getImportId());
+        if (!job.getSkippedSheets().isEmpty()) {
+          model.addAttribute("uploadWarning", "Imported sheets " + job.getSheets()
+              + ", skipped " + job.getSkippedSheets() + " (empty or different columns)");
+        }
+      } else if (job.getState() == ImportJob.State.FAILED) {
+        model.addAttribute("uploadError", "Upload failed: " + job.getError());
+      }
+      job = null;
+    }
+    model.addAttribute("importJob", job);
+
+    // save เบื้องหลังของ session นี้ (ถ้ามี)
+    ImportJob saveJob = importJobService.find((String) session.getAttribute(SESSION_SAVE_JOB_ID), session.getId());
+    if (saveJob != null && saveJob.isFinished()) {
+      session.removeAttribute(SESSION_SAVE_JOB_ID);
+      if (saveJob.getState() == ImportJob.State.DONE) {
+        saveResult(saveJob.getSaveReport(), model);
+      } else if (saveJob.getState() == ImportJob.State.FAILED) {
+        model.addAttribute("saveError", "Save failed: " + saveJob.getError() + " - save again to write the missing rows");
+      } else {
+        model.addAttribute("saveError", "Save cancelled after " + saveJob.getRowsParsed()
+            + " rows - save again to write the rest");
+      }
+      saveJob = null;
+    }
+    model.addAttribute("saveJob", saveJob);
+
+    // render แค่หน้าแรก ที่เหลือหน้าเว็บดึงผ่าน /import-excel/api/rows
+    StagedImport imp = currentImport(session);
+    List<ImportPreviewService.Row> rows = (imp != null)
+        ? previewService.page(imp, new ImportPreviewService.Query(0, -1, PREVIEW_PAGE_SIZE, null, -1, -1, false)).rows()
+        : List.of();
+
+    model.addAttribute("uploadedFileName", imp != null ? imp.getFileName() : null);
+    model.addAttribute("headers", imp != null ? imp.getHeaders() : null);
+    model.addAttribute("rows", rows);
+    model.addAttribute("validation", imp != null ? imp.getValidation() : null);
+    model.addAttribute("deltaMsg", imp != null && imp.getDelta() != null ? imp.getDelta().summary() : null);
 
     // rowCount (เผื่อใช้)
-    Object rowsObj = session.getAttribute(SESSION_ROWS);
-    int rowCount = (rowsObj instanceof List) ? ((List<?>) rowsObj).size() : 0;
-    model.addAttribute("rowCount", rowCount);
+    model.addAttribute("rowCount", imp != null ? imp.getRowCount() : 0);
+    model.addAttribute("pageSize", PREVIEW_PAGE_SIZE);
 
     return "layout/layout";
   }
 
   @PostMapping("/clear")
   public String clear(HttpSession session) {
-    session.removeAttribute(SESSION_FILE_NAME);
-    session.removeAttribute(SESSION_HEADERS);
-    session.removeAttribute(SESSION_ROWS);
+    stagingStore.delete((String) session.getAttribute(SESSION_IMPORT_ID));
+    session.removeAttribute(SESSION_IMPORT_ID);
     return "redirect:/import-excel";
   }
 
   @PostMapping("/save")
   public String save(HttpSession session, RedirectAttributes ra) {
-    // TODO: เอา rows ไปบันทึก DB
-    Object rowsObj = session.getAttribute(SESSION_ROWS);
-    int rowCount = (rowsObj instanceof List) ? ((List<?>) rowsObj).size() : 0;
-    ra.addFlashAttribute("saveMsg", "Saved " + rowCount + " rows");
+    StagedImport imp = currentImport(session);
+    if (imp == null) {
+      ra.addFlashAttribute("saveMsg", "Saved 0 rows");
+      return "redirect:/import-excel";
+    }
+
+    // บันทึกเบื้องหลัง (หน้าเว็บ poll สถานะเอง) — กดซ้ำระหว่างบันทึกได้ job เดิม
+    try {
+      ImportJob job = importJobService.submitSave(imp, session.getId());
+      session.setAttribute(SESSION_SAVE_JOB_ID, job.getId());
+    } catch (RejectedExecutionException e) {
+      ra.addFlashAttribute("saveError", "Server is busy importing other files, please try again later");
+    }
     return "redirect:/import-excel";
   }
 
-  @PostMapping("/upload")
+  private static void saveResult(PersistReport report, Model model) {
+    model.addAttribute("saveMsg", "Saved " + report.rowsWritten() + " rows ("
+        + report.rowsPerSecond() + " rows/sec)"
+        + (report.rowsSkipped() > 0 ? ", skipped " + report.rowsSkipped() + " invalid rows" : "")
+        + (report.rowsAlreadySaved() > 0 ? ", " + report.rowsAlreadySaved() + " rows were already saved" : ""));
+
+    if (!report.failures().isEmpty()) {
+      // แสดงแถวแบบ 1-based ให้ตรงกับ # ในตาราง
+      String detail = report.failures().stream()
+          .map(f -> "rows " + (f.firstRow() + 1) + "-" + (f.lastRow() + 1) + ": " + f.message())
+          .collect(Collectors.joining("; "));
+      model.addAttribute("saveError", report.rowsFailed() + " rows failed in "
+          + report.failures().size() + " chunk(s) - " + detail + " (save again to retry only these rows)");
+    }
+  }
 
+  @PostMapping("/upload")
   public String upload(@RequestParam("file") MultipartFile file,
-
+                       @RequestParam(defaultValue = "false") boolean allSheets,
+                       @RequestParam(defaultValue = "false") boolean changedOnly,
                        HttpSession session,
-
                        RedirectAttributes ra) {
 
     if (file == null || file.isEmpty()) {
-
-      ra.addFlashAttribute("uploadError", "Please choose an .xlsx file");
-
+      ra.addFlashAttribute("uploadError", "Please choose an .xlsx, .csv or .tsv file");
       return "redirect:/import-excel";
-
     }
 
-    try (InputStream is = file.getInputStream(); Workbook wb = new XSSFWorkbook(is)) {
-
-      Sheet sheet = wb.getSheetAt(0);
-
-      List<String> headers = new ArrayList<>();
-
-      List<List<String>> rows = new ArrayList<>();
-
-      int firstRow = sheet.getFirstRowNum();
-
-      // ====== Header 2 rows ======
-
-      Row headerRow1 = sheet.getRow(firstRow);       // กลุ่ม (Customer/Address) หรือหัวหลัก
-
-      Row headerRow2 = sheet.getRow(firstRow + 1);   // หัวคอลัมน์จริง (cif, customer_name, ...)
-
-      if (headerRow1 != null || headerRow2 != null) {
-
-        int lastCell1 = (headerRow1 != null) ? headerRow1.getLastCellNum() : 0;
-
-        int lastCell2 = (headerRow2 != null) ? headerRow2.getLastCellNum() : 0;
-
-        int lastCell = Math.max(lastCell1, lastCell2);
-
-        for (int c = 0; c < lastCell; c++) {
-
-          // รองรับ merged cells: ถ้าช่องว่าง จะไปดึงค่าจาก merged region
-
-          String top = getMergedCellString(sheet, firstRow, c);
-
-          String sub = getMergedCellString(sheet, firstRow + 1, c);
-
-          top = top == null ? "" : top.trim();
-
-          sub = sub == null ? "" : sub.trim();
-
-          // รวมชื่อ header
-
-          String finalHeader;
-
-          if (!top.isBlank() && !sub.isBlank()) finalHeader = top + " - " + sub;
-
-          else if (!sub.isBlank()) finalHeader = sub;
-
-          else finalHeader = top; // เผื่อกรณีมีแค่หัวบน
-
-          headers.add(finalHeader);
-
-        }
-
-      }
+    // spool ลง temp file แล้วให้ job parse เบื้องหลัง (หน้าเว็บ poll สถานะเอง)
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile("fdu-import-",
+          DelimitedFileReader.accepts(file.getOriginalFilename()) ? ".csv" : ".xlsx");
+      file.transferTo(tmp);
 
-      // ====== Data start after 2 header rows ======
+      ImportJob job = importJobService.submit(tmp, file.getOriginalFilename(), session.getId(),
+          allSheets, changedOnly);
+      tmp = null; // job เป็นเจ้าของไฟล์แล้ว
 
-      int firstDataRow = firstRow + 2;
-
-      int lastRow = sheet.getLastRowNum();
-
-      for (int r = firstDataRow; r <= lastRow; r++) {
-
-        Row row = sheet.getRow(r);
-
-        if (row == null) continue;
-
-        List<String> line = new ArrayList<>();
-
-        for (int c = 0; c < headers.size(); c++) {
-
-          line.add(getCellString(row.getCell(c)));
-
-        }
-
-        // ข้ามแถวว่างทั้งหมด
-
-        if (line.stream().allMatch(s -> s == null || s.isBlank())) continue;
-
-        rows.add(line);
-
-      }
-
-      session.setAttribute(SESSION_FILE_NAME, file.getOriginalFilename());
-
-      session.setAttribute(SESSION_HEADERS, headers);
-
-      session.setAttribute(SESSION_ROWS, rows);
+      importJobService.cancel((String) session.getAttribute(SESSION_JOB_ID), session.getId());
+      session.setAttribute(SESSION_JOB_ID, job.getId());
 
+    } catch (RejectedExecutionException e) {
+      ra.addFlashAttribute("uploadError", "Server is busy importing other files, please try again later");
     } catch (Exception e) {
-
       ra.addFlashAttribute("uploadError", "Upload failed: " + e.getMessage());
-
+    } finally {
+      deleteQuietly(tmp);
     }
 
     return "redirect:/import-excel";
-
   }
 
-  /** อ่าน cell แบบรองรับ merged cells (ถ้า cell ว่างแต่เป็น merged จะดึงค่าจากช่องต้นทาง) */
-
-	private String getMergedCellString(Sheet sheet, int rowIdx, int colIdx) {
-
-		Row row = sheet.getRow(rowIdx);
-
-		Cell cell = (row != null) ? row.getCell(colIdx) : null;
-
-		String v = getCellString(cell);
-
-		if (v != null && !v.isBlank())
-			return v;
-
-		// ถ้า blank ให้ลองหา merged region ที่ครอบอยู่
-
-		for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
-
-			CellRangeAddress region = sheet.getMergedRegion(i);
-
-			if (region.isInRange(rowIdx, colIdx)) {
-
-				Row r = sheet.getRow(region.getFirstRow());
-
-				if (r == null)
-					return "";
-
-				Cell firstCell = r.getCell(region.getFirstColumn());
-
-				return getCellString(firstCell);
-
-			}
-
-		}
-
-		return "";
-
-	}
-
-	private String getCellString(Cell cell) {
-
-		if (cell == null)
-			return "";
-
-		return switch (cell.getCellType()) {
-
-		case STRING -> cell.getStringCellValue();
-
-		case NUMERIC -> DateUtil.isCellDateFormatted(cell)
-
-				? String.valueOf(cell.getLocalDateTimeCellValue())
-
-				: String.valueOf(cell.getNumericCellValue());
+  // ===== Preview (JSON, ทีละหน้า) =====
+
+  // GET /import-excel/api/rows?offset=0&limit=50&filter=&filterColumn=-1&sortColumn=-1&dir=asc
+  @GetMapping("/api/rows")
+  @ResponseBody
+  public ResponseEntity<ImportPreviewService.Page> rows(
+      @RequestParam(defaultValue = "0") long offset,
+      @RequestParam(defaultValue = "-1") long after,
+      @RequestParam(defaultValue = "" + PREVIEW_PAGE_SIZE) int limit,
+      @RequestParam(required = false) String filter,
+      @RequestParam(defaultValue = "-1") int filterColumn,
+      @RequestParam(defaultValue = "-1") int sortColumn,
+      @RequestParam(defaultValue = "asc") String dir,
+      HttpSession session) {
+
+    StagedImport imp = currentImport(session);
+    if (imp == null) {
+      return ResponseEntity.notFound().build();
+    }
+    ImportPreviewService.Query q = new ImportPreviewService.Query(offset, after, limit, filter, filterColumn,
+        sortColumn, "desc".equalsIgnoreCase(dir));
+    return ResponseEntity.ok(previewService.page(imp, q));
+  }
 
-		case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+  // ===== Import job (poll) =====
 
-		case FORMULA -> cell.getCellFormula();
+  // GET /import-excel/jobs/{id} — เฉพาะ job ของ session นี้ (ของคนอื่น = 404)
+  @GetMapping("/jobs/{id}")
+  @ResponseBody
+  public ResponseEntity<ImportJob> job(@PathVariable String id, HttpSession session) {
+    ImportJob job = importJobService.find(id, session.getId());
+    return (job != null) ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+  }
 
-		default -> "";
+  // POST /import-excel/jobs/{id}/cancel
+  @PostMapping("/jobs/{id}/cancel")
+  @ResponseBody
+  public ResponseEntity<ImportJob> cancelJob(@PathVariable String id, HttpSession session) {
+    ImportJob job = importJobService.cancel(id, session.getId());
+    return (job != null) ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+  }
 
-		};
+  private StagedImport currentImport(HttpSession session) {
+    return stagingStore.find((String) session.getAttribute(SESSION_IMPORT_ID));
+  }
 
-	}
-}
\ No newline at end of file
+  private static void deleteQuietly(Path p) {
+    if (p == null) return;
+    try {
+      Files.deleteIfExists(p);
+    } catch (IOException ignore) {
+      // temp file จะถูกลบโดย OS ภายหลัง
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.aeon.acss.fdu.importer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * import ที่ parse (UPLOAD) หรือบันทึกลง DB (SAVE) อยู่เบื้องหลัง (สถานะให้หน้าเว็บ poll ผ่าน /import-excel/jobs/{id})
+ */
+@Getter
+public class ImportJob {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    public enum Kind { UPLOAD, SAVE }
+
+    private final String id;
+    private final Kind kind;
+    /** session ที่ upload (เห็น/ยกเลิก job ได้เฉพาะเจ้าของ) */
+    @JsonIgnore
+    private final String owner;
+    private final String fileName;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    // เขียนจาก worker thread (หลายตัวเมื่ออ่านทุก sheet) อ่านจาก request thread
+    // SAVE: แถว staging ที่บันทึกผ่านไปแล้ว
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private volatile long expectedRows = -1;
+
+    /** อ่านทุก sheet: ชื่อ sheet ที่นำเข้า และที่ข้าม (ไม่มีข้อมูล/header ไม่ตรง) */
+    private final boolean allSheets;
+    /** ส่งต่อเฉพาะแถวที่ใหม่/เปลี่ยนจาก upload ที่บันทึกล่าสุด ({@link RowFingerprintStore}) */
+    private final boolean delta;
+    private volatile List<String> sheets = List.of();
+    private volatile List<String> skippedSheets = List.of();
+
+    /** id ใน ImportStagingStore เมื่อ DONE (SAVE: import ที่กำลังบันทึก) */
+    private volatile String importId;
+    private volatile String error;
+    /** SAVE เมื่อ DONE */
+    private volatile PersistReport saveReport;
+
+    @JsonIgnore
+    private volatile boolean cancelRequested;
+
+    ImportJob(String id, String owner, String fileName, boolean allSheets, boolean delta) {
+        this(id, Kind.UPLOAD, owner, fileName, allSheets, delta);
+    }
+
+    private ImportJob(String id, Kind kind, String owner, String fileName, boolean allSheets, boolean delta) {
+        this.id = id;
+        this.kind = kind;
+        this.owner = owner;
+        this.fileName = fileName;
+        this.allSheets = allSheets;
+        this.delta = delta;
+    }
+
+    static ImportJob save(String id, String owner, StagedImport imp) {
+        ImportJob job = new ImportJob(id, Kind.SAVE, owner, imp.getFileName(), false, false);
+        job.importId = imp.getId();
+        job.expectedRows = imp.getRowCount();
+        return job;
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public boolean isOwnedBy(String who) {
+        return owner != null && owner.equals(who);
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    public long getRowsPerSecond() {
+        if (startedAt == null) return 0;
+        Instant end = (finishedAt != null) ? finishedAt : Instant.now();
+        long ms = Duration.between(startedAt, end).toMillis();
+        long rows = rowsParsed.get();
+        return ms == 0 ? rows : rows * 1000 / ms;
+    }
+
+    /** 0-100 หรือ -1 ถ้าไฟล์ไม่บอกจำนวนแถว */
+    public int getPercent() {
+        if (state == State.DONE) return 100;
+        if (expectedRows <= 0) return -1;
+        // <dimension> นับแถวว่างด้วย -> ไม่ให้ถึง 100 ก่อนจบจริง
+        return (int) Math.min(99, rowsParsed.get() * 100 / expectedRows);
+    }
+
+    // ===== updated by ImportJobService =====
+
+    void started() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void rowParsed() {
+        rowsParsed.incrementAndGet();
+    }
+
+    void rowsSaved(long rows) {
+        rowsParsed.set(rows);
+    }
+
+    void expectedRows(long rows) {
+        expectedRows = rows;
+    }
+
+    /** รวมจำนวนแถวที่คาดไว้ของแต่ละ sheet */
+    synchronized void addExpectedRows(long rows) {
+        expectedRows = Math.max(0, expectedRows) + rows;
+    }
+
+    void sheets(List<String> imported, List<String> skipped) {
+        this.sheets = List.copyOf(imported);
+        this.skippedSheets = List.copyOf(skipped);
+    }
+
+    void done(String importId) {
+        this.importId = importId;
+        finish(State.DONE);
+    }
+
+    void saved(PersistReport report) {
+        this.saveReport = report;
+        finish(State.DONE);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finish(State.FAILED);
+    }
+
+    void cancelled() {
+        finish(State.CANCELLED);
+    }
+
+    private void finish(State s) {
+        finishedAt = Instant.now();
+        state = s;
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+}
@@ -0,0 +1,428 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * parse ไฟล์ upload เบื้องหลัง (request thread แค่ spool ไฟล์แล้ว redirect กลับทันที)
+ *
+ * <p>executor จำกัดจำนวน parse พร้อมกันที่ fdu.import.jobs.max-concurrent
+ * และคิวรอได้ไม่เกิน fdu.import.jobs.max-queued งาน (เกินจะ reject)
+ * worker เป็น virtual thread เมื่อเปิด spring.threads.virtual.enabled (ไม่งั้น platform thread)
+ *
+ * <p>โหมดทุก sheet (1 sheet ต่อ client): อ่านทุก sheet พร้อมกันบน pool ขนาด fdu.import.sheets.parallelism
+ * (ใช้ร่วมทุก job) แต่ละแถวเติมคอลัมน์ Sheet/Client นำหน้า แล้วรวมเป็น import เดียวตามลำดับ sheet
+ *
+ * <p>โหมด delta (ผู้ใช้เลือกเองตอน upload, ปกติ = ทุกแถว): {@link RowFingerprintStore} กรองแถวที่เหมือน upload
+ * ที่บันทึกล่าสุดทิ้งก่อน validate/staging — เลขแถวใน error/preview/row_no ยังเป็นแถวในไฟล์ ({@link RowDelta#sourceRow})
+ *
+ * <p>save ลง DB ({@link #submitSave}) เป็น job ชนิด SAVE ในคิวเดียวกัน (ไม่บันทึกบน request thread)
+ * import หนึ่ง save ได้ทีละ job — กด save ซ้ำระหว่างที่ยังทำอยู่จะได้ job เดิมกลับไป
+ *
+ * <p>ไฟล์ .csv/.tsv/.txt อ่านด้วย {@link DelimitedFileReader} (memory-map, parse ทีละ chunk ขนานบน csvPool)
+ *
+ * <p>metrics: fdu.import.parse (เวลา parse ต่อไฟล์ ตาม outcome), fdu.import.rows (แถวต่อไฟล์),
+ * fdu.import.throughput (rows/sec), fdu.import.queue.wait, fdu.import.jobs.active/queued, fdu.import.rejected
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+
+    private static final Duration FINISHED_RETENTION = Duration.ofHours(1);
+
+    static final List<String> SHEET_HEADERS = List.of("Sheet", "Client");
+
+    // ชื่อ sheet "PRMF", "KBAF - Jan", "bmw1 (2)" -> client = token แรก
+    private static final Pattern CLIENT = Pattern.compile("[A-Za-z0-9]+");
+
+    private final ImportStagingStore stagingStore;
+    private final ImportValidator validator;
+    private final RowFingerprintStore fingerprints;
+    private final ImportPersistService persistService;
+    private final XlsxStreamReader xlsxReader;
+    private final DelimitedFileReader csvReader;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService sheetPool;
+    private final ExecutorService csvPool;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meters;
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public ImportJobService(ImportStagingStore stagingStore,
+                            ImportValidator validator,
+                            RowFingerprintStore fingerprints,
+                            ImportPersistService persistService,
+                            TemplateRegistry templates,
+                            MeterRegistry meters,
+                            @Value("${fdu.import.jobs.max-concurrent:2}") int maxConcurrent,
+                            @Value("${fdu.import.jobs.max-queued:20}") int maxQueued,
+                            @Value("${fdu.import.sheets.parallelism:4}") int sheetParallelism,
+                            @Value("${fdu.import.csv.parallelism:0}") int csvParallelism,
+                            @Value("${fdu.import.csv.chunk-size:8388608}") int csvChunkSize,
+                            @Value("${fdu.import.csv.max-in-flight-bytes:33554432}") int csvMaxInFlightBytes,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.stagingStore = stagingStore;
+        this.validator = validator;
+        this.fingerprints = fingerprints;
+        this.persistService = persistService;
+        this.xlsxReader = new XlsxStreamReader(templates);
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)),
+                threads("fdu-import-", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.sheetPool = Executors.newFixedThreadPool(Math.max(1, sheetParallelism),
+                threads("fdu-import-sheet-", virtualThreads));
+        // parse chunk เป็นงาน CPU ล้วน -> platform thread เท่าจำนวน CPU (0 = availableProcessors)
+        int csvThreads = (csvParallelism > 0) ? csvParallelism : Runtime.getRuntime().availableProcessors();
+        this.csvPool = Executors.newFixedThreadPool(csvThreads, threads("fdu-import-csv-", false));
+        this.csvReader = new DelimitedFileReader(templates, csvPool, csvThreads, csvChunkSize, csvMaxInFlightBytes);
+
+        this.meters = meters;
+        this.rejected = Counter.builder("fdu.import.rejected")
+                .description("Uploads rejected because the import queue was full")
+                .register(meters);
+        this.queueWait = Timer.builder("fdu.import.queue.wait")
+                .description("Time an upload waited for a parse worker")
+                .register(meters);
+        Gauge.builder("fdu.import.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Import jobs (parse or save) running right now")
+                .register(meters);
+        Gauge.builder("fdu.import.jobs.queued", executor, e -> e.getQueue().size())
+                .description("Import jobs (parse or save) waiting for a worker")
+                .register(meters);
+    }
+
+    /**
+     * ส่งไฟล์ (ที่ spool ไว้แล้ว) เข้าคิว parse — job เป็นเจ้าของ temp file และจะลบเองเมื่อจบ
+     *
+     * @param owner     ผู้ upload (session id) — find/cancel ด้วยคนอื่นจะไม่เจอ job
+     * @param allSheets true = นำเข้าทุก sheet ที่มีข้อมูล (header เดียวกับ sheet แรก) พร้อมคอลัมน์ Sheet/Client
+     * @param delta     true = staging เฉพาะแถวใหม่/เปลี่ยนจาก upload ที่บันทึกล่าสุด (template/client เดียวกัน)
+     * @throws RejectedExecutionException ถ้าคิวเต็ม
+     */
+    public ImportJob submit(Path file, String fileName, String owner, boolean allSheets, boolean delta) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), owner, fileName, allSheets, delta);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, file));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejected.increment();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * บันทึก import ลง DB เบื้องหลัง (ผลอยู่ใน {@link ImportJob#getSaveReport()})
+     * ถ้า import นี้มี save ที่ยังไม่จบอยู่แล้ว คืน job นั้นแทนการเริ่มใหม่
+     *
+     * @throws RejectedExecutionException ถ้าคิวเต็ม
+     */
+    public synchronized ImportJob submitSave(StagedImport imp, String owner) {
+        for (ImportJob j : jobs.values()) {
+            if (j.getKind() == ImportJob.Kind.SAVE && !j.isFinished() && imp.getId().equals(j.getImportId())) {
+                return j;
+            }
+        }
+        ImportJob job = ImportJob.save(UUID.randomUUID().toString(), owner, imp);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runSave(job, imp));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejected.increment();
+            throw e;
+        }
+        return job;
+    }
+
+    /** job ของ owner (null ถ้าไม่มี หรือเป็นของคนอื่น — ไม่บอกว่ามี id นี้อยู่) */
+    public ImportJob find(String id, String owner) {
+        ImportJob job = (id == null) ? null : jobs.get(id);
+        return (job != null && job.isOwnedBy(owner)) ? job : null;
+    }
+
+    public ImportJob cancel(String id, String owner) {
+        ImportJob job = find(id, owner);
+        if (job == null || job.isFinished()) return job;
+        // job ที่ยังรอคิวจะเห็น flag ตอนเริ่ม ส่วนที่กำลัง parse จะหยุดที่แถวถัดไป
+        job.requestCancel();
+        return job;
+    }
+
+    private void run(ImportJob job, Path file) {
+        try {
+            if (job.isCancelRequested()) {
+                job.cancelled();
+                return;
+            }
+            job.started();
+            if (job.isAllSheets() && !DelimitedFileReader.accepts(job.getFileName())) {
+                runSheets(job, file);
+                return;
+            }
+
+            try (ImportStagingStore.Writer writer = stagingStore.create(job.getFileName())) {
+                // parse -> (delta) -> validate/normalize (ขนาน) -> staging
+                ImportValidator.Stage validation = validator.stage(writer);
+                RowFingerprintStore.Filter delta = job.isDelta() ? fingerprints.filter("", validation) : null;
+                XlsxStreamReader.RowHandler sink = (delta != null) ? delta : validation;
+                XlsxStreamReader.RowHandler handler = new XlsxStreamReader.RowHandler() {
+                    @Override
+                    public void row(List<String> cells) {
+                        if (job.isCancelRequested()) throw new CancellationException();
+                        sink.row(cells);
+                        job.rowParsed();
+                    }
+
+                    @Override
+                    public void expectedRows(long rows) {
+                        job.expectedRows(rows);
+                    }
+
+                    @Override
+                    public void columns(HeaderLayout layout) {
+                        sink.columns(layout);
+                    }
+                };
+                List<String> headers = DelimitedFileReader.accepts(job.getFileName())
+                        ? csvReader.read(file, job.getFileName(), handler)
+                        : xlsxReader.read(file, handler);
+                ValidationReport report = validation.finish();
+                StagedImport imp = writer.finish(headers);
+                if (delta != null) {
+                    RowDelta changes = RowDelta.of(List.of(delta));
+                    imp.delta(changes);
+                    report = report.withSourceRows(changes::sourceRow);
+                }
+                imp.validated(report);
+                job.done(writer.getId());
+                log.debug("Import job {} ({}) done: {} rows, {} rows/sec, {} invalid rows",
+                        job.getId(), job.getFileName(), job.getRowsParsed(), job.getRowsPerSecond(),
+                        report.invalidRowCount());
+            }
+        } catch (CancellationException e) {
+            job.cancelled();
+        } catch (Exception e) {
+            log.warn("Import job {} ({}) failed", job.getId(), job.getFileName(), e);
+            job.failed(e.getMessage());
+        } finally {
+            stagingStore.deleteFile(file);
+            record(job);
+        }
+    }
+
+    private void runSave(ImportJob job, StagedImport imp) {
+        try {
+            if (job.isCancelRequested()) {
+                job.cancelled();
+                return;
+            }
+            job.started();
+            // ยกเลิกได้ระหว่าง chunk (chunk ที่ commit แล้วยังอยู่ save ใหม่จะเขียนต่อเฉพาะที่ขาด)
+            job.saved(persistService.persist(imp, rows -> {
+                if (job.isCancelRequested()) throw new CancellationException();
+                job.rowsSaved(rows);
+            }));
+        } catch (CancellationException e) {
+            job.cancelled();
+        } catch (Exception e) {
+            log.warn("Save job {} (import {}) failed", job.getId(), imp.getId(), e);
+            job.failed(e.getMessage());
+        }
+    }
+
+    private void runSheets(ImportJob job, Path file) throws IOException {
+        try (ImportStagingStore.SheetsWriter writer = stagingStore.createSheets(job.getFileName())) {
+            // แต่ละ sheet: parse -> validate -> เติม Sheet/Client -> part ของตัวเอง (บน thread ของ sheet)
+            Map<Integer, SheetPart> parts = new ConcurrentHashMap<>();
+            List<XlsxStreamReader.SheetResult> results = xlsxReader.readSheets(file, sheetPool, sheet -> {
+                try {
+                    SheetPart part = new SheetPart(sheet, validator, job.isDelta() ? fingerprints : null, job,
+                            writer.part(sheet.index()));
+                    parts.put(sheet.index(), part);
+                    return part;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            // sheet ข้อมูล = มีแถว และ header เหมือน sheet ข้อมูลแรก (sheet สรุป/หมายเหตุถูกข้าม)
+            List<String> headers = null;
+            List<ImportStagingStore.Writer> keep = new ArrayList<>();
+            List<ValidationReport> reports = new ArrayList<>();
+            List<RowFingerprintStore.Filter> deltas = new ArrayList<>();
+            List<String> imported = new ArrayList<>();
+            List<String> skipped = new ArrayList<>();
+            for (XlsxStreamReader.SheetResult r : results) {
+                SheetPart part = parts.get(r.sheet().index());
+                if (part.rows == 0 || (headers != null && !headers.equals(r.headers()))) {
+                    skipped.add(r.sheet().name());
+                    continue;
+                }
+                if (headers == null) headers = r.headers();
+                keep.add(part.writer);
+                reports.add(part.report);
+                if (part.delta != null) deltas.add(part.delta);
+                imported.add(r.sheet().name());
+            }
+
+            List<String> tagged = new ArrayList<>(SHEET_HEADERS);
+            if (headers != null) tagged.addAll(headers);
+            ValidationReport report = ImportValidator.concat(reports);
+            StagedImport imp = writer.finish(tagged, keep);
+            if (job.isDelta()) {
+                RowDelta changes = RowDelta.of(deltas);
+                imp.delta(changes);
+                report = report.withSourceRows(changes::sourceRow);
+            }
+            imp.validated(report);
+            job.sheets(imported, skipped);
+            job.done(writer.getId());
+            log.debug("Import job {} ({}) done: {} rows from sheets {} (skipped {}), {} rows/sec, {} invalid rows",
+                    job.getId(), job.getFileName(), job.getRowsParsed(), imported, skipped,
+                    job.getRowsPerSecond(), report.invalidRowCount());
+        }
+    }
+
+    /** client ของ sheet = token ตัวอักษร/ตัวเลขแรกของชื่อ (ตัวพิมพ์ใหญ่) */
+    static String clientOf(String sheetName) {
+        Matcher m = CLIENT.matcher(sheetName == null ? "" : sheetName);
+        return m.find() ? m.group().toUpperCase(Locale.ROOT) : "";
+    }
+
+    /** handler ของ sheet หนึ่ง: validate แล้วเติม Sheet/Client นำหน้า ก่อนเขียนลง part */
+    private static final class SheetPart implements XlsxStreamReader.RowHandler {
+
+        private final ImportJob job;
+        private final ImportStagingStore.Writer writer;
+        private final ImportValidator.Stage validation;
+        private final RowFingerprintStore.Filter delta; // null = ทุกแถว
+        private final XlsxStreamReader.RowHandler sink;
+        private ValidationReport report;
+        private long rows; // แถวที่อ่านได้ (ก่อนกรอง delta)
+
+        SheetPart(XlsxStreamReader.Sheet sheet, ImportValidator validator, RowFingerprintStore fingerprints,
+                  ImportJob job, ImportStagingStore.Writer writer) {
+            this.job = job;
+            this.writer = writer;
+            String name = sheet.name();
+            String client = clientOf(name);
+            this.validation = validator.stage(new XlsxStreamReader.RowHandler() {
+                @Override
+                public void row(List<String> cells) {
+                    List<String> row = new ArrayList<>(cells.size() + SHEET_HEADERS.size());
+                    row.add(name);
+                    row.add(client);
+                    row.addAll(cells);
+                    writer.row(row);
+                }
+            });
+            // fingerprint แยกตาม client ของ sheet (ก่อนเติม Sheet/Client)
+            this.delta = (fingerprints != null) ? fingerprints.filter("/" + client, validation) : null;
+            this.sink = (delta != null) ? delta : validation;
+        }
+
+        @Override
+        public void row(List<String> cells) {
+            if (job.isCancelRequested()) throw new CancellationException();
+            sink.row(cells);
+            rows++;
+            job.rowParsed();
+        }
+
+        @Override
+        public void expectedRows(long rows) {
+            job.addExpectedRows(rows);
+        }
+
+        @Override
+        public void columns(HeaderLayout layout) {
+            sink.columns(layout);
+        }
+
+        @Override
+        public void finished(List<String> headers) {
+            report = validation.finish();
+            writer.closePart();
+        }
+    }
+
+    private static ThreadFactory threads(String prefix, boolean virtual) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+
+    private void record(ImportJob job) {
+        if (job.getStartedAt() == null || job.getFinishedAt() == null) return; // ยกเลิกก่อนเริ่ม
+        String outcome = job.getState().name().toLowerCase(Locale.ROOT);
+
+        queueWait.record(Duration.between(job.getSubmittedAt(), job.getStartedAt()));
+        Timer.builder("fdu.import.parse")
+                .description("Parse + validate + stage time per uploaded file")
+                .tag("outcome", outcome)
+                .register(meters)
+                .record(Duration.between(job.getStartedAt(), job.getFinishedAt()));
+        DistributionSummary.builder("fdu.import.rows")
+                .description("Data rows per uploaded file")
+                .baseUnit("rows")
+                .tag("outcome", outcome)
+                .register(meters)
+                .record(job.getRowsParsed());
+        if (job.getState() == ImportJob.State.DONE) {
+            DistributionSummary.builder("fdu.import.throughput")
+                    .description("Parse throughput per uploaded file")
+                    .baseUnit("rows.per.second")
+                    .register(meters)
+                    .record(job.getRowsPerSecond());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fdu.import.staging.sweep-interval-ms:300000}")
+    public void evictFinished() {
+        Instant cutoff = Instant.now().minus(FINISHED_RETENTION);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+        sheetPool.shutdownNow();
+        csvPool.shutdownNow();
+    }
+}
@@ -0,0 +1,151 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * บันทึกแถวจาก staging store ลง DB ทีละ chunk (1 chunk = 1 JDBC batch = 1 transaction)
+ *
+ * <p>chunk ที่ fail จะ rollback เฉพาะ chunk นั้น แล้วทำ chunk ถัดไปต่อ
+ * แถวที่ไม่ผ่าน validation จะถูกข้าม
+ * ผลลัพธ์สรุปอยู่ใน {@link PersistReport}
+ * import แบบ delta: แถวที่บันทึกสำเร็จกลายเป็นฐานของการเทียบรอบหน้า ({@link RowFingerprintStore#accept})
+ * row_no ที่บันทึกและช่วงแถวใน {@link PersistReport.ChunkFailure} เป็นแถวในไฟล์ที่ upload ({@link StagedImport#sourceRow})
+ *
+ * <p>save ซ้ำได้: แถวที่ import นี้บันทึกไว้แล้ว ({@link ImportRowWriter#savedRows}) จะถูกข้าม
+ * save ใหม่หลัง chunk fail จึงเขียนเฉพาะช่วงที่ยังขาด และ save ซ้ำหลังสำเร็จไม่เขียนอะไร (ไม่ชน primary key)
+ * ห้าม persist import เดียวกันพร้อมกัน — เรียกผ่าน {@link ImportJobService#submitSave} ซึ่งให้ save ได้ทีละงานต่อ import
+ */
+@Slf4j
+@Service
+public class ImportPersistService {
+
+    private final ImportStagingStore stagingStore;
+    private final ImportRowWriter writer;
+    private final RowFingerprintStore fingerprints;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    public ImportPersistService(ImportStagingStore stagingStore,
+                                ImportRowWriter writer,
+                                RowFingerprintStore fingerprints,
+                                PlatformTransactionManager txManager,
+                                @Value("${fdu.import.persist.batch-size:1000}") int chunkSize) {
+        this.stagingStore = stagingStore;
+        this.writer = writer;
+        this.fingerprints = fingerprints;
+        this.tx = new TransactionTemplate(txManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public PersistReport persist(StagedImport imp) {
+        return persist(imp, rows -> { });
+    }
+
+    /**
+     * @param progress เรียกหลังแต่ละ chunk ด้วยจำนวนแถว staging ที่ผ่านไปแล้ว
+     *                 (โยน exception = หยุดก่อน chunk ถัดไป chunk ที่ commit แล้วยังอยู่ save ใหม่จะเขียนต่อจากที่ขาด)
+     */
+    public PersistReport persist(StagedImport imp, LongConsumer progress) {
+        long started = System.nanoTime();
+        long written = 0;
+        long failedRows = 0;
+        long skipped = 0;
+        long alreadySaved = 0;
+        int chunkNo = 0;
+        BitSet saved = writer.savedRows(imp);
+        List<PersistReport.ChunkFailure> failures = new ArrayList<>();
+        List<long[]> failedRanges = new ArrayList<>(); // ช่วงแถว staging ของ chunk ที่ fail
+
+        ImportStagingStore.Cursor cursor = stagingStore.cursor(imp, 0);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        while (cursor.hasNext()) {
+            chunk.clear();
+            long firstStaged = -1, lastStaged = -1;
+            while (cursor.hasNext() && chunk.size() < chunkSize) {
+                long rowNo = cursor.position();
+                List<String> cells = cursor.next();
+                // แถวที่ไม่ผ่าน validation ไม่บันทึก
+                if (imp.isInvalid(rowNo)) {
+                    skipped++;
+                    continue;
+                }
+                long sourceRow = imp.sourceRow(rowNo);
+                if (saved.get(Math.toIntExact(sourceRow))) {
+                    alreadySaved++;
+                    continue;
+                }
+                if (firstStaged < 0) firstStaged = rowNo;
+                lastStaged = rowNo;
+                chunk.add(new ImportRow(sourceRow, cells));
+            }
+            if (chunk.isEmpty()) {
+                progress.accept(cursor.position());
+                continue;
+            }
+
+            long firstRow = chunk.get(0).rowNo();
+            long lastRow = chunk.get(chunk.size() - 1).rowNo();
+            try {
+                tx.executeWithoutResult(status -> writer.write(imp, chunk));
+                written += chunk.size();
+            } catch (DataAccessException e) {
+                failedRows += chunk.size();
+                String msg = e.getMostSpecificCause().getMessage();
+                failures.add(new PersistReport.ChunkFailure(chunkNo, firstRow, lastRow, msg));
+                failedRanges.add(new long[] {firstStaged, lastStaged});
+                log.warn("Import {} chunk {} (rows {}-{}) failed: {}", imp.getId(), chunkNo, firstRow, lastRow, msg);
+            }
+            chunkNo++;
+            progress.accept(cursor.position());
+        }
+
+        PersistReport report = new PersistReport(written, failedRows, skipped, alreadySaved, chunkNo, failures,
+                (System.nanoTime() - started) / 1_000_000);
+        fingerprints.accept(imp, new SavedRows(imp, failedRanges));
+        log.info("Import {} ({}) persisted: {} rows, {} failed, {} skipped (invalid), {} already saved, {} chunks"
+                        + " in {} ms ({} rows/sec)",
+                imp.getId(), imp.getFileName(), written, failedRows, skipped, alreadySaved, chunkNo,
+                report.elapsedMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    /**
+     * แถว staging ที่บันทึกสำเร็จ: ผ่าน validation และไม่อยู่ในช่วงของ chunk ที่ fail
+     * ช่วงเรียงไว้ครั้งเดียว แล้วเดินไปพร้อมกับแถว (accept ถามเรียงจากน้อยไปมาก ถามย้อนหลัง = เริ่มเดินใหม่)
+     */
+    private static final class SavedRows implements LongPredicate {
+
+        private final StagedImport imp;
+        private final List<long[]> failed;
+        private int next;
+        private long last = -1;
+
+        SavedRows(StagedImport imp, List<long[]> failed) {
+            this.imp = imp;
+            this.failed = failed;
+            failed.sort(Comparator.comparingLong(r -> r[0]));
+        }
+
+        @Override
+        public boolean test(long rowNo) {
+            if (imp.isInvalid(rowNo)) return false;
+            if (rowNo < last) next = 0;
+            last = rowNo;
+            while (next < failed.size() && failed.get(next)[1] < rowNo) next++;
+            return next == failed.size() || failed.get(next)[0] > rowNo;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * บันทึกแถวจาก staging ลง H2 ผ่าน JdbcBatchImportRowWriter (INSERT แบบ batch ทีละ chunk)
+ */
+class ImportPersistServiceTest {
+
+    private static final List<String> HEADERS = List.of("CIF", "Agreement No.");
+
+    @TempDir
+    Path staging;
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private ImportStagingStore store;
+    private RowFingerprintStore fingerprints;
+    private ImportPersistService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE SCHEMA dbo");
+        jdbc.execute("CREATE TABLE dbo.import_rows ("
+                + " import_id VARCHAR(36) NOT NULL, file_name VARCHAR(255), row_no BIGINT NOT NULL,"
+                + " row_data VARCHAR(4000) NOT NULL, created_at TIMESTAMP NOT NULL,"
+                + " CONSTRAINT pk_import_rows PRIMARY KEY (import_id, row_no))");
+
+        store = new ImportStagingStore(staging.toString(), Duration.ofHours(1), 1 << 20);
+        store.init();
+        fingerprints = mock(RowFingerprintStore.class);
+        service = new ImportPersistService(store, new JdbcBatchImportRowWriter(jdbc, "dbo.import_rows"),
+                fingerprints, new DataSourceTransactionManager(db), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+        db.shutdown();
+    }
+
+    @Test
+    void writesEveryValidRowAsJson() throws Exception {
+        StagedImport imp = stage(10);
+
+        PersistReport report = service.persist(imp);
+
+        assertThat(report.rowsWritten()).isEqualTo(10);
+        assertThat(report.rowsFailed()).isZero();
+        assertThat(report.chunks()).isEqualTo(3);
+        assertThat(jdbc.queryForList("SELECT row_no FROM dbo.import_rows WHERE import_id = ? ORDER BY row_no",
+                Long.class, imp.getId())).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        assertThat(jdbc.queryForObject("SELECT row_data FROM dbo.import_rows WHERE import_id = ? AND row_no = 3",
+                String.class, imp.getId())).isEqualTo("{\"CIF\":\"C3\",\"Agreement No.\":\"A3\"}");
+        assertThat(jdbc.queryForObject("SELECT DISTINCT file_name FROM dbo.import_rows", String.class))
+                .isEqualTo("customers.csv");
+    }
+
+    @Test
+    void skipsInvalidRowsAndRollsBackOnlyTheFailedChunk() throws Exception {
+        StagedImport imp = stage(10);
+        BitSet invalid = new BitSet();
+        invalid.set(2);
+        imp.validated(new ValidationReport(10, invalid, 1, List.of(), List.of(), 0));
+        failRow(6); // chunk ที่ 2 (แถว 5-8)
+
+        PersistReport report = service.persist(imp);
+
+        assertThat(report.rowsWritten()).isEqualTo(5);
+        assertThat(report.rowsFailed()).isEqualTo(4);
+        assertThat(report.rowsSkipped()).isEqualTo(1);
+        assertThat(report.failures()).singleElement().satisfies(f -> {
+            assertThat(f.chunkNo()).isEqualTo(1);
+            assertThat(f.firstRow()).isEqualTo(5);
+            assertThat(f.lastRow()).isEqualTo(8);
+        });
+        // แถว 5 ถูกเขียนก่อนแถวที่ fail แต่ rollback ไปพร้อม chunk
+        assertThat(savedRows(imp)).containsExactly(0L, 1L, 3L, 4L, 9L);
+
+        ArgumentCaptor<LongPredicate> saved = ArgumentCaptor.forClass(LongPredicate.class);
+        verify(fingerprints).accept(same(imp), saved.capture());
+        assertThat(LongStream.range(0, 10).filter(saved.getValue()).boxed().toList())
+                .containsExactly(0L, 1L, 3L, 4L, 9L);
+    }
+
+    @Test
+    void savingAgainAfterAFailedChunkWritesOnlyTheMissingRows() throws Exception {
+        StagedImport imp = stage(10);
+        failRow(6);
+        service.persist(imp);
+        jdbc.execute("ALTER TABLE dbo.import_rows DROP CONSTRAINT ck_fail_row");
+
+        PersistReport report = service.persist(imp);
+
+        assertThat(report.rowsWritten()).isEqualTo(4);
+        assertThat(report.rowsAlreadySaved()).isEqualTo(6);
+        assertThat(report.rowsFailed()).isZero();
+        assertThat(report.chunks()).isEqualTo(1);
+        assertThat(savedRows(imp)).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+    }
+
+    @Test
+    void savingTwiceWritesNothingTheSecondTime() throws Exception {
+        StagedImport imp = stage(10);
+        service.persist(imp);
+
+        PersistReport report = service.persist(imp);
+
+        assertThat(report.rowsWritten()).isZero();
+        assertThat(report.rowsAlreadySaved()).isEqualTo(10);
+        assertThat(report.failures()).isEmpty();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM dbo.import_rows", Integer.class)).isEqualTo(10);
+    }
+
+    @Test
+    void progressIsReportedAfterEachChunk() throws Exception {
+        StagedImport imp = stage(10);
+        List<Long> progress = new ArrayList<>();
+
+        service.persist(imp, progress::add);
+
+        assertThat(progress).containsExactly(4L, 8L, 10L);
+    }
+
+    @Test
+    void emptyImportWritesNothing() throws Exception {
+        StagedImport imp = stage(0);
+
+        PersistReport report = service.persist(imp);
+
+        assertThat(report.rowsWritten()).isZero();
+        assertThat(report.chunks()).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM dbo.import_rows", Integer.class)).isZero();
+        verify(fingerprints).accept(same(imp), any());
+    }
+
+    /** ให้ INSERT ของแถวนี้ fail (ทั้ง chunk ที่มีแถวนี้ rollback) */
+    private void failRow(int row) {
+        jdbc.execute("ALTER TABLE dbo.import_rows ADD CONSTRAINT ck_fail_row CHECK (row_no <> " + row + ")");
+    }
+
+    private List<Long> savedRows(StagedImport imp) {
+        return jdbc.queryForList("SELECT row_no FROM dbo.import_rows WHERE import_id = ? ORDER BY row_no",
+                Long.class, imp.getId());
+    }
+
+    private StagedImport stage(int rows) throws Exception {
+        ImportStagingStore.Writer w = store.create("customers.csv");
+        for (int r = 0; r < rows; r++) w.row(List.of("C" + r, "A" + r));
+        return w.finish(HEADERS);
+    }
+}
@@ -0,0 +1,140 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * preview แถวที่ staging ไว้ทีละหน้า (อ่านจาก disk เท่าที่ต้องใช้ ไม่ render ทั้งไฟล์)
+ *
+ * <p>ไม่มี filter: กระโดดไปแถวที่ต้องการผ่าน rows.idx ได้ทันที (offset)
+ * มี filter: ไล่หาต่อจากตำแหน่งที่หน้าก่อน scan ถึง (keyset ด้วย {@code after}) จนได้ครบหน้า
+ * หรือ scan ครบ {@link #MAX_SCAN} แถว — หน้าอาจได้ไม่ครบ/ว่าง แล้วให้ {@code next} ไป scan ต่อ
+ * sort: ใช้ลำดับแถวของคอลัมน์นั้นที่สร้างครั้งแรกแล้ว cache ไว้ใน {@link StagedImport}
+ */
+@Service
+public class ImportPreviewService {
+
+    public static final int MAX_LIMIT = 500;
+    /** จำนวนแถวที่ scan ได้ต่อ request เมื่อมี filter (เวลาต่อหน้าคงที่แม้ตรงน้อยมาก) */
+    public static final int MAX_SCAN = 20_000;
+
+    private final ImportStagingStore stagingStore;
+
+    public ImportPreviewService(ImportStagingStore stagingStore) {
+        this.stagingStore = stagingStore;
+    }
+
+    /**
+     * @param offset       ตำแหน่งเริ่ม (ใช้เมื่อไม่มี filter)
+     * @param after        ตำแหน่งสุดท้ายของหน้าก่อน (keyset, -1 = เริ่มต้น) ใช้เมื่อมี filter
+     * @param filterColumn คอลัมน์ที่ค้น (-1 = ทุกคอลัมน์)
+     * @param sortColumn   คอลัมน์ที่ sort (-1 = ตามลำดับในไฟล์)
+     */
+    public record Query(long offset, long after, int limit,
+                        String filter, int filterColumn,
+                        int sortColumn, boolean desc) {
+
+        public Query {
+            limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+            filter = (filter == null || filter.isBlank()) ? null : filter.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * rowNo = ลำดับแถว (0-based) ใน staging, sourceRowNo = ลำดับในไฟล์ที่ upload (ต่างกันเมื่อ import แบบ delta),
+     * position = ตำแหน่งในลำดับที่แสดง (ใช้เป็น after ของหน้าถัดไป)
+     */
+    public record Row(long rowNo, long sourceRowNo, long position, boolean invalid, List<String> cells) {
+    }
+
+    /**
+     * @param filtered จำนวนแถวที่ตรง filter (-1 ถ้ามี filter เพราะไม่ได้ scan ทั้งไฟล์)
+     * @param hasMore  ยังมีแถวถัดไป (กรณีมี filter อาจได้หน้าถัดไปว่าง)
+     * @param next     after ของหน้าถัดไป = ตำแหน่งสุดท้ายที่ scan แล้ว (มี filter; ไม่ใช่แค่แถวสุดท้ายที่ตรง)
+     */
+    public record Page(long total, long filtered, boolean hasMore, long next, List<Row> rows) {
+    }
+
+    public Page page(StagedImport imp, Query q) {
+        long total = imp.getRowCount();
+        int[] order = (q.sortColumn() >= 0 && q.sortColumn() < imp.getHeaders().size())
+                ? imp.sortOrder(q.sortColumn(), col -> buildSortOrder(imp, col))
+                : null;
+
+        List<Row> rows = new ArrayList<>(q.limit());
+        long pos = (q.filter() == null) ? Math.max(0, q.offset()) : q.after() + 1;
+        long scanEnd = (q.filter() == null) ? total : Math.min(total, pos + MAX_SCAN);
+        for (; pos < scanEnd && rows.size() < q.limit(); pos++) {
+            long rowNo = rowAt(order, q.desc(), total, pos);
+            List<String> cells = stagingStore.read(imp, rowNo);
+            if (q.filter() != null && !matches(cells, q.filter(), q.filterColumn())) continue;
+            rows.add(new Row(rowNo, imp.sourceRow(rowNo), pos, imp.isInvalid(rowNo), cells));
+        }
+
+        // มี filter: hasMore แปลว่ายังไม่ได้ scan ถึงท้ายไฟล์ (หน้าถัดไปอาจว่าง) เพื่อให้เวลาต่อหน้าคงที่
+        boolean hasMore = pos < total;
+        return new Page(total, q.filter() == null ? total : -1, hasMore, pos - 1, rows);
+    }
+
+    private static long rowAt(int[] order, boolean desc, long total, long pos) {
+        long p = desc ? total - 1 - pos : pos;
+        return (order != null) ? order[(int) p] : p;
+    }
+
+    private static boolean matches(List<String> cells, String filter, int column) {
+        if (column >= 0) {
+            return column < cells.size() && contains(cells.get(column), filter);
+        }
+        for (String cell : cells) {
+            if (contains(cell, filter)) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(String value, String lowerFilter) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerFilter);
+    }
+
+    /** อ่านคอลัมน์เดียวทั้งไฟล์ครั้งเดียว แล้วเก็บแค่ลำดับแถว (int[]) */
+    private int[] buildSortOrder(StagedImport imp, int column) {
+        int n = Math.toIntExact(imp.getRowCount());
+        String[] keys = new String[n];
+        double[] nums = new double[n]; // NaN = ไม่ใช่ตัวเลข
+        ImportStagingStore.Cursor cursor = stagingStore.cursor(imp, 0);
+        for (int i = 0; i < n && cursor.hasNext(); i++) {
+            List<String> cells = cursor.next();
+            keys[i] = (column < cells.size() && cells.get(column) != null) ? cells.get(column) : "";
+            nums[i] = parseNumber(keys[i]);
+        }
+
+        // ตัวเลขมาก่อนและเทียบแบบตัวเลข นอกนั้นเทียบแบบข้อความ
+        Comparator<Integer> cmp = (x, y) -> {
+            boolean nx = !Double.isNaN(nums[x]);
+            boolean ny = !Double.isNaN(nums[y]);
+            if (nx && ny) return Double.compare(nums[x], nums[y]);
+            if (nx != ny) return nx ? -1 : 1;
+            return keys[x].compareToIgnoreCase(keys[y]);
+        };
+
+        Integer[] idx = new Integer[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        Arrays.sort(idx, cmp);
+        return Arrays.stream(idx).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static double parseNumber(String s) {
+        if (s.isEmpty()) return Double.NaN;
+        char c = s.charAt(0);
+        if (!(Character.isDigit(c) || c == '-' || c == '.')) return Double.NaN;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
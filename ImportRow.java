@@ -0,0 +1,7 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.List;
+
+/** แถวข้อมูลพร้อมลำดับแถว (0-based) ในไฟล์ */
+public record ImportRow(long rowNo, List<String> cells) {
+}
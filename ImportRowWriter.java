@@ -0,0 +1,61 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.BitSet;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * ปลายทางของแถวที่ import (เรียกทีละ chunk ภายใน transaction ของ {@link ImportPersistService})
+ *
+ * <p>ตารางปลายทางเก็บ 1 แถวต่อ 1 แถวในไฟล์ โดยเก็บค่าทุกคอลัมน์เป็น JSON (header -&gt; value):
+ * <pre>
+ * CREATE TABLE dbo.import_rows (
+ *   import_id  VARCHAR(36)   NOT NULL,
+ *   file_name  NVARCHAR(255) NULL,
+ *   row_no     BIGINT        NOT NULL,
+ *   row_data   NVARCHAR(MAX) NOT NULL,
+ *   created_at DATETIME2     NOT NULL,
+ *   CONSTRAINT pk_import_rows PRIMARY KEY (import_id, row_no)
+ * );
+ * </pre>
+ */
+public interface ImportRowWriter {
+
+    void write(StagedImport imp, List<ImportRow> chunk);
+
+    /**
+     * row_no ที่บันทึกไว้แล้วของ import นี้ (save ซ้ำ หรือ save ใหม่หลัง chunk fail จะเขียนเฉพาะแถวที่ยังไม่มี)
+     */
+    BitSet savedRows(StagedImport imp);
+
+    static BitSet savedRows(JdbcTemplate jdbc, String table, String importId) {
+        BitSet saved = new BitSet();
+        jdbc.query("SELECT row_no FROM " + table + " WHERE import_id = ?",
+                (RowCallbackHandler) rs -> saved.set(Math.toIntExact(rs.getLong(1))), importId);
+        return saved;
+    }
+
+    JsonFactory JSON = new JsonFactory();
+
+    static String toJson(List<String> headers, List<String> cells) {
+        StringWriter out = new StringWriter(cells.size() * 16);
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            for (int c = 0; c < headers.size(); c++) {
+                g.writeStringField(headers.get(c), c < cells.size() ? cells.get(c) : null);
+            }
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,477 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Staging store ของไฟล์ที่ upload แล้ว (แทนการเก็บ List&lt;List&lt;String&gt;&gt; ไว้ใน HttpSession)
+ *
+ * <p>แต่ละ import มี directory ของตัวเอง:
+ * <ul>
+ *   <li>seg-NNNNN.dat : append-only segment ของ {@link RowBatch} (columnar, ชนิดตามค่าจริง ชุดละ 4096 แถว)</li>
+ *   <li>rows.idx : ตำแหน่งของแต่ละแถว 8 bytes (segment 16 bit | offset ของ batch 32 bit | แถวใน batch 16 bit)</li>
+ * </ul>
+ * ตอนอ่านจะ memory-map ไฟล์ทั้งหมด แล้วอ่านผ่าน {@link Cursor} (แปลงเป็น String เฉพาะแถวที่อ่าน)
+ * import หลาย sheet เขียนแยกเป็น part-N/ (1 writer ต่อ sheet) แล้วรวมเป็นชุดเดียวตอน finish
+ * import ที่ไม่มีการเรียกใช้เกิน TTL จะถูกลบทิ้งอัตโนมัติ
+ *
+ * <p>ตอน start ลบของค้างจากรอบก่อนเฉพาะ directory ที่ store สร้าง (ชื่อเป็น UUID) และเฉพาะเมื่อ baseDir
+ * เป็นของ store นี้คนเดียว: มีไฟล์ .fdu-staging (หรือยังไม่มีอะไรอื่นนอกจาก directory ของ store) และ lock ไฟล์นั้นได้
+ * (instance อื่นที่ใช้ directory เดียวกันถือ lock อยู่ = ไม่ลบ)
+ */
+@Slf4j
+@Component
+public class ImportStagingStore {
+
+    static final String INDEX_FILE = "rows.idx";
+    static final String MARKER_FILE = ".fdu-staging";
+
+    // directory ของ import = id (UUID) — ของอย่างอื่นใน baseDir ไม่ใช่ของ store
+    private static final Pattern IMPORT_DIR =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    // entry ใน rows.idx: segment | offset ของ batch | แถวใน batch
+    private static final int ROW_BITS = 16;
+    private static final int SEGMENT_SHIFT = 48;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+
+    private final Path baseDir;
+    private final Duration ttl;
+    private final long segmentSize;
+
+    private final Map<String, StagedImport> imports = new ConcurrentHashMap<>();
+    // ไฟล์ที่ยังลบไม่ได้ (เช่น Windows ยัง map อยู่) -> ลองใหม่รอบถัดไป
+    private final Set<Path> pendingDelete = ConcurrentHashMap.newKeySet();
+    // ถือ lock ของ MARKER_FILE ไว้ตลอดอายุ store (null = ไม่ได้เป็นเจ้าของ baseDir คนเดียว)
+    private FileChannel markerChannel;
+    private FileLock markerLock;
+
+    public ImportStagingStore(
+            @Value("${fdu.import.staging.dir:${java.io.tmpdir}/fdu-import}") String baseDir,
+            @Value("${fdu.import.staging.ttl:PT2H}") Duration ttl,
+            @Value("${fdu.import.staging.segment-size:67108864}") long segmentSize) {
+        this.baseDir = Paths.get(baseDir);
+        this.ttl = ttl;
+        // offset ใน index มี 32 bit -> segment ต้องไม่เกิน 1GB
+        this.segmentSize = Math.min(segmentSize, 1L << 30);
+    }
+
+    static String segmentFile(int no) {
+        return String.format("seg-%05d.dat", no);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(baseDir);
+        Path marker = baseDir.resolve(MARKER_FILE);
+        if (!Files.exists(marker)) {
+            Path foreign;
+            try (Stream<Path> entries = Files.list(baseDir)) {
+                foreign = entries.filter(p -> !isImportDir(p)).findFirst().orElse(null);
+            }
+            if (foreign != null) {
+                log.warn("Staging dir {} contains {} which the import staging store did not create - not purging it;"
+                        + " point fdu.import.staging.dir at a dedicated directory", baseDir, foreign.getFileName());
+                return;
+            }
+        }
+
+        markerChannel = FileChannel.open(marker, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            markerLock = markerChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            markerLock = null; // store อื่นใน JVM เดียวกัน
+        }
+        if (markerLock == null) {
+            markerChannel.close();
+            markerChannel = null;
+            log.warn("Staging dir {} is in use by another instance - not purging it", baseDir);
+            return;
+        }
+
+        // ของค้างจากรอบก่อน (restart) ไม่มี session อ้างถึงแล้ว
+        try (Stream<Path> dirs = Files.list(baseDir)) {
+            dirs.filter(ImportStagingStore::isImportDir).forEach(this::deleteDir);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        imports.keySet().forEach(this::delete);
+        if (markerChannel != null) {
+            try {
+                markerChannel.close(); // ปล่อย lock ด้วย
+            } catch (IOException e) {
+                log.debug("Cannot close {}: {}", baseDir.resolve(MARKER_FILE), e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isImportDir(Path p) {
+        return Files.isDirectory(p) && IMPORT_DIR.matcher(p.getFileName().toString()).matches();
+    }
+
+    // ===================== write =====================
+
+    /** เริ่ม import ใหม่ — ต้องเรียก {@link Writer#finish(List)} เมื่ออ่านไฟล์จบ */
+    public Writer create(String fileName) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path dir = Files.createDirectories(baseDir.resolve(id));
+        StagedImport imp = new StagedImport(id, fileName, dir);
+        imports.put(id, imp);
+        return new Writer(imp, dir, false);
+    }
+
+    /** เริ่ม import หลาย sheet — 1 {@link SheetsWriter#part(int)} ต่อ sheet แล้ว {@link SheetsWriter#finish} */
+    public SheetsWriter createSheets(String fileName) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path dir = Files.createDirectories(baseDir.resolve(id));
+        StagedImport imp = new StagedImport(id, fileName, dir);
+        imports.put(id, imp);
+        return new SheetsWriter(imp);
+    }
+
+    public final class SheetsWriter implements AutoCloseable {
+
+        private final StagedImport imp;
+        private final List<Writer> parts = new ArrayList<>();
+        private boolean finished;
+
+        private SheetsWriter(StagedImport imp) {
+            this.imp = imp;
+        }
+
+        public String getId() {
+            return imp.getId();
+        }
+
+        /** writer ของ sheet หนึ่ง (เขียนจาก thread เดียว) — ต้อง {@link Writer#closePart()} เมื่อ sheet จบ */
+        public Writer part(int sheetIndex) throws IOException {
+            Path dir = Files.createDirectories(imp.getDir().resolve("part-" + sheetIndex));
+            Writer w = new Writer(imp, dir, true);
+            synchronized (parts) {
+                parts.add(w);
+            }
+            return w;
+        }
+
+        /**
+         * รวม part ที่เลือก (ตามลำดับที่ส่งมา) เป็น import เดียว: ย้าย segment แล้วเลขใหม่ต่อกัน
+         * และเขียน rows.idx ใหม่โดยบวกเลข segment เริ่มต้นของ part — part ที่ไม่ได้เลือกถูกลบทิ้ง
+         */
+        public StagedImport finish(List<String> headers, List<Writer> keep) throws IOException {
+            int segments = 0;
+            long rows = 0;
+            try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(imp.getDir().resolve(INDEX_FILE)), 64 * 1024))) {
+                for (Writer part : keep) {
+                    for (int s = 0; s < part.segmentCount(); s++) {
+                        Files.move(part.dir.resolve(segmentFile(s)), imp.getDir().resolve(segmentFile(segments + s)),
+                                StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    long base = (long) segments << SEGMENT_SHIFT;
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                            Files.newInputStream(part.dir.resolve(INDEX_FILE)), 64 * 1024))) {
+                        for (long r = 0; r < part.getRowCount(); r++) index.writeLong(in.readLong() + base);
+                    }
+                    segments += part.segmentCount();
+                    rows += part.getRowCount();
+                }
+            }
+            synchronized (parts) {
+                parts.forEach(p -> deleteDir(p.dir));
+            }
+
+            imp.complete(headers, rows, segments);
+            finished = true;
+            log.debug("Staged import {} ({}): {} rows from {} sheet(s) in {} segment(s)",
+                    imp.getId(), imp.getFileName(), rows, keep.size(), segments);
+            return imp;
+        }
+
+        /** ถ้ายังไม่ finish ให้ทิ้งทั้ง import (รวม part ทุกตัว) */
+        @Override
+        public void close() {
+            if (finished) return;
+            synchronized (parts) {
+                parts.forEach(Writer::close);
+            }
+            delete(imp.getId());
+        }
+    }
+
+    public final class Writer implements XlsxStreamReader.RowHandler, AutoCloseable {
+
+        private final StagedImport imp;
+        private final Path dir;
+        private final boolean part;
+        private final DataOutputStream index;
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream(256 * 1024);
+        private final DataOutputStream record = new DataOutputStream(buf);
+        private final RowBatch.Builder batch = new RowBatch.Builder();
+
+        private DataOutputStream segment;
+        private int segmentNo = -1;
+        private long segmentPos;
+        private long rowCount;
+        private long bytes;
+        private boolean finished;
+
+        private Writer(StagedImport imp, Path dir, boolean part) throws IOException {
+            this.imp = imp;
+            this.dir = dir;
+            this.part = part;
+            this.index = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(INDEX_FILE)), 64 * 1024));
+        }
+
+        public String getId() {
+            return imp.getId();
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        int segmentCount() {
+            return segmentNo + 1;
+        }
+
+        /** ขนาดบน disk ต่อแถว (segment + rows.idx) */
+        public long bytesPerRow() {
+            return rowCount == 0 ? 0 : (bytes + rowCount * Long.BYTES) / rowCount;
+        }
+
+        @Override
+        public void row(List<String> cells) {
+            rowCount++;
+            if (!batch.add(cells)) return;
+            try {
+                flushBatch();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flushBatch() throws IOException {
+            if (batch.isEmpty()) return;
+            int rows = batch.size();
+            buf.reset();
+            batch.encodeTo(record);
+
+            if (segment == null || segmentPos + buf.size() > segmentSize) rollSegment();
+
+            long at = ((long) segmentNo << SEGMENT_SHIFT) | (segmentPos << ROW_BITS);
+            for (int r = 0; r < rows; r++) index.writeLong(at | r);
+            buf.writeTo(segment);
+            segmentPos += buf.size();
+            bytes += buf.size();
+        }
+
+        private void rollSegment() throws IOException {
+            if (segment != null) segment.close();
+            segmentNo++;
+            segmentPos = 0;
+            segment = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(segmentFile(segmentNo))), 64 * 1024));
+        }
+
+        public StagedImport finish(List<String> headers) throws IOException {
+            if (part) throw new IllegalStateException("Sheet part is finished by SheetsWriter");
+            closeStreams();
+            imp.complete(headers, rowCount, segmentNo + 1);
+            finished = true;
+            log.debug("Staged import {} ({}): {} rows in {} segment(s), {} bytes/row",
+                    imp.getId(), imp.getFileName(), rowCount, segmentNo + 1, bytesPerRow());
+            return imp;
+        }
+
+        private void closeStreams() throws IOException {
+            flushBatch();
+            index.close();
+            if (segment != null) segment.close();
+        }
+
+        /** part ของ {@link SheetsWriter}: ปิดไฟล์ (idempotent) รอรวมตอน finish */
+        public void closePart() {
+            if (finished) return;
+            finished = true;
+            try {
+                closeStreams();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** ถ้ายังไม่ finish (เช่น parse error) ให้ทิ้ง import นี้ไปเลย (part ปล่อยให้ SheetsWriter ลบ) */
+        @Override
+        public void close() {
+            if (part) {
+                try {
+                    closePart();
+                } catch (UncheckedIOException ignore) {
+                    // SheetsWriter จะลบทั้ง directory
+                }
+                return;
+            }
+            if (finished) return;
+            try {
+                closeStreams();
+            } catch (IOException ignore) {
+                // กำลังจะลบทิ้งอยู่แล้ว
+            }
+            delete(imp.getId());
+        }
+    }
+
+    // ===================== read =====================
+
+    /** คืน import ที่เขียนเสร็จแล้ว (null ถ้าไม่มี/หมดอายุ) */
+    public StagedImport find(String id) {
+        if (id == null) return null;
+        StagedImport imp = imports.get(id);
+        if (imp == null || !imp.isReady()) return null;
+        imp.touch();
+        return imp;
+    }
+
+    public Cursor cursor(StagedImport imp, long fromRow) {
+        imp.touch();
+        return new Cursor(imp, fromRow);
+    }
+
+    /** อ่านแถวเดียวตามลำดับ (random access ผ่าน rows.idx) */
+    public List<String> read(StagedImport imp, long rowNo) {
+        return new Cursor(imp, rowNo).next();
+    }
+
+    /** อ่านแถวตามลำดับจาก segment ที่ map ไว้ (ไม่ thread-safe, 1 cursor ต่อ 1 thread) */
+    public static final class Cursor implements Iterator<List<String>> {
+
+        private final StagedImport imp;
+        private long next;
+
+        // batch ล่าสุด (อ่านต่อกันส่วนใหญ่อยู่ batch เดียวกัน)
+        private long batchAt = -1;
+        private RowBatch batch;
+
+        private Cursor(StagedImport imp, long fromRow) {
+            this.imp = imp;
+            this.next = Math.max(0, fromRow);
+        }
+
+        /** ลำดับ (0-based) ของแถวถัดไปที่จะอ่าน */
+        public long position() {
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < imp.getRowCount();
+        }
+
+        @Override
+        public List<String> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            try {
+                long entry = imp.index().getLong(Math.toIntExact(next * Long.BYTES));
+                long at = entry >>> ROW_BITS;
+                if (at != batchAt) {
+                    ByteBuffer seg = imp.segment((int) (entry >>> SEGMENT_SHIFT));
+                    batch = RowBatch.at(seg, (int) (at & 0xFFFFFFFFL));
+                    batchAt = at;
+                }
+                List<String> cells = batch.row((int) (entry & ROW_MASK));
+                next++;
+                return cells;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // ===================== eviction =====================
+
+    public void delete(String id) {
+        if (id == null) return;
+        StagedImport imp = imports.remove(id);
+        if (imp != null) deleteDir(imp.getDir());
+    }
+
+    @Scheduled(fixedDelayString = "${fdu.import.staging.sweep-interval-ms:300000}")
+    public void evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        imports.values().stream()
+                .filter(imp -> imp.getLastAccess().isBefore(cutoff))
+                .map(StagedImport::getId)
+                .toList()
+                .forEach(id -> {
+                    log.debug("Evicting expired import {}", id);
+                    delete(id);
+                });
+
+        List<Path> retry = new ArrayList<>(pendingDelete);
+        pendingDelete.clear();
+        retry.forEach(this::deleteDir);
+    }
+
+    /**
+     * ลบไฟล์ที่ไม่ได้อยู่ใน import (เช่น temp file ของ upload) ถ้าลบไม่ได้ตอนนี้ (ยังถูกเปิดอยู่)
+     * จะลองใหม่รอบ sweep ถัดไปพร้อม directory ที่ค้าง
+     */
+    public void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete {}, will retry: {}", file, e.getMessage());
+            pendingDelete.add(file);
+        }
+    }
+
+    private void deleteDir(Path dir) {
+        if (Files.notExists(dir)) return; // ถูกลบไปแล้ว (เช่นรอบ retry) ไม่ต้องค้างใน pendingDelete
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Cannot delete {} yet: {}", dir, e.getMessage());
+            pendingDelete.add(dir);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ตอน start ลบของค้างเฉพาะ directory ที่ store สร้าง และเฉพาะ baseDir ที่เป็นของ store คนเดียว
+ */
+class ImportStagingStoreTest {
+
+    @TempDir
+    Path base;
+
+    @Test
+    void purgesOnlyItsOwnImportDirectoriesOnRestart() throws Exception {
+        ImportStagingStore first = store();
+        first.init();
+        first.shutdown();
+        // import ที่ค้างจากรอบก่อน (process ตายก่อน shutdown)
+        Path leftover = Files.createDirectories(base.resolve(UUID.randomUUID().toString()));
+        Files.writeString(leftover.resolve(ImportStagingStore.INDEX_FILE), "");
+        Path notes = Files.writeString(base.resolve("notes.txt"), "keep");
+        Path other = Files.createDirectories(base.resolve("not-an-import"));
+
+        ImportStagingStore second = store();
+        second.init();
+        try {
+            assertThat(leftover).doesNotExist();
+            assertThat(notes).exists();
+            assertThat(other).exists();
+        } finally {
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void leavesADirectoryItDidNotCreateAlone() throws Exception {
+        Path foreign = Files.createDirectories(base.resolve("reports"));
+        Path lookalike = Files.createDirectories(base.resolve(UUID.randomUUID().toString()));
+
+        ImportStagingStore store = store();
+        store.init();
+        try {
+            assertThat(foreign).exists();
+            assertThat(lookalike).exists();
+            assertThat(base.resolve(ImportStagingStore.MARKER_FILE)).doesNotExist();
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void leavesImportsOfAnotherInstanceAlone() throws Exception {
+        ImportStagingStore running = store();
+        running.init();
+        StagedImport live = running.create("customers.csv").finish(List.of("CIF"));
+
+        ImportStagingStore starting = store();
+        starting.init();
+        try {
+            assertThat(live.getDir()).exists();
+            assertThat(running.find(live.getId())).isNotNull();
+        } finally {
+            starting.shutdown();
+            running.shutdown();
+        }
+    }
+
+    private ImportStagingStore store() {
+        return new ImportStagingStore(base.toString(), Duration.ofHours(1), 1 << 20);
+    }
+}
@@ -0,0 +1,301 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stage ตรวจและ normalize แถวระหว่าง parse กับ staging
+ *
+ * <p>rule ผูกกับชื่อคอลัมน์ (ส่วน field ของ header เช่น customer_id, post_code)
+ * และชนิดในวงเล็บท้าย header ของ template เช่น (20), (Number), (Decimal15,2)
+ *
+ * <p>แถวถูกพักเป็น window แล้วแบ่ง chunk ตรวจขนานกันบน ForkJoinPool
+ * ก่อนส่งต่อให้ staging ตามลำดับเดิม
+ */
+@Slf4j
+@Component
+public class ImportValidator {
+
+    private static final Pattern HEADER = Pattern.compile("^(.*?)\\s*\\(([^)]*)\\)\\s*$");
+    private static final Pattern LENGTH = Pattern.compile("\\d+");
+    private static final Pattern DECIMAL = Pattern.compile("(?i)decimal\\s*(\\d+)\\s*,\\s*(\\d+)");
+
+    private static final int ERROR_LIMIT = 1000;
+
+    /** rule ตามชื่อ field (นอกเหนือจากที่ได้จากชนิดในวงเล็บ) */
+    private static final Map<String, List<ColumnRule>> FIELD_RULES = Map.ofEntries(
+            Map.entry("cif", List.of(ColumnRule.required(), ColumnRule.digits(1, 20))),
+            Map.entry("customer_id", List.of(ColumnRule.required(), ColumnRule.digits(1, 20))),
+            Map.entry("customer_name", List.of(ColumnRule.text(), ColumnRule.required())),
+            Map.entry("client_code", List.of(ColumnRule.required(), ColumnRule.upperCode())),
+            Map.entry("client_service", List.of(ColumnRule.upperCode())),
+            Map.entry("agreement_no", List.of(ColumnRule.required(), ColumnRule.digits(1, 16))),
+            Map.entry("post_code", List.of(ColumnRule.digits(5, 5))),
+            Map.entry("zipcode", List.of(ColumnRule.digits(5, 5))),
+            Map.entry("mobile_no", List.of(ColumnRule.digits(9, 15))),
+            Map.entry("office_phone_no", List.of(ColumnRule.digits(9, 15))));
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ImportValidator(@Value("${fdu.import.validation.parallelism:0}") int parallelism,
+                           @Value("${fdu.import.validation.chunk-size:2048}") int chunkSize) {
+        int p = (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(p);
+        this.chunkSize = Math.max(64, chunkSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** "Customer - customer_id(20)" / "customer_id(20)" -> customer_id */
+    public static String fieldKey(String header) {
+        if (header == null) return "";
+        String h = header;
+        int dash = h.lastIndexOf(" - ");
+        if (dash >= 0) h = h.substring(dash + 3);
+        Matcher m = HEADER.matcher(h);
+        if (m.matches()) h = m.group(1);
+        return h.trim().toLowerCase(Locale.US).replace(" ", "");
+    }
+
+    /** rule ของคอลัมน์จากชื่อ field + ชนิดในวงเล็บ */
+    static List<ColumnRule> rulesFor(String header) {
+        List<ColumnRule> rules = new ArrayList<>(FIELD_RULES.getOrDefault(fieldKey(header), List.of()));
+
+        Matcher m = HEADER.matcher(header == null ? "" : header.trim());
+        if (m.matches()) {
+            String type = m.group(2).trim();
+            Matcher dec = DECIMAL.matcher(type);
+            if (dec.matches()) {
+                rules.add(ColumnRule.decimal(Integer.parseInt(dec.group(1)), Integer.parseInt(dec.group(2))));
+            } else if (type.equalsIgnoreCase("Number")) {
+                rules.add(ColumnRule.integer());
+            } else if (type.startsWith("yyyy-MM-dd")) {
+                rules.add(ColumnRule.dateTime());
+            } else if (LENGTH.matcher(type).matches()) {
+                rules.add(ColumnRule.maxLength(Integer.parseInt(type)));
+            }
+        }
+        return rules;
+    }
+
+    /** เริ่ม stage ใหม่สำหรับ 1 ไฟล์ แถวที่ผ่าน stage แล้วส่งต่อให้ downstream ตามลำดับ */
+    public Stage stage(XlsxStreamReader.RowHandler downstream) {
+        return new Stage(downstream);
+    }
+
+    public final class Stage implements XlsxStreamReader.RowHandler {
+
+        private final XlsxStreamReader.RowHandler downstream;
+        private final int windowSize = chunkSize * pool.getParallelism();
+        private final List<List<String>> window = new ArrayList<>(windowSize);
+        private final long started = System.nanoTime();
+
+        // plan จาก HeaderLayout: คอลัมน์ -> rule (เรียงตามคอลัมน์)
+        private int[] planColumns = new int[0];
+        private ColumnRule[] planRules = new ColumnRule[0];
+        private String[] planNames = new String[0];
+        private LongAdder[] values = new LongAdder[0];
+        private LongAdder[] failures = new LongAdder[0];
+        private LongAdder[] nanos = new LongAdder[0];
+
+        private final BitSet invalidRows = new BitSet();
+        private final List<ValidationReport.RowError> errors = new ArrayList<>();
+        private long errorCount;
+        private long rowsSeen;
+
+        private Stage(XlsxStreamReader.RowHandler downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void columns(HeaderLayout layout) {
+            // plan compile ไว้ใน layout แล้ว (cache ตาม template)
+            planColumns = layout.ruleColumns();
+            planRules = layout.rules();
+            planNames = layout.ruleNames();
+            int n = planRules.length;
+            values = newAdders(n);
+            failures = newAdders(n);
+            nanos = newAdders(n);
+            downstream.columns(layout);
+        }
+
+        @Override
+        public void expectedRows(long rows) {
+            downstream.expectedRows(rows);
+        }
+
+        @Override
+        public void row(List<String> cells) {
+            window.add(cells);
+            if (window.size() >= windowSize) flush();
+        }
+
+        /** ตรวจแถวที่ค้างอยู่ แล้วสรุปผล */
+        public ValidationReport finish() {
+            flush();
+            List<ValidationReport.RuleStats> stats = new ArrayList<>(planRules.length);
+            for (int i = 0; i < planRules.length; i++) {
+                stats.add(new ValidationReport.RuleStats(planNames[i], planRules[i].name(),
+                        values[i].sum(), failures[i].sum(), nanos[i].sum()));
+            }
+            ValidationReport report = new ValidationReport(rowsSeen, invalidRows, errorCount, List.copyOf(errors),
+                    stats, (System.nanoTime() - started) / 1_000_000);
+
+            if (log.isDebugEnabled()) {
+                log.debug("Validated {} rows: {} invalid, {} errors", rowsSeen, report.invalidRowCount(), errorCount);
+                stats.stream()
+                        .sorted(Comparator.comparingLong(ValidationReport.RuleStats::nanos).reversed())
+                        .forEach(s -> log.debug("  rule {} on {}: {} values, {} failed, {} values/sec",
+                                s.rule(), s.column(), s.values(), s.failures(), s.valuesPerSecond()));
+            }
+            return report;
+        }
+
+        private void flush() {
+            if (window.isEmpty()) return;
+            long base = rowsSeen;
+
+            ChunkTask task = new ChunkTask(base, 0, window.size());
+            pool.invoke(task);
+            task.collect(this);
+
+            window.forEach(downstream::row);
+            rowsSeen += window.size();
+            window.clear();
+        }
+
+        private void addErrors(List<ValidationReport.RowError> chunkErrors) {
+            for (ValidationReport.RowError e : chunkErrors) {
+                errorCount++;
+                invalidRows.set(Math.toIntExact(e.rowNo()));
+                if (errors.size() < ERROR_LIMIT) errors.add(e);
+            }
+        }
+
+        /** แบ่งครึ่งจนเหลือไม่เกิน chunkSize แถว แล้วตรวจแบบ column-major */
+        private final class ChunkTask extends RecursiveAction {
+
+            private final long base;
+            private final int from;
+            private final int to;
+            private ChunkTask left;
+            private ChunkTask right;
+            private final List<ValidationReport.RowError> found = new ArrayList<>();
+
+            ChunkTask(long base, int from, int to) {
+                this.base = base;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > chunkSize) {
+                    int mid = (from + to) >>> 1;
+                    left = new ChunkTask(base, from, mid);
+                    right = new ChunkTask(base, mid, to);
+                    invokeAll(left, right);
+                    return;
+                }
+
+                for (int i = 0; i < planRules.length; i++) {
+                    ColumnRule rule = planRules[i];
+                    int col = planColumns[i];
+                    long failed = 0;
+                    long t0 = System.nanoTime();
+
+                    for (int r = from; r < to; r++) {
+                        List<String> cells = window.get(r);
+                        if (col >= cells.size()) continue;
+                        String v = rule.normalize(cells.get(col));
+                        cells.set(col, v);
+                        if (!rule.isValid(v)) {
+                            failed++;
+                            found.add(new ValidationReport.RowError(base + r, base + r, planNames[i], v,
+                                    planNames[i] + " " + rule.message()));
+                        }
+                    }
+
+                    nanos[i].add(System.nanoTime() - t0);
+                    values[i].add(to - from);
+                    failures[i].add(failed);
+                }
+                // เรียงตามแถว (ตรวจแบบ column-major)
+                found.sort(Comparator.comparingLong(ValidationReport.RowError::rowNo));
+            }
+
+            /** รวม error ตามลำดับแถว (ซ้าย -> ขวา) */
+            void collect(Stage stage) {
+                if (left != null) {
+                    left.collect(stage);
+                    right.collect(stage);
+                } else {
+                    stage.addErrors(found);
+                }
+            }
+        }
+    }
+
+    /**
+     * รวมผลของหลาย sheet ที่ staging ต่อกันตามลำดับ: เลขแถวของ sheet ถัดไปเลื่อนตามจำนวนแถวก่อนหน้า
+     * stats รวมตาม (column, rule) และเวลาเป็นของ sheet ที่นานที่สุด (ตรวจพร้อมกัน)
+     */
+    public static ValidationReport concat(List<ValidationReport> reports) {
+        BitSet invalidRows = new BitSet();
+        List<ValidationReport.RowError> errors = new ArrayList<>();
+        Map<List<String>, long[]> stats = new LinkedHashMap<>();
+        long rows = 0;
+        long errorCount = 0;
+        long elapsed = 0;
+
+        for (ValidationReport r : reports) {
+            int offset = Math.toIntExact(rows);
+            r.invalidRows().stream().forEach(i -> invalidRows.set(offset + i));
+            for (ValidationReport.RowError e : r.errors()) {
+                if (errors.size() >= ERROR_LIMIT) break;
+                errors.add(new ValidationReport.RowError(rows + e.rowNo(), rows + e.sourceRowNo(), e.column(),
+                        e.value(), e.message()));
+            }
+            for (ValidationReport.RuleStats s : r.rules()) {
+                long[] sum = stats.computeIfAbsent(List.of(s.column(), s.rule()), k -> new long[3]);
+                sum[0] += s.values();
+                sum[1] += s.failures();
+                sum[2] += s.nanos();
+            }
+            rows += r.rowsChecked();
+            errorCount += r.errorCount();
+            elapsed = Math.max(elapsed, r.elapsedMillis());
+        }
+
+        List<ValidationReport.RuleStats> rules = new ArrayList<>(stats.size());
+        stats.forEach((k, v) -> rules.add(new ValidationReport.RuleStats(k.get(0), k.get(1), v[0], v[1], v[2])));
+        return new ValidationReport(rows, invalidRows, errorCount, List.copyOf(errors), rules, elapsed);
+    }
+
+    private static LongAdder[] newAdders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+}
@@ -0,0 +1,146 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * rule จากชื่อ/ชนิดของ header, ลำดับแถวหลังตรวจขนานทีละ window และการรวมผลหลาย sheet
+ */
+class ImportValidatorTest {
+
+    // window = 64 แถว x 4 = 256 แถว
+    private final ImportValidator validator = new ImportValidator(4, 64);
+
+    @AfterEach
+    void tearDown() {
+        validator.shutdown();
+    }
+
+    @Test
+    void typeHintInBracketsAddsTheMatchingRule() {
+        assertThat(names(ImportValidator.rulesFor("Account - id_outstanding_balance(Decimal15,2)")))
+                .containsExactly("decimal(15,2)");
+        assertThat(names(ImportValidator.rulesFor("Account - agr_delinquent_status(Number)")))
+                .containsExactly("integer");
+        assertThat(names(ImportValidator.rulesFor("Account - id_date_time_to_collect(yyyy-MM-dd HH:mm:ss)")))
+                .containsExactly("dateTime");
+        assertThat(names(ImportValidator.rulesFor("Customer - remark_to_collect(254)")))
+                .containsExactly("maxLength(254)");
+        assertThat(ImportValidator.rulesFor("Customer - gender(Specified Value)")).isEmpty();
+        assertThat(ImportValidator.rulesFor("Comment")).isEmpty();
+    }
+
+    @Test
+    void fieldRulesComeBeforeTheTypeHint() {
+        assertThat(ImportValidator.fieldKey("Customer - customer_id(20)")).isEqualTo("customer_id");
+        assertThat(ImportValidator.fieldKey("Agreement _Description (30)")).isEqualTo("agreement_description");
+        assertThat(names(ImportValidator.rulesFor("Customer - customer_id(20)")))
+                .containsExactly("required", "digits(1-20)", "maxLength(20)");
+        assertThat(names(ImportValidator.rulesFor("Home Address - post_code(5)")))
+                .containsExactly("digits(5-5)", "maxLength(5)");
+    }
+
+    @Test
+    void cellsAreNormalizedByTheirTypeHint() {
+        List<List<String>> out = new ArrayList<>();
+        ImportValidator.Stage stage = validator.stage(out::add);
+        stage.columns(layout("customer_id(20)", "os_balance(Decimal15,2)", "due(yyyy-MM-dd HH:mm:ss)", "bucket(Number)"));
+
+        stage.row(cells("3.450100993487E12", "1,234.5", "2026-02-01T09:00", "2.0"));
+        stage.row(cells("0012", "abc", "31/01/2026", "1.5"));
+        ValidationReport report = stage.finish();
+
+        assertThat(out.get(0)).containsExactly("3450100993487", "1234.50", "2026-02-01 09:00:00", "2");
+        // เลข 0 นำหน้าของค่าที่พิมพ์เป็นข้อความไม่หาย
+        assertThat(out.get(1)).containsExactly("0012", "abc", "2026-01-31 00:00:00", "1.5");
+        assertThat(report.invalidRowCount()).isEqualTo(1);
+        assertThat(report.errors()).extracting(ValidationReport.RowError::column)
+                .containsExactly("os_balance(Decimal15,2)", "bucket(Number)");
+    }
+
+    @Test
+    void rowsLeaveInFileOrderAcrossWindowsAndErrorsAreSortedByRow() {
+        List<List<String>> out = new ArrayList<>();
+        ImportValidator.Stage stage = validator.stage(out::add);
+        stage.columns(layout("customer_id(20)", "agreement_no(16)"));
+
+        int rows = 1000; // ~4 window, chunk สุดท้ายไม่เต็ม
+        for (int r = 0; r < rows; r++) {
+            // ทุก 7 แถว: agreement_no ไม่ใช่ตัวเลข, ทุก 11 แถว: customer_id ว่าง
+            stage.row(cells(r % 11 == 0 ? "" : Integer.toString(r), agreement(r)));
+        }
+        ValidationReport report = stage.finish();
+
+        assertThat(out).hasSize(rows);
+        assertThat(out).extracting(c -> c.get(1))
+                .containsExactlyElementsOf(IntStream.range(0, rows).mapToObj(ImportValidatorTest::agreement).toList());
+
+        BitSet expected = new BitSet();
+        IntStream.range(0, rows).filter(r -> r % 7 == 0 || r % 11 == 0).forEach(expected::set);
+        assertThat(report.invalidRows()).isEqualTo(expected);
+        assertThat(report.rowsChecked()).isEqualTo(rows);
+        assertThat(report.errors()).extracting(ValidationReport.RowError::rowNo).isSorted();
+        // แถว 0 ผิดทั้ง 2 คอลัมน์ (customer_id ว่าง = required + agreement_no = digits)
+        assertThat(report.errors()).filteredOn(e -> e.rowNo() == 0).extracting(ValidationReport.RowError::column)
+                .containsExactlyInAnyOrder("customer_id(20)", "agreement_no(16)");
+    }
+
+    @Test
+    void concatShiftsRowNumbersOfLaterSheets() {
+        ValidationReport first = report(3, 1, 40);
+        ValidationReport second = report(2, 0, 70);
+        ValidationReport empty = report(0, -1, 5);
+        ValidationReport third = report(4, 3, 10);
+
+        ValidationReport all = ImportValidator.concat(List.of(first, second, empty, third));
+
+        assertThat(all.rowsChecked()).isEqualTo(9);
+        assertThat(all.invalidRows().stream().boxed().toList()).containsExactly(1, 3, 8);
+        assertThat(all.errors()).extracting(ValidationReport.RowError::rowNo).containsExactly(1L, 3L, 8L);
+        assertThat(all.errors()).extracting(ValidationReport.RowError::sourceRowNo).containsExactly(1L, 3L, 8L);
+        assertThat(all.errorCount()).isEqualTo(3);
+        assertThat(all.elapsedMillis()).isEqualTo(70);
+        assertThat(all.rules()).singleElement().satisfies(s -> {
+            assertThat(s.values()).isEqualTo(9);
+            assertThat(s.failures()).isEqualTo(3);
+        });
+    }
+
+    // ===================== helpers =====================
+
+    private static List<String> names(List<ColumnRule> rules) {
+        return rules.stream().map(ColumnRule::name).toList();
+    }
+
+    private static HeaderLayout layout(String... headers) {
+        return new TemplateRegistry().layout(List.of(), List.of(headers), headers.length);
+    }
+
+    private static String agreement(int row) {
+        return (row % 7 == 0) ? "X" + row : Integer.toString(100_000 + row);
+    }
+
+    private static List<String> cells(String... values) {
+        return new ArrayList<>(List.of(values));
+    }
+
+    /** report ของ sheet ที่มี rows แถว (invalidRow = -1: ไม่มีแถวผิด) */
+    private static ValidationReport report(int rows, int invalidRow, long elapsed) {
+        BitSet invalid = new BitSet();
+        List<ValidationReport.RowError> errors = new ArrayList<>();
+        if (invalidRow >= 0) {
+            invalid.set(invalidRow);
+            errors.add(new ValidationReport.RowError(invalidRow, invalidRow, "customer_id(20)", "", "is required"));
+        }
+        return new ValidationReport(rows, invalid, errors.size(), errors,
+                List.of(new ValidationReport.RuleStats("customer_id(20)", "required", rows, errors.size(), 100)),
+                elapsed);
+    }
+}
@@ -0,0 +1,51 @@
+package com.aeon.acss.fdu.importer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * เขียนแบบ JDBC batch (INSERT ธรรมดา ใช้ได้ทั้ง SQL Server และ embedded DB เช่น H2)
+ */
+@Component
+@ConditionalOnProperty(name = "fdu.import.persist.writer", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcBatchImportRowWriter implements ImportRowWriter {
+
+    private final JdbcTemplate jdbc;
+    private final String table;
+    private final String sql;
+
+    public JdbcBatchImportRowWriter(JdbcTemplate jdbc,
+                                    @Value("${fdu.import.persist.table:dbo.import_rows}") String table) {
+        this.jdbc = jdbc;
+        this.table = table;
+        this.sql = "INSERT INTO " + table
+                + " (import_id, file_name, row_no, row_data, created_at) VALUES (?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    public void write(StagedImport imp, List<ImportRow> chunk) {
+        List<String> headers = imp.getHeaders();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // ทั้ง chunk ส่งเป็น batch เดียว
+        jdbc.batchUpdate(sql, chunk, chunk.size(), (ps, row) -> {
+            ps.setString(1, imp.getId());
+            ps.setString(2, imp.getFileName());
+            ps.setLong(3, row.rowNo());
+            ps.setString(4, ImportRowWriter.toJson(headers, row.cells()));
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    @Override
+    public BitSet savedRows(StagedImport imp) {
+        return ImportRowWriter.savedRows(jdbc, table, imp.getId());
+    }
+}
@@ -0,0 +1,21 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.List;
+
+/** สรุปผลการบันทึก import ลง DB (rowsAlreadySaved = แถวที่ save ครั้งก่อนบันทึกไว้แล้ว ไม่เขียนซ้ำ) */
+public record PersistReport(long rowsWritten,
+                            long rowsFailed,
+                            long rowsSkipped,
+                            long rowsAlreadySaved,
+                            int chunks,
+                            List<ChunkFailure> failures,
+                            long elapsedMillis) {
+
+    /** chunk ที่ rollback ไป (row เป็นลำดับ 0-based ของแถวข้อมูล) */
+    public record ChunkFailure(int chunkNo, long firstRow, long lastRow, String message) {
+    }
+
+    public long rowsPerSecond() {
+        return elapsedMillis == 0 ? rowsWritten : rowsWritten * 1000 / elapsedMillis;
+    }
+}
@@ -0,0 +1,93 @@
+package com.aeon.acss.fdu.search;
+
+import java.util.Arrays;
+
+/**
+ * รายการ doc id (เรียงจากน้อยไปมาก) แบบบีบอัด: เก็บผลต่างจากตัวก่อนหน้าเป็น varint
+ * doc id ส่วนใหญ่ต่างกันไม่กี่หลัก จึงใช้ 1-2 byte ต่อ id แทน 4 byte ของ int[]
+ *
+ * <p>append-only (id ต้องเพิ่มขึ้นเสมอ) ไม่ thread-safe — ผู้ใช้ต้องคุมการเขียนเอง
+ */
+final class PostingList {
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int count;
+    private int last = -1;
+
+    /** เพิ่ม id (id ซ้ำกับตัวล่าสุดจะถูกข้าม เช่น n-gram ซ้ำในค่าเดียวกัน) */
+    void add(int id) {
+        if (id == last) return;
+        if (id < last) throw new IllegalArgumentException("doc id must increase: " + id + " after " + last);
+        int delta = id - last - 1;
+        last = id;
+        count++;
+
+        if (length + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** ขนาดที่ใช้จริง (bytes) */
+    int sizeInBytes() {
+        return length;
+    }
+
+    int[] toArray() {
+        int[] out = new int[count];
+        int pos = 0;
+        int prev = -1;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            prev = prev + delta + 1;
+            out[i] = prev;
+        }
+        return out;
+    }
+
+    /**
+     * ตัด candidates (เรียงแล้ว) ให้เหลือเฉพาะ id ที่อยู่ใน list นี้
+     * decode ทีละตัวไปพร้อมกัน ไม่ต้องสร้าง int[] ของ list นี้
+     */
+    int[] retainAll(int[] candidates, int candidateCount) {
+        int[] out = new int[Math.min(candidateCount, count)];
+        int n = 0;
+        int pos = 0;
+        int prev = -1;
+        int decoded = 0;
+        int c = 0;
+        while (c < candidateCount && decoded < count) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            prev = prev + delta + 1;
+            decoded++;
+
+            while (c < candidateCount && candidates[c] < prev) c++;
+            if (c < candidateCount && candidates[c] == prev) {
+                out[n++] = prev;
+                c++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,467 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * แถว import แบบ columnar ชุดละไม่เกิน {@link #MAX_ROWS} แถว (1 record ใน segment ของ staging)
+ *
+ * <p>ชนิดของแต่ละคอลัมน์เลือกตอน encode จากค่าจริงใน batch — ใช้ชนิด primitive ได้ก็ต่อเมื่อ
+ * ทุกค่าแปลงกลับเป็น String ได้ตรงตัวอักษรเดิม (ค่าที่ normalize แล้ว) ไม่งั้นเก็บเป็นข้อความ:
+ * <ul>
+ *   <li>INTEGER : long ("123", ไม่มี 0 นำหน้า)</li>
+ *   <li>DECIMAL : unscaled long + scale เดียวทั้งคอลัมน์ ("1234.50")</li>
+ *   <li>DATE / DATE_TIME : epoch-day int (+ วินาทีของวัน) ("yyyy-MM-dd" / "yyyy-MM-dd HH:mm:ss")</li>
+ *   <li>DICT : dictionary + code 1/2 byte ต่อแถว (ค่าซ้ำมาก เช่น client code, survey type)</li>
+ *   <li>TEXT : offsets + UTF-8</li>
+ * </ul>
+ * null และ "" เก็บเป็น bitmap ต่อคอลัมน์ (มีเฉพาะคอลัมน์ที่มีค่านั้น)
+ *
+ * <p>ฝั่งอ่าน ({@link #at}) อ่านแบบ absolute บน buffer ที่ map ไว้ แปลงเป็น String เฉพาะแถวที่ขอ
+ */
+public final class RowBatch {
+
+    public static final int MAX_ROWS = 4096;
+
+    private static final byte TEXT = 0, DICT = 1, INTEGER = 2, DECIMAL = 3, DATE = 4, DATE_TIME = 5;
+    private static final byte HAS_NULLS = 1, HAS_EMPTIES = 2;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.US);
+
+    // ===================== write =====================
+
+    /** สะสมแถว (String) จนเต็ม batch แล้ว encode ทีละคอลัมน์ — ไม่ thread-safe */
+    public static final class Builder {
+
+        private final List<List<String>> rows = new ArrayList<>(MAX_ROWS);
+
+        /** @return true เมื่อเต็ม batch แล้ว (ต้อง encode ก่อนเพิ่มต่อ) */
+        public boolean add(List<String> cells) {
+            rows.add(cells);
+            return rows.size() >= MAX_ROWS;
+        }
+
+        public int size() {
+            return rows.size();
+        }
+
+        public boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        /** เขียน batch ลง out แล้วล้าง builder */
+        public void encodeTo(DataOutputStream out) throws IOException {
+            int n = rows.size();
+            int columns = 0;
+            for (List<String> r : rows) columns = Math.max(columns, r.size());
+            boolean uniform = true;
+            for (List<String> r : rows) {
+                if (r.size() != columns) uniform = false;
+            }
+
+            out.writeInt(n);
+            out.writeInt(columns);
+            out.writeBoolean(uniform);
+            if (!uniform) {
+                for (List<String> r : rows) out.writeInt(r.size());
+            }
+
+            String[] values = new String[n];
+            for (int c = 0; c < columns; c++) {
+                for (int r = 0; r < n; r++) {
+                    List<String> row = rows.get(r);
+                    values[r] = (c < row.size()) ? row.get(c) : null;
+                }
+                encodeColumn(values, out);
+            }
+            rows.clear();
+        }
+    }
+
+    private static void encodeColumn(String[] v, DataOutputStream out) throws IOException {
+        int n = v.length;
+        long[] nulls = new long[words(n)];
+        long[] empties = new long[words(n)];
+        boolean anyNull = false, anyEmpty = false;
+        for (int r = 0; r < n; r++) {
+            if (v[r] == null) {
+                nulls[r >>> 6] |= 1L << r;
+                anyNull = true;
+            } else if (v[r].isEmpty()) {
+                empties[r >>> 6] |= 1L << r;
+                anyEmpty = true;
+            }
+        }
+
+        long[] longs = new long[n];
+        int[] ints = new int[n];
+        int[] seconds = new int[n];
+        byte kind;
+        int scale = -1;
+        if (allIntegers(v, longs)) {
+            kind = INTEGER;
+        } else if ((scale = decimalScale(v, longs)) >= 0) {
+            kind = DECIMAL;
+        } else if (allDates(v, ints)) {
+            kind = DATE;
+        } else if (allDateTimes(v, ints, seconds)) {
+            kind = DATE_TIME;
+        } else {
+            kind = TEXT;
+        }
+
+        Map<String, Integer> dict = null;
+        if (kind == TEXT) {
+            dict = dictionary(v);
+            if (dict != null) kind = DICT;
+        }
+
+        out.writeByte(kind);
+        out.writeByte((anyNull ? HAS_NULLS : 0) | (anyEmpty ? HAS_EMPTIES : 0));
+        if (anyNull) for (long w : nulls) out.writeLong(w);
+        if (anyEmpty) for (long w : empties) out.writeLong(w);
+
+        switch (kind) {
+            case INTEGER -> {
+                for (long x : longs) out.writeLong(x);
+            }
+            case DECIMAL -> {
+                out.writeByte(scale);
+                for (long x : longs) out.writeLong(x);
+            }
+            case DATE -> {
+                for (int d : ints) out.writeInt(d);
+            }
+            case DATE_TIME -> {
+                for (int d : ints) out.writeInt(d);
+                for (int s : seconds) out.writeInt(s);
+            }
+            case DICT -> {
+                String[] entries = new String[dict.size()];
+                dict.forEach((s, code) -> entries[code] = s);
+                out.writeInt(entries.length);
+                for (String s : entries) {
+                    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(b.length);
+                    out.write(b);
+                }
+                boolean wide = entries.length > 256;
+                out.writeBoolean(wide);
+                for (String s : v) {
+                    int code = isBlank(s) ? 0 : dict.get(s);
+                    if (wide) out.writeShort(code);
+                    else out.writeByte(code);
+                }
+            }
+            default -> {
+                byte[][] bytes = new byte[n][];
+                int total = 0;
+                for (int r = 0; r < n; r++) {
+                    bytes[r] = isBlank(v[r]) ? new byte[0] : v[r].getBytes(StandardCharsets.UTF_8);
+                    total += bytes[r].length;
+                }
+                out.writeInt(total);
+                int offset = 0;
+                for (int r = 0; r < n; r++) {
+                    out.writeInt(offset);
+                    offset += bytes[r].length;
+                }
+                for (byte[] b : bytes) out.write(b);
+            }
+        }
+    }
+
+    // null/"" อยู่ใน bitmap แล้ว ไม่ต้องเก็บค่า
+    private static boolean isBlank(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    /** "0", "-12", "345" (ไม่เกิน 18 หลัก, ไม่มี 0 นำหน้า/เครื่องหมาย +) */
+    private static boolean allIntegers(String[] v, long[] out) {
+        boolean any = false;
+        for (int r = 0; r < v.length; r++) {
+            String s = v[r];
+            if (isBlank(s)) continue;
+            int digitsFrom = s.charAt(0) == '-' ? 1 : 0;
+            int len = s.length() - digitsFrom;
+            if (len < 1 || len > 18 || !digits(s, digitsFrom, s.length())) return false;
+            if (s.charAt(digitsFrom) == '0' && (len > 1 || digitsFrom == 1)) return false;
+            out[r] = Long.parseLong(s);
+            any = true;
+        }
+        return any;
+    }
+
+    /** "1234.50", "-0.25" — scale เท่ากันทั้งคอลัมน์ (ผลของ decimal rule) คืน scale หรือ -1 */
+    private static int decimalScale(String[] v, long[] out) {
+        int scale = -1;
+        for (int r = 0; r < v.length; r++) {
+            String s = v[r];
+            if (isBlank(s)) continue;
+            int dot = s.indexOf('.');
+            int from = s.charAt(0) == '-' ? 1 : 0;
+            if (dot <= from || dot == s.length() - 1) return -1;
+            int sc = s.length() - dot - 1;
+            if (scale < 0) scale = sc;
+            if (sc != scale || scale > 18) return -1;
+            if (!digits(s, from, dot) || !digits(s, dot + 1, s.length())) return -1;
+            if (s.charAt(from) == '0' && dot - from > 1) return -1; // 0 นำหน้า
+            String unscaled = s.substring(from, dot) + s.substring(dot + 1);
+            if (unscaled.length() > 18) return -1;
+            long x = Long.parseLong(unscaled);
+            if (x == 0 && from == 1) return -1; // -0.00 กลับมาเป็น 0.00
+            out[r] = (from == 1) ? -x : x;
+        }
+        return scale;
+    }
+
+    /** yyyy-MM-dd */
+    private static boolean allDates(String[] v, int[] days) {
+        boolean any = false;
+        for (int r = 0; r < v.length; r++) {
+            String s = v[r];
+            if (isBlank(s)) continue;
+            if (s.length() != 10 || !dateShape(s)) return false;
+            LocalDate d = parseDate(s);
+            if (d == null || !d.toString().equals(s)) return false;
+            days[r] = Math.toIntExact(d.toEpochDay());
+            any = true;
+        }
+        return any;
+    }
+
+    /** yyyy-MM-dd HH:mm:ss (ผลของ dateTime rule) */
+    private static boolean allDateTimes(String[] v, int[] days, int[] seconds) {
+        boolean any = false;
+        for (int r = 0; r < v.length; r++) {
+            String s = v[r];
+            if (isBlank(s)) continue;
+            if (s.length() != 19 || !dateShape(s) || s.charAt(10) != ' ' || s.charAt(13) != ':' || s.charAt(16) != ':') {
+                return false;
+            }
+            LocalDate d = parseDate(s.substring(0, 10));
+            if (d == null) return false;
+            LocalDateTime dt;
+            try {
+                dt = d.atTime(LocalTime.parse(s.substring(11)));
+            } catch (DateTimeException e) {
+                return false;
+            }
+            if (!dt.format(DATE_TIME_FORMAT).equals(s)) return false;
+            days[r] = Math.toIntExact(d.toEpochDay());
+            seconds[r] = dt.toLocalTime().toSecondOfDay();
+            any = true;
+        }
+        return any;
+    }
+
+    private static boolean dateShape(String s) {
+        return s.charAt(4) == '-' && s.charAt(7) == '-'
+                && digits(s, 0, 4) && digits(s, 5, 7) && digits(s, 8, 10);
+    }
+
+    private static LocalDate parseDate(String s) {
+        try {
+            return LocalDate.parse(s);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean digits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return from < to;
+    }
+
+    /** ค่าไม่ซ้ำไม่เกิน 1/4 ของแถวที่มีค่า -> dictionary (code 0 ของแถวว่างไม่ถูกอ่าน) */
+    private static Map<String, Integer> dictionary(String[] v) {
+        int filled = 0;
+        for (String s : v) {
+            if (!isBlank(s)) filled++;
+        }
+        int max = Math.min(65_536, filled / 4);
+        if (max == 0) return null;
+        Map<String, Integer> dict = new HashMap<>();
+        for (String s : v) {
+            if (isBlank(s)) continue;
+            if (dict.putIfAbsent(s, dict.size()) == null && dict.size() > max) return null;
+        }
+        return dict;
+    }
+
+    private static int words(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    // ===================== read =====================
+
+    private final ByteBuffer buf;
+    private final int rows;
+    private final int columns;
+    private final int widthsAt; // -1 = ทุกแถวกว้างเท่ากัน
+
+    private final byte[] kinds;
+    private final int[] nullsAt;   // -1 = ไม่มี
+    private final int[] emptiesAt; // -1 = ไม่มี
+    private final int[] dataAt;
+    private final int[] scales;
+    private final int[] codesAt;
+    private final boolean[] wideCodes;
+    private final String[][] dicts;
+
+    private RowBatch(ByteBuffer buf, int offset) {
+        this.buf = buf;
+        int p = offset;
+        rows = buf.getInt(p);
+        columns = buf.getInt(p + 4);
+        boolean uniform = buf.get(p + 8) != 0;
+        p += 9;
+        widthsAt = uniform ? -1 : p;
+        if (!uniform) p += rows * Integer.BYTES;
+
+        kinds = new byte[columns];
+        nullsAt = new int[columns];
+        emptiesAt = new int[columns];
+        dataAt = new int[columns];
+        scales = new int[columns];
+        codesAt = new int[columns];
+        wideCodes = new boolean[columns];
+        dicts = new String[columns][];
+        int bitmap = words(rows) * Long.BYTES;
+        for (int c = 0; c < columns; c++) {
+            kinds[c] = buf.get(p);
+            byte flags = buf.get(p + 1);
+            p += 2;
+            nullsAt[c] = ((flags & HAS_NULLS) != 0) ? p : -1;
+            if ((flags & HAS_NULLS) != 0) p += bitmap;
+            emptiesAt[c] = ((flags & HAS_EMPTIES) != 0) ? p : -1;
+            if ((flags & HAS_EMPTIES) != 0) p += bitmap;
+            p = skipData(c, p);
+        }
+    }
+
+    /** batch ที่เริ่มที่ offset (อ่าน header ของคอลัมน์เท่านั้น ค่าแปลงตอนขอแถว) */
+    public static RowBatch at(ByteBuffer buf, int offset) {
+        return new RowBatch(buf, offset);
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    /** แปลงแถวเดียวเป็น String (ค่าเดียวกับที่เขียนเข้าไป) */
+    public List<String> row(int r) {
+        int width = (widthsAt < 0) ? columns : buf.getInt(widthsAt + r * Integer.BYTES);
+        List<String> cells = new ArrayList<>(width);
+        for (int c = 0; c < width; c++) cells.add(cell(r, c));
+        return cells;
+    }
+
+    public String cell(int r, int c) {
+        if (bit(nullsAt[c], r)) return null;
+        if (bit(emptiesAt[c], r)) return "";
+        int p = dataAt[c];
+        return switch (kinds[c]) {
+            case INTEGER -> Long.toString(buf.getLong(p + r * Long.BYTES));
+            case DECIMAL -> BigDecimal.valueOf(buf.getLong(p + r * Long.BYTES), scales[c]).toPlainString();
+            case DATE -> LocalDate.ofEpochDay(buf.getInt(p + r * Integer.BYTES)).toString();
+            case DATE_TIME -> LocalDate.ofEpochDay(buf.getInt(p + r * Integer.BYTES))
+                    .atTime(LocalTime.ofSecondOfDay(buf.getInt(p + (rows + r) * Integer.BYTES)))
+                    .format(DATE_TIME_FORMAT);
+            case DICT -> dict(c)[dictCode(c, r)];
+            default -> text(p, r);
+        };
+    }
+
+    private boolean bit(int at, int r) {
+        return at >= 0 && (buf.getLong(at + (r >>> 6) * Long.BYTES) & (1L << r)) != 0;
+    }
+
+    private int skipData(int c, int p) {
+        switch (kinds[c]) {
+            case INTEGER -> {
+                dataAt[c] = p;
+                return p + rows * Long.BYTES;
+            }
+            case DECIMAL -> {
+                scales[c] = buf.get(p);
+                dataAt[c] = p + 1;
+                return p + 1 + rows * Long.BYTES;
+            }
+            case DATE -> {
+                dataAt[c] = p;
+                return p + rows * Integer.BYTES;
+            }
+            case DATE_TIME -> {
+                dataAt[c] = p;
+                return p + 2 * rows * Integer.BYTES;
+            }
+            case DICT -> {
+                dataAt[c] = p; // dictionary (decode ครั้งแรกที่ใช้)
+                int size = buf.getInt(p);
+                p += 4;
+                for (int i = 0; i < size; i++) p += 4 + buf.getInt(p);
+                wideCodes[c] = buf.get(p) != 0;
+                codesAt[c] = p + 1;
+                return codesAt[c] + rows * (wideCodes[c] ? 2 : 1);
+            }
+            default -> {
+                dataAt[c] = p;
+                int total = buf.getInt(p);
+                return p + 4 + rows * Integer.BYTES + total;
+            }
+        }
+    }
+
+    private String[] dict(int c) {
+        String[] d = dicts[c];
+        if (d != null) return d;
+        int p = dataAt[c];
+        d = new String[buf.getInt(p)];
+        p += 4;
+        for (int i = 0; i < d.length; i++) {
+            int len = buf.getInt(p);
+            d[i] = string(p + 4, len);
+            p += 4 + len;
+        }
+        dicts[c] = d;
+        return d;
+    }
+
+    private int dictCode(int c, int r) {
+        int p = codesAt[c];
+        return wideCodes[c] ? Short.toUnsignedInt(buf.getShort(p + r * 2)) : Byte.toUnsignedInt(buf.get(p + r));
+    }
+
+    private String text(int p, int r) {
+        int total = buf.getInt(p);
+        int offsets = p + 4;
+        int data = offsets + rows * Integer.BYTES;
+        int from = buf.getInt(offsets + r * Integer.BYTES);
+        int to = (r + 1 < rows) ? buf.getInt(offsets + (r + 1) * Integer.BYTES) : total;
+        return string(data + from, to - from);
+    }
+
+    private String string(int at, int len) {
+        byte[] b = new byte[len];
+        buf.get(at, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * encode แล้ว decode ต้องได้ String ตรงตัวอักษรเดิมทุก cell ไม่ว่าคอลัมน์จะถูกเก็บเป็นชนิดไหน
+ */
+class RowBatchTest {
+
+    @Test
+    void typedColumnsRoundTrip() throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        for (int r = 0; r < 200; r++) {
+            rows.add(Arrays.asList(
+                    Integer.toString(r * 37 - 1000),                   // INTEGER
+                    String.format("%d.%02d", r, r % 100),              // DECIMAL
+                    "2024-01-" + String.format("%02d", r % 28 + 1),    // DATE
+                    "2024-02-29 " + String.format("%02d:%02d:%02d", r % 24, r % 60, r % 60), // DATE_TIME
+                    "CLIENT" + (r % 5),                                // DICT
+                    "ชื่อลูกค้า " + r));                                  // TEXT
+        }
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void nonCanonicalValuesStayText() throws IOException {
+        // ค่าที่แปลงกลับแล้วไม่ได้ตัวอักษรเดิม ต้องไม่ถูกเก็บเป็นตัวเลข/วันที่
+        assertRoundTrip(List.of(
+                List.of("007", "1.5", "2024-1-05", "-0.00", "+1"),
+                List.of("12", "1.50", "2024-01-05", "0.00", "1"),
+                List.of("-0", "10", "2024-02-30", "1e3", "9223372036854775808")));
+    }
+
+    @Test
+    void nullsEmptiesAndRaggedRowsRoundTrip() throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(Arrays.asList("1", null, "", "a"));
+        rows.add(Arrays.asList(null, "2024-03-01", "x"));
+        rows.add(Arrays.asList("", "", ""));
+        rows.add(List.of("3"));
+        rows.add(Arrays.asList("4", "2024-03-02", null, "b", "extra"));
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void wideDictionaryAndFullBatches() throws IOException {
+        // 300 ค่าไม่ซ้ำใน 4096 แถว -> dictionary ที่ code 2 byte, แถวเกิน MAX_ROWS -> หลาย batch
+        List<List<String>> rows = new ArrayList<>();
+        for (int r = 0; r < RowBatch.MAX_ROWS * 2 + 17; r++) {
+            rows.add(List.of("SURVEY-" + (r % 300), Integer.toString(r)));
+        }
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void decodesSingleCellsWithoutTouchingOtherRows() throws IOException {
+        List<List<String>> rows = List.of(List.of("1", "a"), List.of("2", "b"), List.of("3", "c"));
+        Encoded e = encode(rows);
+        RowBatch batch = RowBatch.at(e.buf, e.offsets.get(0));
+
+        assertThat(batch.rowCount()).isEqualTo(3);
+        assertThat(batch.cell(2, 1)).isEqualTo("c");
+        assertThat(batch.row(1)).containsExactly("2", "b");
+    }
+
+    // ===================== helpers =====================
+
+    private record Encoded(ByteBuffer buf, List<Integer> offsets) {
+    }
+
+    private static Encoded encode(List<List<String>> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> offsets = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RowBatch.Builder b = new RowBatch.Builder();
+            for (List<String> row : rows) {
+                if (b.add(row)) {
+                    offsets.add(out.size());
+                    b.encodeTo(out);
+                }
+            }
+            if (!b.isEmpty()) {
+                offsets.add(out.size());
+                b.encodeTo(out);
+            }
+        }
+        return new Encoded(ByteBuffer.wrap(bytes.toByteArray()), offsets);
+    }
+
+    private static void assertRoundTrip(List<List<String>> rows) throws IOException {
+        Encoded e = encode(rows);
+        List<List<String>> decoded = new ArrayList<>();
+        for (int offset : e.offsets) {
+            RowBatch batch = RowBatch.at(e.buf, offset);
+            for (int r = 0; r < batch.rowCount(); r++) decoded.add(batch.row(r));
+        }
+        assertThat(decoded).isEqualTo(rows);
+    }
+}
@@ -0,0 +1,107 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ผลเทียบ fingerprint ของ import กับ upload ที่บันทึกล่าสุด (template/client เดียวกัน)
+ *
+ * <p>staging มีเฉพาะแถว new/changed (รวมแถวที่ไม่มี key หรือ key ซ้ำในไฟล์)
+ * unchanged ถูกข้ามตั้งแต่ก่อน validate ส่วน removed คือ key ที่เคยมีแต่ไม่อยู่ในไฟล์นี้ (นับอย่างเดียว ไม่ลบจาก DB)
+ */
+public final class RowDelta {
+
+    /**
+     * ส่วนของ 1 sheet: candidate = fingerprint ของทั้งไฟล์ (จะเป็นฐานของรอบหน้าเมื่อบันทึก)
+     * stagedKeys[i] = key ของแถว staging ลำดับ rowBase + i ({@link FingerprintIndex#ABSENT} ถ้าไม่ต้องย้อน)
+     * sourceRows[i] = ลำดับของแถวนั้นใน sheet ก่อนกรอง (แถวในไฟล์ = sourceBase + sourceRows[i])
+     */
+    record Part(String scope, boolean keyed, FingerprintIndex base, FingerprintIndex candidate,
+                long[] stagedKeys, long rowBase, int[] sourceRows, long sourceBase) {
+    }
+
+    private final List<Part> parts;
+    private final long newRows;
+    private final long changedRows;
+    private final long unchangedRows;
+    private final long removedRows;
+    private final long unkeyedRows;
+    private final AtomicBoolean accepted = new AtomicBoolean();
+
+    private RowDelta(List<Part> parts, long newRows, long changedRows, long unchangedRows, long removedRows,
+                     long unkeyedRows) {
+        this.parts = parts;
+        this.newRows = newRows;
+        this.changedRows = changedRows;
+        this.unchangedRows = unchangedRows;
+        this.removedRows = removedRows;
+        this.unkeyedRows = unkeyedRows;
+    }
+
+    /** รวม filter ของแต่ละ sheet ตามลำดับที่ staging ต่อกัน */
+    static RowDelta of(List<RowFingerprintStore.Filter> filters) {
+        List<Part> parts = new ArrayList<>(filters.size());
+        long base = 0, source = 0, added = 0, changed = 0, unchanged = 0, removed = 0, unkeyed = 0;
+        for (RowFingerprintStore.Filter f : filters) {
+            parts.add(f.part(base, source));
+            base += f.getStagedRows();
+            source += f.getSourceRowCount();
+            added += f.getNewRows();
+            changed += f.getChangedRows();
+            unchanged += f.getUnchangedRows();
+            removed += f.getRemovedRows();
+            unkeyed += f.getUnkeyedRows();
+        }
+        return new RowDelta(List.copyOf(parts), added, changed, unchanged, removed, unkeyed);
+    }
+
+    List<Part> parts() {
+        return parts;
+    }
+
+    /**
+     * ลำดับแถว (0-based) ในไฟล์ที่ upload ของแถว staging — เลขที่ผู้ใช้เห็นใน error/preview และบันทึกเป็น row_no
+     * (staging มีเฉพาะแถวที่เปลี่ยน ลำดับใน staging จึงไม่ตรงกับไฟล์)
+     */
+    public long sourceRow(long rowNo) {
+        for (int p = parts.size() - 1; p >= 0; p--) {
+            Part part = parts.get(p);
+            long i = rowNo - part.rowBase();
+            if (i < 0) continue;
+            return (i < part.sourceRows().length) ? part.sourceBase() + part.sourceRows()[(int) i] : rowNo;
+        }
+        return rowNo;
+    }
+
+    /** true ครั้งแรกเท่านั้น (save ซ้ำไม่ต้องย้าย index อีก) */
+    boolean markAccepted() {
+        return accepted.compareAndSet(false, true);
+    }
+
+    public long getNewRows() {
+        return newRows;
+    }
+
+    public long getChangedRows() {
+        return changedRows;
+    }
+
+    public long getUnchangedRows() {
+        return unchangedRows;
+    }
+
+    public long getRemovedRows() {
+        return removedRows;
+    }
+
+    /** แถวที่ไม่มี CIF/agreement no. (หรือ key ซ้ำในไฟล์) ส่งต่อทุกครั้ง */
+    public long getUnkeyedRows() {
+        return unkeyedRows;
+    }
+
+    public String summary() {
+        return String.format("Compared with last saved upload: %,d new, %,d changed, %,d unchanged (skipped), "
+                + "%,d removed, %,d without key", newRows, changedRows, unchangedRows, removedRows, unkeyedRows);
+    }
+}
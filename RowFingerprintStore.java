@@ -0,0 +1,233 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * fingerprint ของ import ที่บันทึกล่าสุด ต่อ scope (template + client ของ sheet) ใช้กรอง upload ซ้ำให้เหลือแค่แถวที่เปลี่ยน
+ *
+ * <p>key ของแถว = CIF (หรือ customer_id) + agreement_no, ค่า = hash ของทุก cell
+ * index ของไฟล์ใหม่จะแทนของเดิมเมื่อ {@link #accept} (หลังบันทึกลง DB) เท่านั้น
+ * และเก็บลง fdu.import.delta.dir ให้อยู่รอดข้าม restart
+ */
+@Slf4j
+@Component
+public class RowFingerprintStore {
+
+    private final Path dir;
+    private final Map<String, Optional<FingerprintIndex>> accepted = new ConcurrentHashMap<>();
+
+    public RowFingerprintStore(
+            @Value("${fdu.import.delta.dir:${java.io.tmpdir}/fdu-import-fingerprints}") String dir) {
+        this.dir = Paths.get(dir);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(dir);
+    }
+
+    /**
+     * filter ของ 1 sheet ที่วางหน้า validation: แถว unchanged ไม่ถูกส่งต่อ
+     *
+     * @param scopeSuffix แยก scope ภายใน template เดียวกัน เช่น client ของ sheet ("" = ทั้งไฟล์)
+     */
+    public Filter filter(String scopeSuffix, XlsxStreamReader.RowHandler downstream) {
+        return new Filter(scopeSuffix, downstream);
+    }
+
+    /**
+     * import ถูกบันทึกแล้ว: fingerprint ของไฟล์นี้เป็นฐานของรอบหน้า
+     * แถวที่ไม่ได้บันทึก (ไม่ผ่าน validation / chunk fail) ย้อนกลับเป็นค่าเดิม จะได้ถูกส่งอีกครั้งรอบหน้า
+     *
+     * @param saved ลำดับแถว staging ที่บันทึกสำเร็จ
+     */
+    public void accept(StagedImport imp, LongPredicate saved) {
+        RowDelta delta = imp.getDelta();
+        if (delta == null || !delta.markAccepted()) return;
+
+        for (RowDelta.Part part : delta.parts()) {
+            if (!part.keyed()) continue;
+            FingerprintIndex index = part.candidate();
+            long[] keys = part.stagedKeys();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == FingerprintIndex.ABSENT || saved.test(part.rowBase() + i)) continue;
+                long old = part.base().get(keys[i]);
+                if (old == FingerprintIndex.ABSENT) index.remove(keys[i]);
+                else index.put(keys[i], old);
+            }
+            accepted.put(part.scope(), Optional.of(index));
+            write(part.scope(), index);
+        }
+    }
+
+    /** index ที่บันทึกล่าสุดของ scope (ว่างถ้ายังไม่เคย) — ห้ามแก้ไข ใช้ร่วมหลาย thread */
+    FingerprintIndex last(String scope) {
+        return accepted.computeIfAbsent(scope, this::read).orElseGet(FingerprintIndex::new);
+    }
+
+    // ===================== filter =====================
+
+    public final class Filter implements XlsxStreamReader.RowHandler {
+
+        private final String scopeSuffix;
+        private final XlsxStreamReader.RowHandler downstream;
+        private final FingerprintIndex candidate = new FingerprintIndex();
+
+        private String scope;
+        private FingerprintIndex base;
+        private int cifColumn = -1;
+        private int agreementColumn = -1;
+        private long[] stagedKeys = new long[1024];
+        private int[] sourceRows = new int[1024]; // ลำดับแถวในไฟล์ (ก่อนกรอง) ของแถว staging
+        private long matched; // key ของฐานที่เจอในไฟล์นี้ (ที่เหลือ = removed)
+
+        @Getter
+        private long sourceRowCount;
+        @Getter
+        private long stagedRows;
+        @Getter
+        private long newRows;
+        @Getter
+        private long changedRows;
+        @Getter
+        private long unchangedRows;
+        @Getter
+        private long unkeyedRows;
+
+        private Filter(String scopeSuffix, XlsxStreamReader.RowHandler downstream) {
+            this.scopeSuffix = scopeSuffix;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void columns(HeaderLayout layout) {
+            scope = layout.getFingerprint() + scopeSuffix;
+            cifColumn = layout.columnOf("cif");
+            if (cifColumn < 0) cifColumn = layout.columnOf("customer_id");
+            agreementColumn = layout.columnOf("agreement_no");
+            base = isKeyed() ? last(scope) : new FingerprintIndex();
+            downstream.columns(layout);
+        }
+
+        @Override
+        public void expectedRows(long rows) {
+            downstream.expectedRows(rows);
+        }
+
+        @Override
+        public void row(List<String> cells) {
+            int source = Math.toIntExact(sourceRowCount++);
+            long key = isKeyed() ? FingerprintIndex.key(cells, cifColumn, agreementColumn) : FingerprintIndex.ABSENT;
+            if (key == FingerprintIndex.ABSENT) {
+                unkeyedRows++;
+                send(cells, FingerprintIndex.ABSENT, source);
+                return;
+            }
+
+            long hash = FingerprintIndex.content(cells);
+            if (candidate.putIfAbsent(key, hash) != FingerprintIndex.ABSENT) {
+                // key ซ้ำในไฟล์เดียวกัน: เก็บ fingerprint ของแถวแรก ส่วนแถวนี้ส่งต่อเสมอ
+                unkeyedRows++;
+                send(cells, FingerprintIndex.ABSENT, source);
+                return;
+            }
+
+            long old = base.get(key);
+            if (old != FingerprintIndex.ABSENT) matched++;
+            if (old == hash) {
+                unchangedRows++;
+                return;
+            }
+            if (old == FingerprintIndex.ABSENT) newRows++;
+            else changedRows++;
+            send(cells, key, source);
+        }
+
+        @Override
+        public void finished(List<String> headers) {
+            downstream.finished(headers);
+        }
+
+        public long getRemovedRows() {
+            return (base == null) ? 0 : base.size() - matched;
+        }
+
+        private boolean isKeyed() {
+            return cifColumn >= 0 && agreementColumn >= 0;
+        }
+
+        private void send(List<String> cells, long key, int source) {
+            int i = Math.toIntExact(stagedRows);
+            if (i == stagedKeys.length) {
+                stagedKeys = Arrays.copyOf(stagedKeys, i * 2);
+                sourceRows = Arrays.copyOf(sourceRows, i * 2);
+            }
+            stagedKeys[i] = key;
+            sourceRows[i] = source;
+            stagedRows++;
+            downstream.row(cells);
+        }
+
+        RowDelta.Part part(long rowBase, long sourceBase) {
+            int n = Math.toIntExact(stagedRows);
+            return new RowDelta.Part(scope, isKeyed(), base, candidate, Arrays.copyOf(stagedKeys, n), rowBase,
+                    Arrays.copyOf(sourceRows, n), sourceBase);
+        }
+    }
+
+    // ===================== disk =====================
+
+    private Path file(String scope) {
+        return dir.resolve(UUID.nameUUIDFromBytes(scope.getBytes(StandardCharsets.UTF_8)) + ".fp");
+    }
+
+    private Optional<FingerprintIndex> read(String scope) {
+        Path f = file(scope);
+        if (!Files.exists(f)) return Optional.empty();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f), 64 * 1024))) {
+            return Optional.of(FingerprintIndex.read(in));
+        } catch (IOException e) {
+            // index เสีย -> ถือว่ายังไม่เคย import (ทุกแถวเป็น new)
+            log.warn("Cannot read fingerprints {}: {}", f, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void write(String scope, FingerprintIndex index) {
+        Path f = file(scope);
+        Path tmp = f.resolveSibling(f.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tmp), 64 * 1024))) {
+                index.write(out);
+            }
+            Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // ยังใช้จาก memory ได้ แค่ไม่รอด restart
+            log.warn("Cannot write fingerprints {}: {}", f, e.getMessage());
+        }
+    }
+}
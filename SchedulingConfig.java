@@ -0,0 +1,10 @@
+package com.aeon.acss.fdu.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** เปิด @Scheduled (เช่น ลบ import staging ที่หมดอายุ) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
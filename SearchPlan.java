@@ -0,0 +1,211 @@
+package com.aeon.acss.fdu.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * แผนค้นหาของ 1 request: compile จาก CustomerSearchCriteria ครั้งเดียว แล้วไม่เปลี่ยนอีก
+ *
+ * <p>เงื่อนไขที่ไม่ได้กรอกถูกตัดทิ้งตั้งแต่ compile ค่าที่เหลือ normalize ไว้แล้ว (lower-case, epoch-day)
+ * แต่ละเงื่อนไขมี estimate จำนวน doc จากสถิติที่ index ดูแลอยู่ — cardinality ของ bitmap,
+ * จำนวน doc ในช่วงวันที่, posting ที่สั้นที่สุดของ trigram หรือจำนวนค่าที่ไม่ว่างของ field (query สั้นกว่า 3 ตัว)
+ * นับรวม doc ที่ลบแล้ว จึงเป็นค่าประมาณด้านบน
+ *
+ * <p>เงื่อนไขที่ดึง doc id จาก index ได้และ estimate น้อยที่สุดเป็น driver ที่เหลือเช็คทีละ doc
+ * เรียงจากถูกไปแพง (bitmap -&gt; ช่วงวันที่ -&gt; substring) แล้วตาม estimate น้อยไปมาก ให้แถวตกเร็วที่สุด
+ * estimate = 0 แปลว่าไม่มีแถวตรงแน่นอน ไม่ต้อง scan เลย
+ *
+ * <p>อ้างอิงโครงสร้างของ index ตรง ๆ — ใช้ได้เฉพาะภายใน read lock เดียวกับที่ compile
+ */
+final class SearchPlan {
+
+    /** ประเภทของเงื่อนไข เรียงตามต้นทุนการเช็คต่อ doc */
+    enum Kind {
+        BITMAP, DAY_RANGE, TRIGRAM, SCAN
+    }
+
+    private static final Comparator<Step> CHECK_ORDER = Comparator
+            .comparing((Step s) -> s.kind)
+            .thenComparingInt(s -> s.estimate);
+
+    private final String filterKey;
+    private final int docCount;
+    private final Step driver;
+    private final List<Step> checks;
+    private final Step empty;
+
+    private SearchPlan(String filterKey, int docCount, Step driver, List<Step> checks, Step empty) {
+        this.filterKey = filterKey;
+        this.docCount = docCount;
+        this.driver = driver;
+        this.checks = checks;
+        this.empty = empty;
+    }
+
+    /**
+     * @param docCount จำนวน doc ทั้งหมด (รวมที่ลบแล้ว) = ขอบเขตของ full scan
+     */
+    static SearchPlan of(String filterKey, int docCount, List<Step> steps) {
+        Step empty = null;
+        Step driver = null;
+        for (Step s : steps) {
+            if (s.estimate == 0 && empty == null) empty = s;
+            if (s.docsFromIndex() && s.estimate < docCount && (driver == null || s.estimate < driver.estimate)) {
+                driver = s;
+            }
+        }
+
+        List<Step> checks = new ArrayList<>(steps.size());
+        for (Step s : steps) {
+            // driver ที่ได้ doc ตรงเงื่อนไขพอดีไม่ต้องเช็คซ้ำ (trigram ได้แค่ candidate ยังต้อง verify)
+            if (s != driver || !s.exact()) checks.add(s);
+        }
+        checks.sort(CHECK_ORDER);
+        return new SearchPlan(filterKey, docCount, driver, List.copyOf(checks), empty);
+    }
+
+    /** doc id ที่ตรงทุกเงื่อนไข (ไม่รวมที่ลบแล้ว) เรียงจากน้อยไปมาก */
+    int[] execute(BitSet deleted) {
+        if (empty != null) return new int[0];
+
+        int[] docs = (driver != null) ? driver.docs() : null;
+        int n = (docs != null) ? docs.length : docCount;
+        int[] out = new int[Math.min(n, 1024)];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int doc = (docs != null) ? docs[i] : i;
+            if (deleted.get(doc) || !matches(doc)) continue;
+            if (count == out.length) out = Arrays.copyOf(out, out.length * 2);
+            out[count++] = doc;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private boolean matches(int doc) {
+        for (Step s : checks) {
+            if (!s.test(doc)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * แผนแบบอ่านได้ (สำหรับ debug log) เช่น
+     * <pre>
+     * plan [client+custName] over 250,000 docs
+     *   driver  client = ABC                   bitmap      ~1,204  (0.48%)
+     *   check   custName contains (3 chars)    trigram    &lt;=8,120  (3.25%)
+     * </pre>
+     * ค่าที่ผู้ใช้พิมพ์ใน substring ไม่ถูกพิมพ์ (อาจเป็นชื่อ/ที่อยู่ลูกค้า) แสดงแค่ความยาว
+     */
+    String explain() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("plan [%s] over %,d docs", filterKey, docCount));
+        if (empty != null) {
+            sb.append(String.format("%n  empty   %s matches no docs", empty.label));
+            return sb.toString();
+        }
+        if (driver != null) line(sb, "driver", driver);
+        else sb.append(String.format("%n  driver  (full scan)"));
+        for (Step s : checks) line(sb, "check", s);
+        return sb.toString();
+    }
+
+    private void line(StringBuilder sb, String role, Step s) {
+        double percent = (docCount == 0) ? 0 : s.estimate * 100.0 / docCount;
+        sb.append(String.format("%n  %-7s %-34s %-9s %3s%,d  (%.2f%%)", role, s.label,
+                s.kind.name().toLowerCase(Locale.ROOT), s.exact() ? "~" : "<=", s.estimate, percent));
+    }
+
+    // ===================== steps =====================
+
+    /** เงื่อนไข 1 ข้อ (ค่าที่ normalize แล้ว + estimate ณ ตอน compile) */
+    abstract static class Step {
+
+        final String label;
+        final Kind kind;
+        final int estimate;
+
+        private Step(String label, Kind kind, int estimate) {
+            this.label = label;
+            this.kind = kind;
+            this.estimate = estimate;
+        }
+
+        abstract boolean test(int doc);
+
+        /** doc id ที่อาจตรง (เรียงแล้ว) ใช้เมื่อเป็น driver */
+        abstract int[] docs();
+
+        boolean docsFromIndex() {
+            return kind != Kind.SCAN;
+        }
+
+        /** docs() ตรงเงื่อนไขพอดี (ไม่ใช่แค่ candidate) */
+        boolean exact() {
+            return kind == Kind.BITMAP || kind == Kind.DAY_RANGE;
+        }
+    }
+
+    /** field = value บน bitmap ต่อค่า (bitmap null = ค่านี้ไม่มีใน index) */
+    static Step bitmap(String field, String value, DocBitmap bitmap) {
+        int estimate = (bitmap == null) ? 0 : bitmap.cardinality();
+        return new Step(field + " = " + value, Kind.BITMAP, estimate) {
+            @Override
+            boolean test(int doc) {
+                return bitmap.contains(doc);
+            }
+
+            @Override
+            int[] docs() {
+                return bitmap.toArray();
+            }
+        };
+    }
+
+    /** วันที่ใน [from, to] (null = ไม่จำกัดฝั่งนั้น) */
+    static Step dayRange(String field, LocalDate from, LocalDate to, DayColumn column) {
+        int fromDay = DayColumn.fromDay(from);
+        int toDay = DayColumn.toDay(to);
+        String label = field + " " + (from != null ? from : "*") + ".." + (to != null ? to : "*");
+        return new Step(label, Kind.DAY_RANGE, column.count(fromDay, toDay)) {
+            @Override
+            boolean test(int doc) {
+                return column.inRange(doc, fromDay, toDay);
+            }
+
+            @Override
+            int[] docs() {
+                return column.docs(fromDay, toDay);
+            }
+        };
+    }
+
+    /**
+     * substring ของค่า lower-case: trigram ถ้า query ยาวพอ ไม่งั้น scan
+     *
+     * @param filled จำนวน doc ที่ field นี้ไม่ว่าง (estimate ของ query ที่ใช้ trigram ไม่ได้)
+     */
+    static Step substring(String field, int fieldNo, String loweredQuery, TrigramIndex grams,
+                          List<String[]> lowered, int filled) {
+        int bound = grams.estimate(fieldNo, loweredQuery);
+        Kind kind = (bound >= 0) ? Kind.TRIGRAM : Kind.SCAN;
+        String label = field + " contains (" + loweredQuery.length() + " chars)";
+        return new Step(label, kind, (bound >= 0) ? bound : filled) {
+            @Override
+            boolean test(int doc) {
+                String value = lowered.get(doc)[fieldNo];
+                return value != null && value.contains(loweredQuery);
+            }
+
+            @Override
+            int[] docs() {
+                return grams.candidates(fieldNo, loweredQuery);
+            }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.aeon.acss.fdu.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * การเลือก driver จาก estimate, ลำดับการเช็ค, ผลที่ว่างแน่นอน และการ verify candidate ของ trigram
+ */
+class SearchPlanTest {
+
+    private static final int DOCS = 1_000;
+    private static final int NAME = 0;
+    private static final LocalDate JAN_1 = LocalDate.of(2026, 1, 1);
+
+    // doc i: client = C(i % 10), วันที่ = JAN_1 + (i % 100), ชื่อ = "name i" (ทุก 50 doc = "somchai i")
+    private final DocBitmap[] clients = new DocBitmap[10];
+    private final DayColumn days = new DayColumn();
+    private final TrigramIndex grams = new TrigramIndex();
+    private final List<String[]> lowered = new ArrayList<>();
+
+    SearchPlanTest() {
+        for (int c = 0; c < clients.length; c++) clients[c] = new DocBitmap();
+        for (int doc = 0; doc < DOCS; doc++) {
+            clients[doc % 10].add(doc);
+            days.add(doc, JAN_1.plusDays(doc % 100));
+            String name = (doc % 50 == 0 ? "somchai " : "name ") + doc;
+            grams.add(NAME, doc, name);
+            lowered.add(new String[] {name});
+        }
+        days.merge();
+    }
+
+    @Test
+    void narrowestIndexedStepDrivesAndTheRestAreChecked() {
+        SearchPlan.Step client = SearchPlan.bitmap("client", "C0", clients[0]);
+        SearchPlan.Step day = SearchPlan.dayRange("createdDate", JAN_1, JAN_1.plusDays(4), days);
+        SearchPlan.Step name = substring("chai");
+
+        SearchPlan plan = SearchPlan.of("client+createdDate+custName", DOCS, List.of(client, day, name));
+
+        // client 100, วันที่ 50, ชื่อ <= 20 -> trigram เป็น driver แต่ยังต้อง verify (ไม่ exact)
+        assertThat(plan.execute(new BitSet())).containsExactly(expected(d -> d % 10 == 0 && d % 100 < 5
+                && d % 50 == 0));
+        assertThat(plan.explain()).contains("driver  custName contains (4 chars)", "check   client = C0",
+                "check   createdDate 2026-01-01..2026-01-05", "check   custName contains (4 chars)");
+        // เช็คถูกก่อน: bitmap -> ช่วงวันที่ -> substring
+        assertThat(plan.explain().indexOf("check   client")).isLessThan(plan.explain().indexOf("check   createdDate"));
+    }
+
+    @Test
+    void exactDriverIsNotCheckedAgain() {
+        SearchPlan.Step client = SearchPlan.bitmap("client", "C3", clients[3]);
+        SearchPlan.Step day = SearchPlan.dayRange("createdDate", null, JAN_1.plusDays(49), days);
+
+        SearchPlan plan = SearchPlan.of("client+createdDate", DOCS, List.of(day, client));
+
+        assertThat(plan.execute(new BitSet())).containsExactly(expected(d -> d % 10 == 3 && d % 100 < 50));
+        assertThat(plan.explain()).contains("driver  client = C3").doesNotContain("check   client");
+    }
+
+    @Test
+    void deletedDocsAreSkipped() {
+        BitSet deleted = new BitSet();
+        deleted.set(0, 500);
+
+        SearchPlan plan = SearchPlan.of("client", DOCS, List.of(SearchPlan.bitmap("client", "C0", clients[0])));
+
+        assertThat(plan.execute(deleted)).containsExactly(expected(d -> d >= 500 && d % 10 == 0));
+    }
+
+    @Test
+    void stepThatMatchesNothingShortCircuits() {
+        SearchPlan plan = SearchPlan.of("client+custName", DOCS, List.of(
+                substring("chai"), SearchPlan.bitmap("client", "unknown", null)));
+
+        assertThat(plan.execute(new BitSet())).isEmpty();
+        assertThat(plan.explain()).endsWith("empty   client = unknown matches no docs");
+    }
+
+    @Test
+    void shortSubstringScansAndNeverDrives() {
+        SearchPlan.Step name = SearchPlan.substring("custName", NAME, "so", grams, lowered, DOCS);
+
+        SearchPlan plan = SearchPlan.of("custName", DOCS, List.of(name));
+
+        assertThat(name.kind).isEqualTo(SearchPlan.Kind.SCAN);
+        assertThat(plan.execute(new BitSet())).containsExactly(expected(d -> d % 50 == 0));
+        assertThat(plan.explain()).contains("(full scan)", "check   custName contains (2 chars)");
+    }
+
+    @Test
+    void trigramCandidatesAreVerified() {
+        // doc 0 มี abc กับ bcd ครบแต่ไม่ติดกัน -> เป็น candidate แต่ตกตอน contains
+        TrigramIndex index = new TrigramIndex();
+        List<String[]> values = List.of(new String[] {"abcxbcd"}, new String[] {"abcd"}, new String[] {null});
+        for (int doc = 0; doc < values.size(); doc++) index.add(NAME, doc, values.get(doc)[NAME]);
+
+        SearchPlan plan = SearchPlan.of("custName", 3, List.of(
+                SearchPlan.substring("custName", NAME, "abcd", index, values, 2)));
+
+        assertThat(plan.execute(new BitSet())).containsExactly(1);
+        assertThat(plan.explain()).contains("driver  custName contains (4 chars)").doesNotContain("abcd");
+    }
+
+    @Test
+    void broadStepDoesNotDriveAFullScan() {
+        SearchPlan.Step all = SearchPlan.dayRange("createdDate", null, null, days);
+
+        SearchPlan plan = SearchPlan.of("createdDate", DOCS, List.of(all));
+
+        assertThat(plan.execute(new BitSet())).hasSize(DOCS);
+        assertThat(plan.explain()).contains("(full scan)");
+    }
+
+    private SearchPlan.Step substring(String query) {
+        return SearchPlan.substring("custName", NAME, query, grams, lowered, DOCS);
+    }
+
+    private static int[] expected(java.util.function.IntPredicate match) {
+        return IntStream.range(0, DOCS).filter(match).toArray();
+    }
+}
@@ -0,0 +1,104 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * ข้อมูลของไฟล์ที่ import ไว้ใน staging store (ตัวแถวจริงอยู่บน disk)
+ * session ถือแค่ id ของ import นี้
+ */
+@Getter
+public class StagedImport {
+
+    private final String id;
+    private final String fileName;
+    private final Path dir;
+    private final Instant createdAt = Instant.now();
+
+    private volatile List<String> headers = List.of();
+    private volatile long rowCount;
+    private volatile int segmentCount;
+    private volatile boolean ready;
+    private volatile Instant lastAccess = Instant.now();
+    private volatile ValidationReport validation;
+    /** เทียบกับ upload ที่บันทึกล่าสุด (null = import ทุกแถว) */
+    private volatile RowDelta delta;
+
+    // ลำดับแถวเมื่อ sort ตามคอลัมน์ (asc) สร้างครั้งแรกที่ preview sort คอลัมน์นั้น
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, int[]> sortOrders = new ConcurrentHashMap<>();
+
+    // map ครั้งเดียวตอนอ่านครั้งแรก แล้วใช้ร่วมกันทุก cursor (อ่านแบบ absolute เท่านั้น)
+    private MappedByteBuffer index;
+    private MappedByteBuffer[] segments;
+
+    StagedImport(String id, String fileName, Path dir) {
+        this.id = id;
+        this.fileName = fileName;
+        this.dir = dir;
+    }
+
+    void complete(List<String> headers, long rowCount, int segmentCount) {
+        this.headers = List.copyOf(headers);
+        this.rowCount = rowCount;
+        this.segmentCount = segmentCount;
+        this.ready = true;
+    }
+
+    void validated(ValidationReport report) {
+        this.validation = report;
+    }
+
+    void delta(RowDelta delta) {
+        this.delta = delta;
+    }
+
+    /** แถวที่ไม่ผ่าน validation (ไม่บันทึกลง DB) */
+    public boolean isInvalid(long rowNo) {
+        ValidationReport v = validation;
+        return v != null && v.isInvalid(rowNo);
+    }
+
+    /** ลำดับแถวในไฟล์ที่ upload ของแถว staging (import แบบ delta ข้ามแถวที่ไม่เปลี่ยน จึงไม่ตรงกัน) */
+    public long sourceRow(long rowNo) {
+        RowDelta d = delta;
+        return (d != null) ? d.sourceRow(rowNo) : rowNo;
+    }
+
+    int[] sortOrder(int column, Function<Integer, int[]> build) {
+        return sortOrders.computeIfAbsent(column, build);
+    }
+
+    void touch() {
+        lastAccess = Instant.now();
+    }
+
+    synchronized MappedByteBuffer index() throws IOException {
+        if (index == null) index = map(dir.resolve(ImportStagingStore.INDEX_FILE));
+        return index;
+    }
+
+    synchronized MappedByteBuffer segment(int no) throws IOException {
+        if (segments == null) segments = new MappedByteBuffer[segmentCount];
+        if (segments[no] == null) segments[no] = map(dir.resolve(ImportStagingStore.segmentFile(no)));
+        return segments[no];
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(file));
+        }
+    }
+}
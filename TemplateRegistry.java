@@ -0,0 +1,72 @@
+package com.aeon.acss.fdu.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * cache ของ {@link HeaderLayout} ตาม fingerprint ของ header 2 แถว
+ * (ไฟล์ส่วนใหญ่มาจาก import-template_v1.0.xlsx จึง compile แค่ครั้งแรก)
+ */
+@Slf4j
+@Component
+public class TemplateRegistry {
+
+    private static final int MAX_LAYOUTS = 64;
+
+    // LRU เล็ก ๆ กันไฟล์ header แปลก ๆ ทำให้ cache โตไม่หยุด
+    private final Map<String, HeaderLayout> layouts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HeaderLayout> eldest) {
+            return size() > MAX_LAYOUTS;
+        }
+    };
+
+    public HeaderLayout layout(List<String> row1, List<String> row2, int columnCount) {
+        String fp = fingerprint(row1, row2, columnCount);
+        synchronized (layouts) {
+            HeaderLayout layout = layouts.get(fp);
+            if (layout == null) {
+                layout = new HeaderLayout(fp, row1, row2, columnCount);
+                layouts.put(fp, layout);
+                log.debug("Compiled header layout {} ({} columns)", fp, columnCount);
+            }
+            return layout;
+        }
+    }
+
+    public int size() {
+        synchronized (layouts) {
+            return layouts.size();
+        }
+    }
+
+    static String fingerprint(List<String> row1, List<String> row2, int columnCount) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(Integer.toString(columnCount).getBytes(StandardCharsets.UTF_8));
+            update(md, row1);
+            update(md, row2);
+            return HexFormat.of().formatHex(md.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest md, List<String> row) {
+        md.update((byte) 1); // แยกแถว
+        if (row == null) return;
+        for (String cell : row) {
+            md.update((byte) 0);
+            if (cell != null) md.update(cell.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.jupiter.api.Test;
+
+/**
+ * cache ของ layout ตาม header 2 แถว และการ resolve ชื่อ header เต็มจาก merged cells
+ */
+class TemplateRegistryTest {
+
+    private static final List<String> ROW1 = List.of("Customer", "", "", "Account", "");
+    private static final List<String> ROW2 = List.of("client_code(16)", "customer_id(20)", "customer_name(127)",
+            "agreement_no(16)", "agr_outstanding _balance(Decimal15,2)");
+
+    private final TemplateRegistry registry = new TemplateRegistry();
+
+    @Test
+    void sameTemplateIsCompiledOnce() {
+        HeaderLayout first = registry.layout(ROW1, ROW2, 5);
+        HeaderLayout again = registry.layout(new ArrayList<>(ROW1), new ArrayList<>(ROW2), 5);
+
+        assertThat(again).isSameAs(first);
+        assertThat(registry.size()).isEqualTo(1);
+        // ต่างกันแค่จำนวนคอลัมน์ หรือค่าที่ย้ายข้ามแถว = คนละ template
+        assertThat(registry.layout(ROW1, ROW2, 4)).isNotSameAs(first);
+        assertThat(registry.layout(List.of("a", "b"), List.of(), 2))
+                .isNotSameAs(registry.layout(List.of("a"), List.of("b"), 2));
+        assertThat(registry.size()).isEqualTo(4);
+    }
+
+    @Test
+    void cacheKeepsTheMostRecentlyUsedLayouts() {
+        HeaderLayout hot = registry.layout(ROW1, ROW2, 5);
+        for (int i = 0; i < 100; i++) {
+            registry.layout(List.of("Sheet " + i), List.of("col"), 1);
+            registry.layout(ROW1, ROW2, 5); // ใช้ทุกรอบ -> ไม่ถูกไล่ออก
+        }
+
+        assertThat(registry.size()).isEqualTo(64);
+        assertThat(registry.layout(ROW1, ROW2, 5)).isSameAs(hot);
+    }
+
+    @Test
+    void layoutMapsColumnsToFieldsAndRules() {
+        HeaderLayout layout = registry.layout(ROW1, ROW2, 5);
+
+        assertThat(layout.getColumnCount()).isEqualTo(5);
+        assertThat(layout.getRawHeaders()).isEqualTo(ROW2);
+        assertThat(layout.fieldKey(4)).isEqualTo("agr_outstanding_balance");
+        assertThat(layout.fieldKey(9)).isEmpty();
+        assertThat(layout.columnOf("customer_id")).isEqualTo(1);
+        assertThat(layout.columnOf("cif")).isEqualTo(-1);
+        // คู่ คอลัมน์ -> rule เรียงตามคอลัมน์ ชื่อเป็น header ดิบของคอลัมน์นั้น
+        assertThat(layout.ruleColumns()).containsExactly(0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4);
+        assertThat(layout.ruleNames()[12]).isEqualTo("agr_outstanding _balance(Decimal15,2)");
+        assertThat(layout.rules()[12].name()).isEqualTo("decimal(15,2)");
+    }
+
+    @Test
+    void rawHeaderFallsBackToTheTopRow() {
+        HeaderLayout layout = registry.layout(List.of("CIF", "Group"), List.of("", "name"), 3);
+
+        assertThat(layout.getRawHeaders()).containsExactly("CIF", "name", "");
+        assertThat(layout.columnOf("cif")).isZero();
+    }
+
+    @Test
+    void mergedGroupCellsNameEveryColumnUnderThem() {
+        HeaderLayout layout = registry.layout(ROW1, ROW2, 5);
+
+        List<String> headers = layout.headers(0, List.of(
+                CellRangeAddress.valueOf("A1:C1"), CellRangeAddress.valueOf("D1:E1")));
+
+        assertThat(headers).containsExactly("Customer - client_code(16)", "Customer - customer_id(20)",
+                "Customer - customer_name(127)", "Account - agreement_no(16)",
+                "Account - agr_outstanding _balance(Decimal15,2)");
+    }
+
+    @Test
+    void withoutMergedCellsOnlyTheAnchorColumnGetsTheGroup() {
+        HeaderLayout layout = registry.layout(ROW1, ROW2, 5);
+
+        assertThat(layout.headers(0, List.of())).containsExactly("Customer - client_code(16)", "customer_id(20)",
+                "customer_name(127)", "Account - agreement_no(16)", "agr_outstanding _balance(Decimal15,2)");
+    }
+
+    @Test
+    void resolvedHeadersAreCachedPerMergeLayoutRelativeToTheFirstRow() {
+        HeaderLayout layout = registry.layout(ROW1, ROW2, 5);
+        List<String> atTop = layout.headers(0, List.of(CellRangeAddress.valueOf("A1:C1")));
+
+        // header เริ่มแถว 3 + merged cell ในแถวข้อมูล / เกินคอลัมน์สุดท้าย (ไม่เกี่ยวกับ header)
+        List<String> lower = layout.headers(2, List.of(
+                CellRangeAddress.valueOf("A3:C3"), CellRangeAddress.valueOf("A10:B10"),
+                CellRangeAddress.valueOf("H3:J3")));
+
+        assertThat(lower).isSameAs(atTop);
+        assertThat(layout.headers(0, List.of(CellRangeAddress.valueOf("A1:B1")))).isNotSameAs(atTop)
+                .startsWith("Customer - client_code(16)", "Customer - customer_id(20)", "customer_name(127)");
+    }
+}
@@ -0,0 +1,83 @@
+package com.aeon.acss.fdu.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * inverted index ของ trigram (3 ตัวอักษรติดกัน) ต่อ field สำหรับค้นหาแบบ substring
+ *
+ * <p>ค่า "abcd" ถูกแตกเป็น abc, bcd — query "bcd" ต้องอยู่ในทุก posting ของ trigram ใน query
+ * ผลจึงเป็น "candidate" (ต้อง verify ด้วย contains อีกรอบ เพราะ trigram ครบไม่ได้แปลว่าติดกัน)
+ * query สั้นกว่า 3 ตัวอักษรใช้ index ไม่ได้ ({@link #candidates} คืน null)
+ *
+ * <p>ค่าที่ส่งเข้ามาต้อง lower-case แล้ว; ไม่ thread-safe (ผู้ใช้คุม lock เอง)
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    // key = field (16 bit) | c1 | c2 | c3 (16 bit ต่อ char)
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    void add(int field, int docId, String lowered) {
+        if (lowered == null) return;
+        for (int i = 0; i + GRAM <= lowered.length(); i++) {
+            postings.computeIfAbsent(key(field, lowered, i), k -> new PostingList()).add(docId);
+        }
+    }
+
+    /**
+     * doc id ที่มีทุก trigram ของ query (เรียงแล้ว) หรือ null ถ้า query สั้นเกินใช้ index
+     */
+    int[] candidates(int field, String loweredQuery) {
+        if (loweredQuery.length() < GRAM) return null;
+
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= loweredQuery.length(); i++) {
+            PostingList p = postings.get(key(field, loweredQuery, i));
+            if (p == null) return new int[0];
+            lists.add(p);
+        }
+        // เริ่มจาก list ที่สั้นที่สุด candidate จะเล็กตั้งแต่แรก
+        lists.sort(Comparator.comparingInt(PostingList::count));
+
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainAll(result, result.length);
+        }
+        return result;
+    }
+
+    /**
+     * จำนวน doc สูงสุดที่อาจตรง (posting ที่สั้นที่สุดของ query, 0 ถ้ามี trigram ที่ไม่เคยเจอ)
+     * หรือ -1 ถ้า query สั้นเกินใช้ index — ไม่ decode posting
+     */
+    int estimate(int field, String loweredQuery) {
+        if (loweredQuery.length() < GRAM) return -1;
+
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= loweredQuery.length(); i++) {
+            PostingList p = postings.get(key(field, loweredQuery, i));
+            if (p == null) return 0;
+            min = Math.min(min, p.count());
+        }
+        return min;
+    }
+
+    int gramCount() {
+        return postings.size();
+    }
+
+    long sizeInBytes() {
+        long bytes = 0;
+        for (PostingList p : postings.values()) bytes += p.sizeInBytes();
+        return bytes;
+    }
+
+    private static long key(int field, String s, int i) {
+        return ((long) field << 48) | ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,90 @@
+package com.aeon.acss.fdu.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * candidate จาก trigram (ต้อง verify ต่อ), query สั้น, field แยกกัน และ estimate ที่ไม่ decode posting
+ */
+class TrigramIndexTest {
+
+    private static final int NAME = 0;
+    private static final int ADDRESS = 1;
+
+    @Test
+    void candidatesHaveEveryTrigramOfTheQuery() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(NAME, 0, "somchai");
+        index.add(NAME, 1, "somsak");
+        index.add(NAME, 2, "chaiwat");
+        index.add(NAME, 300, "somchai jaidee");
+
+        assertThat(index.candidates(NAME, "som")).containsExactly(0, 1, 300);
+        assertThat(index.candidates(NAME, "chai")).containsExactly(0, 2, 300);
+        assertThat(index.candidates(NAME, "mchai")).containsExactly(0, 300);
+    }
+
+    @Test
+    void candidatesMayNotContainTheQueryAndMustBeVerified() {
+        TrigramIndex index = new TrigramIndex();
+        // มี abc กับ bcd แต่ไม่มี "abcd" ติดกัน
+        index.add(NAME, 0, "abcxbcd");
+        index.add(NAME, 1, "abcd");
+
+        assertThat(index.candidates(NAME, "abcd")).containsExactly(0, 1);
+    }
+
+    @Test
+    void shortQueryCannotUseTheIndex() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(NAME, 0, "somchai");
+
+        assertThat(index.candidates(NAME, "so")).isNull();
+        assertThat(index.estimate(NAME, "so")).isEqualTo(-1);
+    }
+
+    @Test
+    void unknownTrigramMeansNoCandidates() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(NAME, 0, "somchai");
+
+        assertThat(index.candidates(NAME, "somx")).isEmpty();
+        assertThat(index.estimate(NAME, "somx")).isZero();
+    }
+
+    @Test
+    void fieldsAreIndexedSeparately() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(NAME, 0, "bangkok");
+        index.add(ADDRESS, 1, "bangkok");
+        index.add(ADDRESS, 2, null);
+
+        assertThat(index.candidates(NAME, "bang")).containsExactly(0);
+        assertThat(index.candidates(ADDRESS, "bang")).containsExactly(1);
+        assertThat(index.gramCount()).isEqualTo(10);
+    }
+
+    @Test
+    void repeatedTrigramInOneValueIsCountedOnce() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(NAME, 0, "aaaaaa");
+        index.add(NAME, 1, "aaa");
+
+        assertThat(index.gramCount()).isEqualTo(1);
+        assertThat(index.candidates(NAME, "aaaa")).containsExactly(0, 1);
+        assertThat(index.estimate(NAME, "aaa")).isEqualTo(2);
+    }
+
+    @Test
+    void estimateIsTheShortestPosting() {
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 0; id < 1000; id++) index.add(NAME, id, id % 10 == 0 ? "somchai" : "somsak");
+
+        assertThat(index.estimate(NAME, "som")).isEqualTo(1000);
+        assertThat(index.estimate(NAME, "somchai")).isEqualTo(100);
+        assertThat(index.candidates(NAME, "somchai")).hasSize(100).startsWith(0, 10, 20).endsWith(990);
+        // som 1000 + omc/mch/cha/hai 4 x 100 + oms/msa/sak 3 x 900 id, delta ทุกตัว < 128 = 1 byte ต่อ id
+        assertThat(index.sizeInBytes()).isEqualTo(4100);
+    }
+}
@@ -0,0 +1,51 @@
+package com.aeon.acss.fdu.importer;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * ผลตรวจ/normalize ของ import หนึ่งไฟล์
+ *
+ * @param invalidRows ลำดับแถว staging (0-based) ที่มี error อย่างน้อย 1 ช่อง
+ * @param errors      error แรก ๆ (เก็บไม่เกิน limit) เรียงตามแถว
+ */
+public record ValidationReport(long rowsChecked,
+                               BitSet invalidRows,
+                               long errorCount,
+                               List<RowError> errors,
+                               List<RuleStats> rules,
+                               long elapsedMillis) {
+
+    /**
+     * @param rowNo       ลำดับแถวใน staging (0-based)
+     * @param sourceRowNo ลำดับแถวในไฟล์ที่ upload (0-based) — ต่างจาก rowNo เมื่อ import แบบ delta
+     */
+    public record RowError(long rowNo, long sourceRowNo, String column, String value, String message) {
+    }
+
+    /** throughput ของ rule หนึ่งบนคอลัมน์หนึ่ง */
+    public record RuleStats(String column, String rule, long values, long failures, long nanos) {
+
+        public long valuesPerSecond() {
+            return nanos == 0 ? values : values * 1_000_000_000L / nanos;
+        }
+    }
+
+    /** แปลงเลขแถวของ error เป็นแถวในไฟล์ (หลังรู้ว่า delta ข้ามแถวไหนไป) */
+    public ValidationReport withSourceRows(LongUnaryOperator sourceRow) {
+        List<RowError> mapped = errors.stream()
+                .map(e -> new RowError(e.rowNo(), sourceRow.applyAsLong(e.rowNo()), e.column(), e.value(),
+                        e.message()))
+                .toList();
+        return new ValidationReport(rowsChecked, invalidRows, errorCount, mapped, rules, elapsedMillis);
+    }
+
+    public int invalidRowCount() {
+        return invalidRows.cardinality();
+    }
+
+    public boolean isInvalid(long rowNo) {
+        return rowNo <= Integer.MAX_VALUE && invalidRows.get((int) rowNo);
+    }
+}
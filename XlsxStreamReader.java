@@ -0,0 +1,461 @@
+package com.aeon.acss.fdu.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.ExcelNumberFormat;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * อ่านไฟล์ .xlsx แบบ streaming (SAX) ทีละแถว แทนการสร้าง XSSFWorkbook ทั้งไฟล์
+ *
+ * <p>กติกาเหมือนของเดิมใน ImportExcelController:
+ * header 2 แถวแรก (รองรับ merged cells), ข้อมูลเริ่มแถวที่ 3, ข้ามแถวว่าง,
+ * และแปลงค่า cell แบบเดียวกับ getCellString (numeric -> String.valueOf(double),
+ * date -> String.valueOf(LocalDateTime), formula -> สูตร)
+ *
+ * <p>merged regions อยู่ท้าย sheet XML เสมอ จึงเก็บเฉพาะ 2 แถว header ไว้
+ * แล้ว resolve ชื่อ header ตอนจบ sheet ({@link HeaderLayout}) ส่วนแถวข้อมูลส่งออกไปทันทีที่อ่านจบ
+ *
+ * <p>{@link #readSheets} อ่านทุก sheet ที่ไม่ซ่อนพร้อมกันบน executor ที่ส่งมา (shared strings/styles ใช้ร่วมกัน)
+ */
+public class XlsxStreamReader {
+
+    private final TemplateRegistry templates;
+
+    public XlsxStreamReader(TemplateRegistry templates) {
+        this.templates = templates;
+    }
+
+    /** รับแถวข้อมูลทีละแถว (จำนวน cell = จำนวน header เสมอ) */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(List<String> cells);
+
+        /** จำนวนแถวข้อมูลโดยประมาณจาก &lt;dimension&gt; (รวมแถวว่าง) ใช้คำนวณ % progress */
+        default void expectedRows(long rows) {
+        }
+
+        /**
+         * เรียกครั้งเดียวก่อนแถวข้อมูลแรก: layout ของ header (column -&gt; field/rule)
+         * ชื่อ header เต็มยังไม่ resolve merged cells (merged regions อยู่ท้ายไฟล์)
+         */
+        default void columns(HeaderLayout layout) {
+        }
+
+        /** จบ sheet แล้ว (เรียกบน thread ที่อ่าน sheet นั้น) พร้อม headers ที่ resolve แล้ว */
+        default void finished(List<String> headers) {
+        }
+    }
+
+    /** sheet ของ workbook: index ตามลำดับใน workbook (0-based) และชื่อ tab */
+    public record Sheet(int index, String name) {
+    }
+
+    /** ผลของ sheet หนึ่งจาก {@link #readSheets} */
+    public record SheetResult(Sheet sheet, List<String> headers) {
+    }
+
+    /**
+     * อ่าน sheet แรกของไฟล์
+     *
+     * @return headers ที่ resolve แล้ว (ลำดับเดียวกับ cell ในแต่ละแถว)
+     */
+    public List<String> read(Path file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sst = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = workbookInfo(reader).date1904();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) return new ArrayList<>();
+
+            try (InputStream sheet = sheets.next()) {
+                SheetHandler sh = new SheetHandler(templates, sst, styles, date1904, handler);
+                parse(sheet, sh);
+                handler.finished(sh.headers);
+                return sh.headers;
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid .xlsx file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * อ่านทุก sheet ที่ไม่ซ่อน พร้อมกันบน executor (1 sheet = 1 task) ใช้เวลาราว sheet ที่ใหญ่ที่สุด
+     * ถ้า executor มี thread พอ — handler ของแต่ละ sheet ถูกเรียกจาก thread ของ sheet นั้นเท่านั้น
+     *
+     * <p>sheet ใด fail ที่เหลือจะหยุดที่แถวถัดไป แล้ว throw error แรก (รอทุก task จบก่อนปิดไฟล์)
+     *
+     * @param handlers สร้าง handler ของแต่ละ sheet (เรียกบน thread ของ sheet นั้น)
+     * @return ผลเรียงตามลำดับ sheet ใน workbook
+     */
+    public List<SheetResult> readSheets(Path file, Executor executor, Function<Sheet, RowHandler> handlers)
+            throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sst = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            WorkbookInfo info = workbookInfo(reader);
+
+            List<Sheet> visible = new ArrayList<>();
+            List<PackagePart> parts = new ArrayList<>();
+            XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int i = 0; it.hasNext(); i++) {
+                it.next().close();
+                if (info.hiddenSheets().contains(it.getSheetName())) continue;
+                visible.add(new Sheet(i, it.getSheetName()));
+                parts.add(it.getSheetPart());
+            }
+
+            AtomicBoolean abort = new AtomicBoolean();
+            List<CompletableFuture<SheetResult>> tasks = new ArrayList<>(visible.size());
+            for (int i = 0; i < visible.size(); i++) {
+                Sheet sheet = visible.get(i);
+                PackagePart part = parts.get(i);
+                tasks.add(CompletableFuture.supplyAsync(() -> {
+                    RowHandler handler = abortable(handlers.apply(sheet), abort);
+                    try (InputStream in = open(pkg, part)) {
+                        SheetHandler sh = new SheetHandler(templates, sst, styles, info.date1904(), handler);
+                        parse(in, sh);
+                        handler.finished(sh.headers);
+                        return new SheetResult(sheet, sh.headers);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (SAXException | ParserConfigurationException e) {
+                        throw new UncheckedIOException(new IOException(
+                                "Invalid sheet '" + sheet.name() + "': " + e.getMessage(), e));
+                    } catch (RuntimeException e) {
+                        abort.set(true);
+                        throw e;
+                    }
+                }, executor).whenComplete((r, e) -> {
+                    if (e != null) abort.set(true);
+                }));
+            }
+
+            // รอทุก sheet (อ่านจาก package เดียวกัน ห้ามปิดก่อน) แล้วค่อยโยน error แรก
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            List<SheetResult> results = new ArrayList<>(tasks.size());
+            Throwable failure = null;
+            for (CompletableFuture<SheetResult> task : tasks) {
+                try {
+                    results.add(task.join());
+                } catch (CompletionException e) {
+                    // sheet ที่ถูก abort ตาม sheet อื่นไม่ใช่ต้นเหตุ
+                    if (failure == null || failure instanceof CancellationException) failure = e.getCause();
+                }
+            }
+            if (failure instanceof UncheckedIOException io) throw io.getCause();
+            if (failure instanceof RuntimeException re) throw re;
+            if (failure instanceof Error err) throw err;
+            return results;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid .xlsx file: " + e.getMessage(), e);
+        }
+    }
+
+    // sheet อื่น fail แล้ว -> หยุดที่แถวถัดไป (CancellationException เหมือนผู้ใช้กดยกเลิก)
+    private static RowHandler abortable(RowHandler handler, AtomicBoolean abort) {
+        return new RowHandler() {
+            @Override
+            public void row(List<String> cells) {
+                if (abort.get()) throw new CancellationException();
+                handler.row(cells);
+            }
+
+            @Override
+            public void expectedRows(long rows) {
+                handler.expectedRows(rows);
+            }
+
+            @Override
+            public void columns(HeaderLayout layout) {
+                handler.columns(layout);
+            }
+
+            @Override
+            public void finished(List<String> headers) {
+                handler.finished(headers);
+            }
+        };
+    }
+
+    // เปิด stream ของ part ทีละ thread; อ่านพร้อมกันได้ (entry คนละตัวของ ZipFile)
+    private static InputStream open(OPCPackage pkg, PackagePart part) throws IOException {
+        synchronized (pkg) {
+            return part.getInputStream();
+        }
+    }
+
+    private static void parse(InputStream in, DefaultHandler handler)
+            throws IOException, SAXException, ParserConfigurationException {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(in));
+    }
+
+    /** date1904 มีผลกับการแปลงวันที่ (เหมือน getLocalDateTimeCellValue), hiddenSheets = ชื่อ sheet ที่ซ่อน */
+    private record WorkbookInfo(boolean date1904, Set<String> hiddenSheets) {
+    }
+
+    private static WorkbookInfo workbookInfo(XSSFReader reader)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        boolean[] date1904 = {false};
+        Set<String> hidden = new HashSet<>();
+        try (InputStream wb = reader.getWorkbookData()) {
+            parse(wb, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attrs) {
+                    if ("workbookPr".equals(localName)) {
+                        String v = attrs.getValue("date1904");
+                        date1904[0] = "1".equals(v) || "true".equalsIgnoreCase(v);
+                    } else if ("sheet".equals(localName)) {
+                        String state = attrs.getValue("state");
+                        if (state != null && !"visible".equals(state)) hidden.add(attrs.getValue("name"));
+                    }
+                }
+            });
+        }
+        return new WorkbookInfo(date1904[0], hidden);
+    }
+
+    /** "AB12" -> 27 (0-based) */
+    static int columnIndex(String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch < 'A' || ch > 'Z') break;
+            col = col * 26 + (ch - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    // ===================== SAX handler =====================
+
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final TemplateRegistry templates;
+        private final ReadOnlySharedStringsTable sst;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+
+        // cache ว่า style index ไหนเป็น date format (ไม่ต้องคำนวณซ้ำทุก cell)
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final List<CellRangeAddress> merged = new ArrayList<>();
+        private List<String> headerRow1;
+        private List<String> headerRow2;
+        private HeaderLayout layout;
+        private int columnCount = -1;
+        List<String> headers = List.of();
+
+        // row state
+        private int firstRow = -1;
+        private int rowIdx = -1;
+        private List<String> cells;
+
+        // cell state
+        private int col = -1;
+        private String cellType;
+        private int styleIdx;
+        private boolean hasFormula;
+        private String formulaType;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private final StringBuilder inline = new StringBuilder();
+        private boolean inValue;
+        private boolean inFormula;
+        private boolean inInline;
+        private boolean inPhonetic;
+
+        SheetHandler(TemplateRegistry templates, ReadOnlySharedStringsTable sst, StylesTable styles,
+                     boolean date1904, RowHandler handler) {
+            this.templates = templates;
+            this.sst = sst;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attrs.getValue("r");
+                    rowIdx = (r != null) ? Integer.parseInt(r) - 1 : rowIdx + 1;
+                    if (firstRow < 0) firstRow = rowIdx;
+                    cells = new ArrayList<>();
+                    col = -1;
+                }
+                case "c" -> {
+                    String ref = attrs.getValue("r");
+                    col = (ref != null) ? columnIndex(ref) : col + 1;
+                    cellType = attrs.getValue("t");
+                    String s = attrs.getValue("s");
+                    styleIdx = (s != null) ? Integer.parseInt(s) : 0;
+                    hasFormula = false;
+                    formulaType = null;
+                    value.setLength(0);
+                    formula.setLength(0);
+                    inline.setLength(0);
+                }
+                case "v" -> inValue = true;
+                case "f" -> {
+                    inFormula = true;
+                    hasFormula = true;
+                    formulaType = attrs.getValue("t");
+                }
+                case "is" -> inInline = true;
+                case "rPh" -> inPhonetic = true;
+                case "dimension" -> {
+                    String ref = attrs.getValue("ref");
+                    if (ref != null) {
+                        CellRangeAddress dim = CellRangeAddress.valueOf(ref);
+                        handler.expectedRows(Math.max(0, dim.getLastRow() - dim.getFirstRow() - 1));
+                    }
+                }
+                case "mergeCell" -> {
+                    String ref = attrs.getValue("ref");
+                    if (ref != null) merged.add(CellRangeAddress.valueOf(ref));
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) value.append(ch, start, length);
+            else if (inFormula) formula.append(ch, start, length);
+            else if (inInline && !inPhonetic) inline.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v" -> inValue = false;
+                case "f" -> inFormula = false;
+                case "is" -> inInline = false;
+                case "rPh" -> inPhonetic = false;
+                case "c" -> {
+                    while (cells.size() < col) cells.add("");
+                    cells.add(cellString());
+                }
+                case "row" -> endRow();
+                case "sheetData" -> resolveColumnCount();
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endDocument() {
+            resolveColumnCount();
+            headers = layout.headers(firstRow, merged);
+        }
+
+        private void endRow() {
+            if (rowIdx == firstRow) {
+                headerRow1 = cells;
+                return;
+            }
+            if (rowIdx == firstRow + 1) {
+                headerRow2 = cells;
+                return;
+            }
+            resolveColumnCount();
+
+            List<String> line = new ArrayList<>(columnCount);
+            boolean blank = true;
+            for (int c = 0; c < columnCount; c++) {
+                String v = (c < cells.size()) ? cells.get(c) : "";
+                if (!v.isBlank()) blank = false;
+                line.add(v);
+            }
+
+            // ข้ามแถวว่างทั้งหมด
+            if (blank) return;
+            handler.row(line);
+        }
+
+        private void resolveColumnCount() {
+            if (columnCount >= 0) return;
+            int lastCell1 = (headerRow1 != null) ? headerRow1.size() : 0;
+            int lastCell2 = (headerRow2 != null) ? headerRow2.size() : 0;
+            columnCount = Math.max(lastCell1, lastCell2);
+
+            // template ที่เคยเห็นแล้วได้ layout จาก cache เลย
+            layout = templates.layout(headerRow1, headerRow2, columnCount);
+            handler.columns(layout);
+        }
+
+        /** กติกาเดียวกับ getCellString ของ usermodel */
+        private String cellString() {
+            if (hasFormula) {
+                // shared formula (cell ลูก) ไม่มีข้อความสูตร -> ใช้ค่าที่ cache ไว้แทน
+                if (formula.length() > 0 || !"shared".equals(formulaType)) return formula.toString();
+            }
+
+            String v = value.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                if (v.isEmpty()) return "";
+                double d = Double.parseDouble(v);
+                return isDateStyle(d)
+                        ? String.valueOf(DateUtil.getLocalDateTime(d, date1904))
+                        : String.valueOf(d);
+            }
+
+            return switch (cellType) {
+                case "s" -> v.isEmpty() ? "" : sst.getItemAt(Integer.parseInt(v)).getString();
+                case "inlineStr" -> inline.toString();
+                case "str" -> v;
+                case "b" -> String.valueOf("1".equals(v) || "true".equalsIgnoreCase(v));
+                default -> ""; // e (error)
+            };
+        }
+
+        private boolean isDateStyle(double d) {
+            if (!DateUtil.isValidExcelDate(d)) return false;
+            return dateStyles.computeIfAbsent(styleIdx, idx -> {
+                if (styles == null || idx >= styles.getNumCellStyles()) return false;
+                XSSFCellStyle style = styles.getStyleAt(idx);
+                if (style == null) return false;
+                ExcelNumberFormat nf = ExcelNumberFormat.from(style);
+                return nf != null && DateUtil.isADateFormat(nf);
+            });
+        }
+    }
+}
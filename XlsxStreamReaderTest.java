@@ -0,0 +1,231 @@
+package com.aeon.acss.fdu.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * อ่าน .xlsx แบบ SAX: header 2 แถว (merged), สูตร (รวม shared formula) และการอ่านหลาย sheet พร้อมกัน
+ * ไฟล์ทดสอบเขียน XML เอง เพื่อคุมรูปแบบที่ Excel เขียนจริง (shared formula, mergeCell ท้าย sheet)
+ */
+class XlsxStreamReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private final XlsxStreamReader reader = new XlsxStreamReader(new TemplateRegistry());
+
+    @Test
+    void mergedTwoRowHeadersAreJoinedAsGroupDashColumn() throws Exception {
+        Path file = xlsx(Map.of("Sheet1", sheet(
+                "<dimension ref=\"A1:D5\"/>",
+                row(1, "A1", "Customer", "C1", "Account"),
+                row(2, "A2", "customer_id(20)", "B2", "customer_name(127)", "C2", "agreement_no(16)", "D2", "remark"),
+                row(3, "A3", "C1", "B3", "Somchai", "C3", "AG1", "D3", "x"),
+                row(4, "A4", " "),
+                row(5, "A5", "C2", "C5", "AG2"),
+                "<mergeCells count=\"1\"><mergeCell ref=\"A1:B1\"/></mergeCells>")));
+
+        List<List<String>> rows = new ArrayList<>();
+        List<HeaderLayout> layouts = new ArrayList<>();
+        long[] expected = {-1};
+        List<String> headers = reader.read(file, new XlsxStreamReader.RowHandler() {
+            @Override
+            public void row(List<String> cells) {
+                assertThat(layouts).as("columns() มาก่อนแถวข้อมูล").hasSize(1);
+                rows.add(cells);
+            }
+
+            @Override
+            public void expectedRows(long rows) {
+                expected[0] = rows;
+            }
+
+            @Override
+            public void columns(HeaderLayout layout) {
+                layouts.add(layout);
+            }
+        });
+
+        assertThat(headers).containsExactly("Customer - customer_id(20)", "Customer - customer_name(127)",
+                "Account - agreement_no(16)", "remark");
+        assertThat(layouts.get(0).columnOf("agreement_no")).isEqualTo(2);
+        assertThat(expected[0]).isEqualTo(3);
+        // แถวว่าง (ช่องว่างล้วน) ถูกข้าม ช่องที่ไม่มี cell เป็น ""
+        assertThat(rows).containsExactly(List.of("C1", "Somchai", "AG1", "x"), List.of("C2", "", "AG2", ""));
+    }
+
+    @Test
+    void sharedFormulaChildrenFallBackToTheCachedValue() throws Exception {
+        Path file = xlsx(Map.of("Sheet1", sheet(
+                row(1, "A1", "Amount"),
+                row(2, "A2", "total", "B2", "base"),
+                "<row r=\"3\"><c r=\"A3\"><f>B3*2</f><v>4</v></c><c r=\"B3\"><v>2</v></c></row>",
+                "<row r=\"4\"><c r=\"A4\"><f t=\"shared\" ref=\"A4:A5\" si=\"0\">B4*2</f><v>6</v></c>"
+                        + "<c r=\"B4\"><v>3</v></c></row>",
+                "<row r=\"5\"><c r=\"A5\"><f t=\"shared\" si=\"0\"/><v>8</v></c><c r=\"B5\"><v>4</v></c></row>",
+                "<row r=\"6\"><c r=\"A6\" t=\"str\"><f t=\"shared\" si=\"1\"/><v>text</v></c></row>")));
+
+        List<List<String>> rows = new ArrayList<>();
+        reader.read(file, rows::add);
+
+        assertThat(rows).extracting(r -> r.get(0)).containsExactly("B3*2", "B4*2", "8.0", "text");
+        assertThat(rows).extracting(r -> r.get(1)).containsExactly("2.0", "3.0", "4.0", "");
+    }
+
+    @Test
+    void readSheetsSkipsHiddenSheetsAndKeepsWorkbookOrder() throws Exception {
+        Map<String, String> sheets = new LinkedHashMap<>();
+        sheets.put("PRMF", dataSheet(300));
+        sheets.put("hidden:Notes", dataSheet(1));
+        sheets.put("KBAF - Jan", dataSheet(200));
+        Path file = xlsx(sheets);
+
+        Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<XlsxStreamReader.SheetResult> results = reader.readSheets(file, pool, sheet -> {
+                AtomicInteger n = counts.computeIfAbsent(sheet.name(), k -> new AtomicInteger());
+                return cells -> n.incrementAndGet();
+            });
+
+            assertThat(results).extracting(r -> r.sheet().name()).containsExactly("PRMF", "KBAF - Jan");
+            assertThat(results).extracting(r -> r.sheet().index()).containsExactly(0, 2);
+            assertThat(results.get(0).headers()).containsExactly("Customer - customer_id(20)");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(counts).containsOnlyKeys("PRMF", "KBAF - Jan");
+        assertThat(counts.get("PRMF")).hasValue(300);
+        assertThat(counts.get("KBAF - Jan")).hasValue(200);
+    }
+
+    @Test
+    void failingSheetAbortsTheOthersAndItsErrorIsThrown() throws Exception {
+        Map<String, String> sheets = new LinkedHashMap<>();
+        sheets.put("BAD", dataSheet(5));
+        sheets.put("GOOD", dataSheet(500));
+        Path file = xlsx(sheets);
+
+        AtomicInteger good = new AtomicInteger();
+        List<String> finished = new ArrayList<>();
+        // executor ที่รันบน thread ผู้เรียกตามลำดับ: BAD fail ก่อน GOOD จะเริ่ม
+        assertThatThrownBy(() -> reader.readSheets(file, Runnable::run, sheet -> new XlsxStreamReader.RowHandler() {
+            @Override
+            public void row(List<String> cells) {
+                if (sheet.name().equals("BAD")) throw new IllegalStateException("bad row in " + sheet.name());
+                good.incrementAndGet();
+            }
+
+            @Override
+            public void finished(List<String> headers) {
+                finished.add(sheet.name());
+            }
+        })).isInstanceOf(IllegalStateException.class).hasMessage("bad row in BAD");
+
+        // GOOD หยุดที่แถวแรก (abort) ไม่อ่านจนจบ
+        assertThat(good).hasValue(0);
+        assertThat(finished).isEmpty();
+    }
+
+    // ===================== ไฟล์ทดสอบ =====================
+
+    private static String dataSheet(int rows) {
+        List<String> parts = new ArrayList<>();
+        parts.add(row(1, "A1", "Customer"));
+        parts.add(row(2, "A2", "customer_id(20)"));
+        for (int r = 0; r < rows; r++) parts.add(row(r + 3, "A" + (r + 3), "C" + r));
+        return sheet(parts.toArray(String[]::new));
+    }
+
+    /** cell เป็น inline string ทั้งหมด: ref1, value1, ref2, value2, ... */
+    private static String row(int r, String... refsAndValues) {
+        StringBuilder sb = new StringBuilder("<row r=\"").append(r).append("\">");
+        for (int i = 0; i < refsAndValues.length; i += 2) {
+            sb.append("<c r=\"").append(refsAndValues[i]).append("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">")
+                    .append(refsAndValues[i + 1]).append("</t></is></c>");
+        }
+        return sb.append("</row>").toString();
+    }
+
+    /** ส่วนที่ขึ้นต้นด้วย &lt;row อยู่ใน sheetData ที่เหลือ (dimension / mergeCells) วางก่อน/หลังตามตำแหน่งใน OOXML */
+    private static String sheet(String... parts) {
+        StringBuilder before = new StringBuilder();
+        StringBuilder data = new StringBuilder();
+        StringBuilder after = new StringBuilder();
+        for (String p : parts) {
+            if (p.startsWith("<row")) data.append(p);
+            else if (p.startsWith("<dimension")) before.append(p);
+            else after.append(p);
+        }
+        return "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">" + before
+                + "<sheetData>" + data + "</sheetData>" + after + "</worksheet>";
+    }
+
+    /** workbook จาก ชื่อ sheet -&gt; XML ("hidden:" นำหน้า = sheet ที่ซ่อน) */
+    private Path xlsx(Map<String, String> sheets) throws IOException {
+        StringBuilder types = new StringBuilder(
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                        + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                        + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                        + "<Override PartName=\"/xl/workbook.xml\""
+                        + " ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        StringBuilder workbook = new StringBuilder(
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                        + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        StringBuilder rels = new StringBuilder(
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        Map<String, String> entries = new LinkedHashMap<>();
+
+        int no = 1;
+        for (Map.Entry<String, String> e : sheets.entrySet()) {
+            boolean hidden = e.getKey().startsWith("hidden:");
+            String name = hidden ? e.getKey().substring(7) : e.getKey();
+            types.append("<Override PartName=\"/xl/worksheets/sheet").append(no).append(".xml\"")
+                    .append(" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbook.append("<sheet name=\"").append(name).append("\" sheetId=\"").append(no).append('"')
+                    .append(hidden ? " state=\"hidden\"" : "").append(" r:id=\"rId").append(no).append("\"/>");
+            rels.append("<Relationship Id=\"rId").append(no).append('"')
+                    .append(" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\"")
+                    .append(" Target=\"worksheets/sheet").append(no).append(".xml\"/>");
+            entries.put("xl/worksheets/sheet" + no + ".xml", e.getValue());
+            no++;
+        }
+
+        entries.put("[Content_Types].xml", types.append("</Types>").toString());
+        entries.put("_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\""
+                + " Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\""
+                + " Target=\"xl/workbook.xml\"/></Relationships>");
+        entries.put("xl/workbook.xml", workbook.append("</sheets></workbook>").toString());
+        entries.put("xl/_rels/workbook.xml.rels", rels.append("</Relationships>").toString());
+
+        Path file = Files.createTempFile(dir, "test-", ".xlsx");
+        try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> e : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(e.getKey()));
+                zip.write(e.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+}
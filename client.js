@@ -1,6 +1,6 @@
 
 // ===== State =====
-let clients = [];     // loaded from server
+let clients = [];     // rows of the current page (loaded from server)
 let editingId = null; // entity id
 let deletingId = null;
 let dt = null;
@@ -64,20 +64,76 @@ async function apiDelete(url) {
 
 // ---------- Utils ----------
 function toSafe(s) { return s ?? ''; }
+function normalize(c) {
+  return {
+    id: c.id,
+    code: toSafe(c.code),
+    service: toSafe(c.service),
+    nameTh: toSafe(c.nameTh),
+    nameEn: toSafe(c.nameEn),
+    createdBy: c.createdBy ?? '',
+    createdAt: c.createdAt ?? '',
+    updatedBy: c.updatedBy ?? '',
+    updatedAt: c.updatedAt ?? '',
+    version: c.version ?? null
+  };
+}
 function updateTotal() {
-  // Count rows after DataTables' current search/filter
-  const total = dt ? dt.rows({ search: 'applied' }).count() : 0;
+  // Count rows matching the current search (reported by the server)
+  const total = dt ? dt.page.info().recordsDisplay : 0;
   const el = document.getElementById("totalRows");
   if (el) el.textContent = String(total);
 }
 
+// ---------- Server-side paging ----------
+// keyset cursor ของหน้าที่ต่อจากหน้าที่โหลดแล้ว (key = sort + search + length + start)
+// ไป-กลับหน้าถัดไป/ก่อนหน้าจึงไม่ต้องใช้ OFFSET ฝั่ง DB
+const cursors = new Map();
+function pageKey(d, start) {
+  const order = d.order?.[0] ?? {};
+  return `${order.column}|${order.dir}|${d.search?.value ?? ''}|${d.length}|${start}`;
+}
+
+async function loadPage(d, callback) {
+  const col = d.order?.[0]?.column ?? 0;
+  const params = new URLSearchParams({
+    draw: d.draw,
+    start: d.start,
+    length: d.length,
+    'search[value]': d.search?.value ?? '',
+    'order[0][column]': col,
+    'order[0][dir]': d.order?.[0]?.dir ?? 'asc',
+    [`columns[${col}][data]`]: d.columns?.[col]?.data ?? 'code'
+  });
+  const after = cursors.get(pageKey(d, d.start));
+  if (after) params.set('after', after);
+
+  try {
+    // RELATIVE path: resolves to /<context>/client/api/page
+    const page = await apiGet(`api/page?${params}`);
+    clients = page.data.map(normalize);
+    if (page.next) cursors.set(pageKey(d, d.start + d.length), page.next);
+    callback({
+      draw: page.draw,
+      recordsTotal: page.recordsTotal,
+      recordsFiltered: page.recordsFiltered,
+      data: clients
+    });
+  } catch (e) {
+    console.error('Failed to load clients:', e);
+    callback({ draw: d.draw, recordsTotal: 0, recordsFiltered: 0, data: [] });
+  }
+}
+
 // ---------- DataTable ----------
 function initDataTable() {
   dt = new DataTable('#clientTable', {
-    data: clients,
+    serverSide: true,     // search/sort/paging on the server (only the current page is loaded)
+    ajax: loadPage,
     responsive: true,
     autoWidth: false,
-    searching: true,      // use DataTables built-in search
+    searching: true,
+    searchDelay: 400,
     lengthChange: true,
     pageLength: 10,
     order: [[0, 'asc']],
@@ -86,10 +142,10 @@ function initDataTable() {
       { data: 'service' },
       { data: 'nameTh' },
       { data: 'nameEn' },
-      { data: 'createdBy' },
+      { data: 'createdBy', orderable: false },
       { data: 'createdAt' },
-      { data: 'updatedBy' },
-      { data: 'updatedAt' },
+      { data: 'updatedBy', orderable: false },
+      { data: 'updatedAt', orderable: false },
       {
         data: null,
         orderable: false,
@@ -142,9 +198,7 @@ function initDataTable() {
 
 function redrawTable() {
   if (!dt) return;
-  dt.clear();
-  dt.rows.add(clients);
-  dt.draw(false);
+  dt.ajax.reload(null, false); // reload the current page, keep paging position
 }
 
 // ---------- Error helpers ----------
@@ -163,27 +217,7 @@ function hideError(id) {
 
 // ---------- DOM Ready ----------
 document.addEventListener("DOMContentLoaded", async () => {
-  try {
-    // RELATIVE path: resolves to /<context>/client/api (e.g., /fdu/client/api)
-    const data = await apiGet('api');
-
-    // Normalize for DataTable
-    clients = data.map(c => ({
-      id: c.id,
-      code: toSafe(c.code),
-      service: toSafe(c.service),
-      nameTh: toSafe(c.nameTh),
-      nameEn: toSafe(c.nameEn),
-      createdBy: c.createdBy ?? '',
-      createdAt: c.createdAt ?? '',
-      updatedBy: c.updatedBy ?? '',
-      updatedAt: c.updatedAt ?? ''
-    }));
-
-    initDataTable();
-  } catch (e) {
-    console.error('Failed to load clients:', e);
-  }
+  initDataTable();
 
   // Add
   document.getElementById("btnAddConfirm").addEventListener("click", async () => {
@@ -199,13 +233,10 @@ document.addEventListener("DOMContentLoaded", async () => {
 
     try {
       // RELATIVE path
-      const created = await apiPost('api', {
-        code, service, nameTh, nameEn,
-        createdBy: 1, // TODO: replace with logged-in user id
-        updatedBy: 1
+      await apiPost('api', {
+        code, service, nameTh, nameEn
       });
 
-      clients.unshift(created);
       redrawTable();
 
       // reset + close
@@ -240,13 +271,14 @@ document.addEventListener("DOMContentLoaded", async () => {
 
     try {
       // RELATIVE path
+      const current = clients.find(x => x.id === editingId);
       const updated = await apiPut(`api/${editingId}`, {
         service, nameTh, nameEn,
-        updatedBy: 1 // TODO: logged-in user id
+        version: current?.version // version ที่เห็นล่าสุด (server ตอบ 409 ถ้ามีคนแก้/ลบก่อน)
       });
 
       const idx = clients.findIndex(x => x.id === editingId);
-      if (idx >= 0) clients[idx] = updated;
+      if (idx >= 0) clients[idx] = normalize(updated);
 
       hideError("editError");
       redrawTable();
@@ -254,7 +286,10 @@ document.addEventListener("DOMContentLoaded", async () => {
 
     } catch (err) {
       console.error(err);
-      showError("editError", "Update failed. Please try again.");
+      const msg = /409|428/.test(String(err?.message || ''))
+        ? 'This client was changed or deleted by someone else (or Code + Service is duplicated). Please reload.'
+        : 'Update failed. Please try again.';
+      showError("editError", msg);
     }
   });
 
@@ -263,15 +298,16 @@ document.addEventListener("DOMContentLoaded", async () => {
     if (deletingId == null) return;
     try {
       // RELATIVE path
-      await apiDelete(`api/${deletingId}`);
-      const idx = clients.findIndex(x => x.id === deletingId);
-      if (idx >= 0) clients.splice(idx, 1);
+      const current = clients.find(x => x.id === deletingId);
+      await apiDelete(`api/${deletingId}?version=${encodeURIComponent(current?.version ?? '')}`);
       deletingId = null;
       redrawTable();
       coreui.Modal.getInstance(document.getElementById("modalDelete"))?.hide();
     } catch (err) {
       console.error(err);
-      // optionally show toast
+      if (/409|428/.test(String(err?.message || ''))) {
+        alert('This client was changed or deleted by someone else. Please reload and try again.');
+      }
     }
   });
 });
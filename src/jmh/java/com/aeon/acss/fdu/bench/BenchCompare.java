@@ -0,0 +1,126 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * เทียบผล JMH (-rf json) รอบปัจจุบันกับ baseline ที่เก็บไว้
+ *
+ * <pre>
+ * BenchCompare &lt;current.json&gt; &lt;baseline.json&gt; [--save] [--threshold=0.10]
+ * </pre>
+ *
+ * --save = เก็บผลปัจจุบันเป็น baseline (ต้องสั่งเองเท่านั้น แล้ว commit bench/baseline.json)
+ * ไม่มี baseline = exit 2 (ไม่เก็บให้เอง ไม่งั้นการเทียบที่ตั้งใจไว้จะผ่านเงียบ ๆ)
+ * ไม่งั้นพิมพ์ ops/s และ bytes/op (gc.alloc.rate.norm) เทียบกัน แล้ว exit 1 ถ้าช้าลง
+ * หรือ allocate เพิ่มเกิน threshold
+ */
+public final class BenchCompare {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    private BenchCompare() {
+    }
+
+    record Result(double score, String unit, double bytesPerOp) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchCompare <current.json> <baseline.json> [--save] [--threshold=0.10]");
+            System.exit(2);
+        }
+        Path current = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        boolean save = false;
+        double threshold = 0.10;
+        for (int i = 2; i < args.length; i++) {
+            if ("--save".equals(args[i])) save = true;
+            else if (args[i].startsWith("--threshold=")) threshold = Double.parseDouble(args[i].substring(12));
+        }
+
+        if (!save && !Files.exists(baseline)) {
+            System.err.println("No baseline at " + baseline
+                    + " - record one on a quiet machine with --save (mvn -Pbench exec:java@jmh-baseline) and commit it");
+            System.exit(2);
+        }
+        if (save) {
+            if (baseline.getParent() != null) Files.createDirectories(baseline.getParent());
+            Files.copy(current, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline saved: " + baseline);
+            return;
+        }
+
+        Map<String, Result> now = read(current);
+        Map<String, Result> base = read(baseline);
+        int regressions = 0;
+
+        System.out.printf(Locale.US, "%-70s %14s %14s %8s %12s %12s %8s%n",
+                "benchmark", "base", "current", "diff", "base B/op", "B/op", "diff");
+        for (Map.Entry<String, Result> e : now.entrySet()) {
+            Result n = e.getValue();
+            Result b = base.get(e.getKey());
+            if (b == null) {
+                System.out.printf(Locale.US, "%-70s %14s %14.2f %8s %12s %12.0f%n",
+                        e.getKey(), "-", n.score(), "new", "-", n.bytesPerOp());
+                continue;
+            }
+            // throughput: สูง = ดี, เวลา/op: ต่ำ = ดี
+            boolean higherIsBetter = n.unit().startsWith("ops/");
+            double scoreDiff = change(b.score(), n.score());
+            double allocDiff = change(b.bytesPerOp(), n.bytesPerOp());
+            boolean slower = higherIsBetter ? scoreDiff < -threshold : scoreDiff > threshold;
+            boolean heavier = allocDiff > threshold;
+            if (slower || heavier) regressions++;
+
+            System.out.printf(Locale.US, "%-70s %14.2f %14.2f %+7.1f%% %12.0f %12.0f %+7.1f%%%s%n",
+                    e.getKey(), b.score(), n.score(), scoreDiff * 100, b.bytesPerOp(), n.bytesPerOp(),
+                    allocDiff * 100, (slower || heavier) ? "  <-- regression" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf(Locale.US, "%d benchmark(s) regressed more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+    }
+
+    private static double change(double base, double now) {
+        if (Double.isNaN(base) || Double.isNaN(now) || base == 0) return 0;
+        return (now - base) / base;
+    }
+
+    /** benchmark + params -> ผล */
+    static Map<String, Result> read(Path file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file.toFile());
+        Map<String, Result> out = new LinkedHashMap<>();
+        for (JsonNode run : root) {
+            StringBuilder key = new StringBuilder(shortName(run.path("benchmark").asText()));
+            Iterator<Map.Entry<String, JsonNode>> params = run.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> p = params.next();
+                key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText());
+            }
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode alloc = run.path("secondaryMetrics").path(ALLOC);
+            out.put(key.toString(), new Result(primary.path("score").asDouble(Double.NaN),
+                    primary.path("scoreUnit").asText(),
+                    alloc.isMissingNode() ? Double.NaN : alloc.path("score").asDouble(Double.NaN)));
+        }
+        return out;
+    }
+
+    private static String shortName(String benchmark) {
+        return benchmark.startsWith("com.aeon.acss.fdu.bench.")
+                ? benchmark.substring("com.aeon.acss.fdu.bench.".length())
+                : benchmark;
+    }
+}
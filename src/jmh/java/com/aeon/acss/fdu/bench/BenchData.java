@@ -0,0 +1,171 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+
+/**
+ * ข้อมูลสังเคราะห์สำหรับ benchmark (seed คงที่ ผลแต่ละรอบเทียบกันได้)
+ */
+final class BenchData {
+
+    static final long SEED = 20240117L;
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    static final String[] CLIENTS = {"PRMF", "AMNF", "KBAF", "BMW1", "AIRA", "TSCO", "KTCF", "SCBL"};
+    static final String[] SURVEY_TYPES = {"SUH", "SUC", "SUO", "SUB"};
+    static final String[] STATUSES = {"1", "2", "4", "5", "6", "98", "99"};
+
+    private static final String[] FIRST = {"สมชาย", "สมหญิง", "ประยุทธ", "กนกพร", "วิไล", "ธนพล", "Somchai", "Anong"};
+    private static final String[] LAST = {"ศรีพรม", "สังเกิน", "สมบูรณ์", "วงธิสอน", "กองแก้ว", "Jaidee", "Boonmee"};
+    private static final String[] STREETS = {"หมู่บ้านน้ำเที่ยง", "ถนนพหลโยธิน", "ซอยสุขุมวิท 71", "ถนนมิตรภาพ"};
+
+    // header 2 แถวแบบ template: แถวบน = กลุ่ม (merge), แถวล่าง = field(ชนิด)
+    static final String[] GROUPS = {"Customer", "Customer", "Customer", "Customer",
+            "Contract", "Contract", "Contract", "Contract", "Contract", "Contract"};
+    static final String[] FIELDS = {"customer_id(20)", "customer_name(200)", "mobile_no(15)", "post_code(5)",
+            "agreement_no(16)", "client_code(10)", "client_service(10)", "os_balance(decimal 18,2)",
+            "due_date(yyyy-MM-dd HH:mm:ss)", "installment(Number)"};
+
+    private BenchData() {
+    }
+
+    /** ไฟล์ .xlsx ที่มี header 2 แถว + rows แถวข้อมูล (ตัวเลข/วันที่เป็น numeric cell จริง) */
+    static Path workbook(int rows) throws IOException {
+        Path file = Files.createTempFile("fdu-bench-" + rows + "-", ".xlsx");
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        SXSSFWorkbook wb = new SXSSFWorkbook(200);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = wb.createSheet("Data");
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            Row top = sheet.createRow(0);
+            Row sub = sheet.createRow(1);
+            for (int c = 0; c < FIELDS.length; c++) {
+                if (c == 0 || !GROUPS[c].equals(GROUPS[c - 1])) top.createCell(c).setCellValue(GROUPS[c]);
+                sub.createCell(c).setCellValue(FIELDS[c]);
+            }
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 3));
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 4, FIELDS.length - 1));
+
+            LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.createRow(r + 2);
+                row.createCell(0).setCellValue(digits(rnd, 13));
+                row.createCell(1).setCellValue(name(rnd));
+                row.createCell(2).setCellValue("0" + digits(rnd, 9));
+                row.createCell(3).setCellValue(digits(rnd, 5));
+                row.createCell(4).setCellValue(digits(rnd, 16));
+                row.createCell(5).setCellValue(CLIENTS[rnd.nextInt(CLIENTS.length)]);
+                row.createCell(6).setCellValue(CLIENTS[rnd.nextInt(CLIENTS.length)] + "CR1");
+                row.createCell(7).setCellValue(rnd.nextInt(10_000_000) / 100.0);
+                var due = row.createCell(8);
+                due.setCellValue(base.plusMinutes(rnd.nextInt(500_000)));
+                due.setCellStyle(dateStyle);
+                row.createCell(9).setCellValue(rnd.nextInt(60));
+            }
+            wb.write(out);
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+        return file;
+    }
+
+    /** แถว import หลัง validate/normalize ตามลำดับ FIELDS (รูปเดียวกับที่ staging ได้รับ) */
+    static List<List<String>> importRows(int count) {
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<List<String>> rows = new ArrayList<>(count);
+        for (int r = 0; r < count; r++) {
+            List<String> row = new ArrayList<>(FIELDS.length);
+            row.add(digits(rnd, 13));
+            row.add(name(rnd));
+            row.add("0" + digits(rnd, 9));
+            row.add(digits(rnd, 5));
+            row.add(digits(rnd, 16));
+            row.add(CLIENTS[rnd.nextInt(CLIENTS.length)]);
+            row.add(CLIENTS[rnd.nextInt(CLIENTS.length)] + "CR1");
+            row.add(BigDecimal.valueOf(rnd.nextInt(10_000_000), 2).toPlainString());
+            row.add(base.plusMinutes(rnd.nextInt(500_000)).format(DATE_TIME));
+            row.add(String.valueOf(rnd.nextInt(60)));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** แถวของหน้า Customer Lists กระจายค่าใกล้เคียงข้อมูลจริง (client/status ไม่สม่ำเสมอ) */
+    static List<CustomerListRow> customers(int count) {
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        LocalDate first = LocalDate.of(2022, 1, 1);
+        List<CustomerListRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String client = CLIENTS[skewed(rnd, CLIENTS.length)];
+            LocalDate created = first.plusDays(rnd.nextInt(1000));
+            rows.add(new CustomerListRow(
+                    String.format("%013d", 1_000_000_000_000L + i),
+                    name(rnd),
+                    STATUSES[skewed(rnd, STATUSES.length)],
+                    created.plusDays(rnd.nextInt(30)).toString(),
+                    SURVEY_TYPES[rnd.nextInt(SURVEY_TYPES.length)],
+                    "บริษัท " + client + " จำกัด",
+                    client,
+                    BigDecimal.valueOf(rnd.nextInt(10_000_000), 2),
+                    digits(rnd, 16),
+                    created,
+                    created.plusDays(rnd.nextInt(60)),
+                    rnd.nextInt(4) == 0 ? "PTP" : null,
+                    rnd.nextInt(8) == 0 ? "ลูกค้าไม่อยู่บ้าน นัดใหม่" : null,
+                    rnd.nextInt(999) + "/" + rnd.nextInt(99) + " " + STREETS[rnd.nextInt(STREETS.length)],
+                    digits(rnd, 5)));
+        }
+        return rows;
+    }
+
+    static List<ClientModel> clients(int count) {
+        SplittableRandom rnd = new SplittableRandom(SEED);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<ClientModel> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new ClientModel(i + 1, CLIENTS[i % CLIENTS.length] + i, "CR" + (i % 3),
+                    "บริษัท ลูกค้า " + i + " จำกัด", "CLIENT " + i + " CO., LTD.", 1,
+                    base.plusMinutes(rnd.nextInt(100_000)), (i % 2 == 0) ? 2 : null,
+                    (i % 2 == 0) ? base.plusMinutes(rnd.nextInt(200_000)) : null, null));
+        }
+        return list;
+    }
+
+    // ค่าแรก ๆ ของ array ถูกเลือกบ่อยกว่า (client ใหญ่ / status Completed ฯลฯ)
+    private static int skewed(SplittableRandom rnd, int n) {
+        return Math.min(n - 1, (int) Math.floor(Math.abs(rnd.nextGaussian()) * n / 2.5));
+    }
+
+    private static String name(SplittableRandom rnd) {
+        return FIRST[rnd.nextInt(FIRST.length)] + " " + LAST[rnd.nextInt(LAST.length)];
+    }
+
+    private static String digits(SplittableRandom rnd, int len) {
+        char[] c = new char[len];
+        for (int i = 0; i < len; i++) c[i] = (char) ('0' + rnd.nextInt(10));
+        return new String(c);
+    }
+}
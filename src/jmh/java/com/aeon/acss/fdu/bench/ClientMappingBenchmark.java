@@ -0,0 +1,58 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aeon.acss.fdu.model.ClientModel;
+import com.aeon.acss.fdu.model.dto.ClientDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * entity -&gt; ClientDto (ClientDto.from) และ serialize รายการ client เป็น JSON แบบ GET /client/api
+ * 1 op = ทั้งรายการ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientMappingBenchmark {
+
+    @Param({"100", "10000"})
+    int clients;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private List<ClientModel> models;
+    private List<ClientDto> dtos;
+
+    @Setup
+    public void setUp() {
+        models = BenchData.clients(clients);
+        dtos = models.stream().map(ClientDto::from).toList();
+    }
+
+    @Benchmark
+    public List<ClientDto> from() {
+        return models.stream().map(ClientDto::from).toList();
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        return mapper.writeValueAsBytes(dtos);
+    }
+}
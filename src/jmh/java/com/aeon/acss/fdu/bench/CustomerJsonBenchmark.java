@@ -0,0 +1,162 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchResult;
+import com.aeon.acss.fdu.search.CustomerRowJson;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON ของผลค้นหา 1 หน้า: JsonGenerator ตรง (ปัจจุบัน) เทียบกับ Map ต่อแถว + ObjectMapper (วิธีเดิม)
+ * เขียนลง stream ที่ทิ้งข้อมูล — วัดแค่ต้นทุน serialize
+ *
+ * <p>ttfb*: เวลาจนถึง byte แรกที่ออกจาก generator (stream โยน exception ตอน write ครั้งแรกแล้วหยุด)
+ * วิธีเดิมต้องสร้าง Map ครบทุกแถวก่อน ส่วน generator/NDJSON ปล่อยเมื่อ buffer เต็มหรือ flush รอบแรก
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerJsonBenchmark {
+
+    @Param({"50", "1000"})
+    int pageSize;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private CustomerSearchResult page;
+
+    @Setup
+    public void setUp() {
+        List<CustomerListRow> rows = BenchData.customers(pageSize);
+        page = new CustomerSearchResult(1, 1_000_000, 250_000, rows);
+    }
+
+    @Benchmark
+    public void generator() throws IOException {
+        CustomerRowJson.writePage(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void mapPerRow() throws IOException {
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("draw", page.draw());
+        resp.put("recordsTotal", page.recordsTotal());
+        resp.put("recordsFiltered", page.recordsFiltered());
+        resp.put("data", page.data().stream().map(CustomerJsonBenchmark::toMap).toList());
+        mapper.writeValue(OutputStream.nullOutputStream(), resp);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void ttfbGenerator() throws IOException {
+        try {
+            CustomerRowJson.writePage(FirstByte.stream(), page);
+        } catch (FirstByte expected) {
+            // byte แรกออกแล้ว
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void ttfbNdjson() throws IOException {
+        try (JsonGenerator g = CustomerRowJson.generator(FirstByte.stream())) {
+            page.data().forEach(CustomerRowJson.ndjson(g));
+        } catch (FirstByte | UncheckedIOException expected) {
+            // byte แรกออกแล้ว (ระหว่างแถว = ห่อด้วย UncheckedIOException, หน้าเล็กกว่ารอบ flush = ตอน close)
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void ttfbMapPerRow(Blackhole bh) throws IOException {
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("draw", page.draw());
+        resp.put("data", page.data().stream().map(CustomerJsonBenchmark::toMap).toList());
+        try {
+            mapper.writeValue(FirstByte.stream(), resp);
+        } catch (FirstByte expected) {
+            bh.consume(resp);
+        }
+    }
+
+    /**
+     * ให้การเขียนหยุดตั้งแต่ byte แรก: write ครั้งแรกโยน exception (ตัวเดียวใช้ซ้ำ ไม่เก็บ stack trace)
+     * ครั้งถัดไป (flush ตอน close) ทิ้งเฉย ๆ — ถ้าโยนตัวเดิมซ้ำ try-with-resources จะ suppress ตัวเองไม่ได้
+     */
+    private static final class FirstByte extends IOException {
+
+        static final FirstByte SIGNAL = new FirstByte();
+
+        static OutputStream stream() {
+            return new OutputStream() {
+                private boolean written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(null, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (len == 0 || written) return;
+                    written = true;
+                    throw SIGNAL;
+                }
+            };
+        }
+
+        private FirstByte() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    // เหมือน toMap เดิมของ CustomerListController
+    private static Map<String, Object> toMap(CustomerListRow r) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("customerId", r.customerId());
+        m.put("customerName", r.customerName());
+        m.put("status", r.status());
+        m.put("appointmentDate", r.appointmentDate());
+        m.put("surveyType", r.surveyType());
+        m.put("clientName", r.clientName());
+        m.put("osBalance", r.osBalance());
+        m.put("agreementNo", r.agreementNo());
+        m.put("createdDate", r.createdDate() != null ? r.createdDate().toString() : "");
+        m.put("updateDate", r.updateDate() != null ? r.updateDate().toString() : "");
+        m.put("collectorResult", r.collectorResult());
+        m.put("collectorRemark", r.collectorRemark());
+        m.put("clientCode", r.clientCode());
+        return m;
+    }
+}
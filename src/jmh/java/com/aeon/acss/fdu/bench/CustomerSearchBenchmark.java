@@ -0,0 +1,116 @@
+package com.aeon.acss.fdu.bench;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aeon.acss.fdu.model.dto.CustomerListRow;
+import com.aeon.acss.fdu.model.dto.CustomerSearchCriteria;
+import com.aeon.acss.fdu.model.dto.CustomerSearchResult;
+import com.aeon.acss.fdu.repository.CustomerSearchRepository;
+import com.aeon.acss.fdu.search.CustomerSearchIndex;
+
+/**
+ * filter chain ของ /customer-list/api/search บนข้อมูลสังเคราะห์: in-memory index เทียบกับ
+ * scan ทีละแถว (วิธีเดิมก่อนมี index) — 1 op = ค้นหา 1 หน้า (50 แถว)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerSearchBenchmark {
+
+    @Param({"10000", "100000", "500000"})
+    int rows;
+
+    /** none = ไม่มีเงื่อนไข, name = contains ชื่อ, equality = client + status, dates = ช่วงวันที่, mixed = ทุกแบบ */
+    @Param({"none", "name", "equality", "dates", "mixed"})
+    String query;
+
+    private List<CustomerListRow> data;
+    private CustomerSearchIndex index;
+    private CustomerSearchCriteria criteria;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchData.customers(rows);
+        index = new CustomerSearchIndex(new SyntheticRepository(data), true, Duration.ofDays(1), 0.25);
+        index.rebuild();
+        criteria = criteria(query);
+    }
+
+    @Benchmark
+    public CustomerSearchResult indexSearch() {
+        return index.search(criteria);
+    }
+
+    @Benchmark
+    public CustomerSearchResult linearScan() {
+        CustomerSearchCriteria c = criteria;
+        String name = c.getCustName() != null ? c.getCustName().toLowerCase(Locale.ROOT) : null;
+        List<CustomerListRow> matched = data.stream()
+                .filter(r -> name == null || (r.customerName() != null
+                        && r.customerName().toLowerCase(Locale.ROOT).contains(name)))
+                .filter(r -> c.getClient() == null || c.getClient().equals(r.clientCode()))
+                .filter(r -> c.getJobStatus() == null || c.getJobStatus().equals(r.status()))
+                .filter(r -> inRange(r.createdDate(), c.getCreatedFrom(), c.getCreatedTo()))
+                .sorted(Comparator.comparing(CustomerListRow::customerId))
+                .toList();
+        List<CustomerListRow> page = matched.subList(0, Math.min(c.getPageSize(), matched.size()));
+        return new CustomerSearchResult(c.getDraw(), data.size(), matched.size(), List.copyOf(page));
+    }
+
+    private static boolean inRange(LocalDate d, LocalDate from, LocalDate to) {
+        if (from == null && to == null) return true;
+        if (d == null) return false;
+        return (from == null || !d.isBefore(from)) && (to == null || !d.isAfter(to));
+    }
+
+    private static CustomerSearchCriteria criteria(String query) {
+        CustomerSearchCriteria.CustomerSearchCriteriaBuilder b = CustomerSearchCriteria.builder()
+                .draw(1).start(0).length(CustomerSearchCriteria.DEFAULT_LENGTH).sortField("customerId");
+        switch (query) {
+            case "name" -> b.custName("สมบูรณ์");
+            case "equality" -> b.client("KBAF").jobStatus("4");
+            case "dates" -> b.createdFrom(LocalDate.of(2023, 3, 1)).createdTo(LocalDate.of(2023, 3, 31));
+            case "mixed" -> b.custName("วิไล").client("PRMF").jobStatus("1")
+                    .createdFrom(LocalDate.of(2022, 6, 1)).createdTo(LocalDate.of(2023, 6, 1));
+            default -> { }
+        }
+        return b.build();
+    }
+
+    /** repository ที่คืนข้อมูลสังเคราะห์แทน DB (index โหลดผ่าน forEachRow อย่างเดียว) */
+    private static final class SyntheticRepository extends CustomerSearchRepository {
+        private final List<CustomerListRow> rows;
+
+        SyntheticRepository(List<CustomerListRow> rows) {
+            super(null, "bench");
+            this.rows = rows;
+        }
+
+        @Override
+        public void forEachRow(Consumer<CustomerListRow> action) {
+            rows.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.aeon.acss.fdu.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aeon.acss.fdu.importer.TemplateRegistry;
+
+/**
+ * resolve header 2 แถว (merged cells) ของไฟล์ upload — 1 op = 1 ไฟล์
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderResolveBenchmark {
+
+    private TemplateRegistry warmTemplates;
+    private List<String> row1;
+    private List<String> row2;
+    private List<CellRangeAddress> merged;
+
+    @Setup
+    public void setUp() {
+        row1 = Arrays.asList("Customer", "", "", "", "Contract", "", "", "", "", "");
+        row2 = Arrays.asList(BenchData.FIELDS);
+        merged = List.of(new CellRangeAddress(0, 0, 0, 3), new CellRangeAddress(0, 0, 4, row2.size() - 1));
+        warmTemplates = new TemplateRegistry();
+        warmTemplates.layout(row1, row2, row2.size()).headers(0, merged);
+    }
+
+    /** template ที่ยังไม่เคยเห็น: fingerprint + สร้าง layout/rule + resolve merged cells */
+    @Benchmark
+    public List<String> cold() {
+        return new TemplateRegistry().layout(row1, row2, row2.size()).headers(0, merged);
+    }
+
+    /** template ที่ cache แล้ว (กรณีปกติ: upload ด้วย template เดิม) */
+    @Benchmark
+    public List<String> warm() {
+        return warmTemplates.layout(row1, row2, row2.size()).headers(0, merged);
+    }
+}
@@ -0,0 +1,60 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.aeon.acss.fdu.importer.TemplateRegistry;
+import com.aeon.acss.fdu.importer.XlsxStreamReader;
+
+/**
+ * อ่านไฟล์ upload ทั้งไฟล์ด้วย SAX reader (แปลง cell เป็น String ตามกติกา getCellString)
+ * 1 op = 1 ไฟล์ ขนาดตาม rows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportReadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int rows;
+
+    private Path file;
+    private TemplateRegistry warmTemplates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchData.workbook(rows);
+        warmTemplates = new TemplateRegistry();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /** ทั้งไฟล์ผ่าน XlsxStreamReader (template cache อุ่นแล้ว เหมือน upload ครั้งที่ 2 เป็นต้นไป) */
+    @Benchmark
+    public void readWorkbook(Blackhole bh) throws IOException {
+        bh.consume(new XlsxStreamReader(warmTemplates).read(file, bh::consume));
+    }
+}
@@ -0,0 +1,137 @@
+package com.aeon.acss.fdu.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aeon.acss.fdu.importer.RowBatch;
+
+/**
+ * แถว import ใน staging: RowBatch แบบ columnar (ปัจจุบัน) เทียบกับ String ต่อ cell
+ * setup log (INFO) bytes/row ของ List&lt;List&lt;String&gt;&gt; บน heap, record แบบเดิม (UTF-8 ต่อ cell) และ RowBatch
+ * ขนาดไม่ขึ้นกับเวลา จึงไม่ใช่ score ของ JMH
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBatchBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RowBatchBenchmark.class);
+
+    @Param({"4096", "100000"})
+    int rows;
+
+    private List<List<String>> data;
+    private ByteBuffer encoded;
+    private int[] offsets;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = BenchData.importRows(rows);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> starts = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RowBatch.Builder batch = new RowBatch.Builder();
+            for (List<String> row : data) {
+                if (batch.add(row)) {
+                    starts.add(out.size());
+                    batch.encodeTo(out);
+                }
+            }
+            if (!batch.isEmpty()) {
+                starts.add(out.size());
+                batch.encodeTo(out);
+            }
+        }
+        encoded = ByteBuffer.wrap(bytes.toByteArray());
+        offsets = starts.stream().mapToInt(Integer::intValue).toArray();
+
+        if (log.isInfoEnabled()) {
+            log.info(String.format(Locale.US, "[rows=%d] bytes/row: heap strings %.1f, staged strings %.1f, staged batches %.1f",
+                    rows, heapBytes() / (double) rows, legacyBytes() / (double) rows, encoded.capacity() / (double) rows));
+        }
+    }
+
+    /** encode ทุกแถวเป็น batch (ต้นทุนฝั่งเขียน staging) */
+    @Benchmark
+    public void encode() throws IOException {
+        DataOutputStream out = new DataOutputStream(OutputStream.nullOutputStream());
+        RowBatch.Builder batch = new RowBatch.Builder();
+        for (List<String> row : data) {
+            if (batch.add(row)) batch.encodeTo(out);
+        }
+        if (!batch.isEmpty()) batch.encodeTo(out);
+    }
+
+    /** อ่าน 1 หน้า preview (50 แถว) เป็น String — แปลงเฉพาะแถวที่ขอ */
+    @Benchmark
+    public void decodePage(Blackhole bh) {
+        RowBatch batch = RowBatch.at(encoded, offsets[offsets.length / 2]);
+        for (int r = 0; r < 50; r++) bh.consume(batch.row(r));
+    }
+
+    /** decode ทุกแถว (เช่น ตอนบันทึกลง DB) */
+    @Benchmark
+    public void decodeAll(Blackhole bh) {
+        for (int offset : offsets) {
+            RowBatch batch = RowBatch.at(encoded, offset);
+            for (int r = 0; r < batch.rowCount(); r++) bh.consume(batch.row(r));
+        }
+    }
+
+    // record แบบเดิม: int จำนวน cell + (int ความยาว + UTF-8) ต่อ cell
+    private long legacyBytes() {
+        long total = 0;
+        for (List<String> row : data) {
+            total += 4;
+            for (String cell : row) total += 4 + cell.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return total;
+    }
+
+    // allocation ของการสร้างสำเนาแถวเป็น String ใหม่ทั้งหมด ~ ขนาดที่ค้างบน heap ถ้าเก็บแถวไว้ใน memory
+    private long heapBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        List<List<String>> copy = new ArrayList<>(data.size());
+        for (List<String> row : data) {
+            List<String> cells = new ArrayList<>(row.size());
+            for (String cell : row) cells.add(new String(cell.toCharArray()));
+            copy.add(cells);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        // toCharArray เป็นขยะชั่วคราว ไม่นับ
+        long scratch = 0;
+        for (List<String> row : copy) {
+            for (String cell : row) scratch += (16 + 2L * cell.length() + 7) & ~7L;
+        }
+        return allocated - scratch;
+    }
+}